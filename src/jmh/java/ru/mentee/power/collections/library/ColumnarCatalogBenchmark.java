@@ -0,0 +1,140 @@
+package ru.mentee.power.collections.library;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение аналитических запросов по объектам Book и по колоночной копии каталога.
+ * Перед замером проверяется, что оба варианта дают одинаковый результат.
+ * Запуск: ./gradlew jmh -PjmhArgs="ColumnarCatalogBenchmark -p books=1000000"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ColumnarCatalogBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int books;
+
+    private List<Book> catalog;
+    private ColumnarCatalog columns;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        LibraryManager manager = LibraryManager.withExpectedSize(books, books / 10);
+        manager.addBooks(generateBooks(books));
+        columns = ColumnarCatalog.attach(manager);
+        catalog = manager.getAllBooks();
+
+        check("countByGenre", countByGenre(catalog).size(), columns.countByGenre().size());
+        check("count", countMatching(catalog), columns.count(Book.Genre.SCIENCE, true, 2, 1990, 2010));
+        check("averagePageCount", (int) averagePageCount(catalog), (int) columns.averagePageCount(null));
+    }
+
+    private static void check(String name, int expected, int actual) {
+        if (expected != actual) {
+            throw new IllegalStateException(name + ": результаты не совпадают (" + expected + " / " + actual + ")");
+        }
+    }
+
+    private static List<Book> generateBooks(int count) {
+        Random random = new Random(42);
+        Book.Genre[] genres = Book.Genre.values();
+        List<Book> books = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Book book = new Book("ISBN" + i, "Book " + i, 1950 + random.nextInt(75),
+                    genres[random.nextInt(genres.length)]);
+            book.setPageCount(50 + random.nextInt(900));
+            int authors = 1 + random.nextInt(3);
+            for (int a = 0; a < authors; a++) {
+                book.addAuthor("Author " + random.nextInt(count / 10 + 1));
+            }
+            book.setAvailable(random.nextInt(5) != 0);
+            books.add(book);
+        }
+        return books;
+    }
+
+    // ============ Обход объектов Book ============
+
+    private static Map<Book.Genre, Integer> countByGenre(List<Book> books) {
+        Map<Book.Genre, Integer> result = new EnumMap<>(Book.Genre.class);
+        for (Book book : books) {
+            result.merge(book.getGenre(), 1, Integer::sum);
+        }
+        return result;
+    }
+
+    private static int countMatching(List<Book> books) {
+        int count = 0;
+        for (Book book : books) {
+            if (book.getGenre() == Book.Genre.SCIENCE && book.isAvailable()
+                    && book.getAuthors().size() >= 2
+                    && book.getPublicationYear() >= 1990 && book.getPublicationYear() <= 2010) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static double averagePageCount(List<Book> books) {
+        long total = 0;
+        for (Book book : books) {
+            total += book.getPageCount();
+        }
+        return books.isEmpty() ? 0 : (double) total / books.size();
+    }
+
+    // ============ Замеры ============
+
+    @Benchmark
+    public void countByGenreObjects(Blackhole blackhole) {
+        blackhole.consume(countByGenre(catalog));
+    }
+
+    @Benchmark
+    public void countByGenreColumnar(Blackhole blackhole) {
+        blackhole.consume(columns.countByGenre());
+    }
+
+    @Benchmark
+    public void filterObjects(Blackhole blackhole) {
+        blackhole.consume(countMatching(catalog));
+    }
+
+    @Benchmark
+    public void filterColumnar(Blackhole blackhole) {
+        blackhole.consume(columns.count(Book.Genre.SCIENCE, true, 2, 1990, 2010));
+    }
+
+    @Benchmark
+    public void averagePageCountObjects(Blackhole blackhole) {
+        blackhole.consume(averagePageCount(catalog));
+    }
+
+    @Benchmark
+    public void averagePageCountColumnar(Blackhole blackhole) {
+        blackhole.consume(columns.averagePageCount(null));
+    }
+}
@@ -0,0 +1,86 @@
+package ru.mentee.power.collections.library;
+
+import java.lang.ref.Reference;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Сравнение памяти под каталог с ключами-строками (HashMap&lt;String, Book&gt;)
+ * и с ключами ISBN-13, упакованными в long (IsbnKeyedMap).
+ * Как и в настоящем каталоге, у каждой записи своя книга, и строка ISBN живёт в ней
+ * при любой карте: разница в замерах — только то, что тратит на ключи сама карта.
+ * Это замер через System.gc(), а не JMH-бенчмарк; он лежит рядом с бенчмарками, чтобы не попасть в jar.
+ * Запуск: java -Xmx8g -cp build/classes/java/main:build/classes/java/jmh ... IsbnMemoryComparison [количество книг ...]
+ */
+public class IsbnMemoryComparison {
+
+    private static final int[] DEFAULT_SIZES = {1_000_000, 10_000_000};
+
+    public static void main(String[] args) {
+        int[] sizes = DEFAULT_SIZES;
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                sizes[i] = Integer.parseInt(args[i]);
+            }
+        }
+
+        for (int size : sizes) {
+            System.out.println("Книг: " + size);
+            try {
+                long stringBytes = measure(() -> fill(new HashMap<>(), size));
+                System.out.printf("  HashMap<String, Book>:    %,d байт (%.1f байт на книгу)%n",
+                        stringBytes, (double) stringBytes / size);
+                long packedBytes = measure(() -> fill(new IsbnKeyedMap<>(), size));
+                System.out.printf("  IsbnKeyedMap<Book>:       %,d байт (%.1f байт на книгу)%n",
+                        packedBytes, (double) packedBytes / size);
+                System.out.printf("  Экономия: %.1f%%%n%n", 100.0 * (stringBytes - packedBytes) / stringBytes);
+            } catch (OutOfMemoryError e) {
+                System.out.println("  Недостаточно памяти, увеличьте -Xmx\n");
+            }
+        }
+    }
+
+    private static Map<String, Book> fill(Map<String, Book> map, int size) {
+        for (int i = 0; i < size; i++) {
+            Book book = new Book(isbn(978_000_000_000L + i), "Book " + i, 2000, Book.Genre.FICTION);
+            map.put(book.getIsbn(), book);
+        }
+        return map;
+    }
+
+    /**
+     * @param prefix первые 12 цифр ISBN
+     * @return ISBN-13 с вычисленной контрольной цифрой
+     */
+    static String isbn(long prefix) {
+        int sum = 0;
+        long rest = prefix;
+        for (int i = 0; i < 12; i++) {
+            int digit = (int) (rest % 10);
+            sum += (i % 2 == 0) ? digit * 3 : digit;
+            rest /= 10;
+        }
+        return Long.toString(prefix * 10 + (10 - sum % 10) % 10);
+    }
+
+    private interface Allocation {
+        Object allocate();
+    }
+
+    private static long measure(Allocation allocation) {
+        long before = usedMemory();
+        Object retained = allocation.allocate();
+        long after = usedMemory();
+        Reference.reachabilityFence(retained); // карта должна дожить до второго замера
+        return after - before;
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
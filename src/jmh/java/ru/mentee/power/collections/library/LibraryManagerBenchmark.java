@@ -0,0 +1,130 @@
+package ru.mentee.power.collections.library;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарки основных операций LibraryManager в зависимости от размера каталога
+ * и истории выдач. Запуск: ./gradlew jmh -PjmhArgs="LibraryManagerBenchmark"
+ * <p>
+ * Выдача и возврат измеряются парой: иначе каталог быстро кончился бы и дальше
+ * мерилась бы только неудачная выдача.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LibraryManagerBenchmark {
+
+    private static final int READERS = 1_000;
+    private static final String[] TITLE_WORDS = {
+        "Java", "Spring", "History", "Rome", "Algorithms", "Data", "Patterns", "Networks", "Poetry", "Space"
+    };
+
+    @Param({"10000", "100000"})
+    public int catalogSize;
+
+    @Param({"10000", "100000"})
+    public int historySize;
+
+    private LibraryManager manager;
+    private String[] isbns;
+    private String[] readerIds;
+    private Random random;
+    private long nextIsbn;
+
+    /**
+     * Каталог и история пересоздаются на каждую итерацию: addBook и выдачи
+     * увеличивают их, и без пересоздания итерации мерили бы разные размеры
+     */
+    @Setup(Level.Iteration)
+    public void setUp() {
+        random = new Random(42);
+        manager = new LibraryManager(new HashMap<>(), new HashMap<>(), new ArrayList<>(), new HashMap<>());
+        isbns = new String[catalogSize];
+        List<Book> books = new ArrayList<>(catalogSize);
+        for (int i = 0; i < catalogSize; i++) {
+            isbns[i] = "ISBN" + i;
+            books.add(newBook(isbns[i]));
+        }
+        manager.addBooks(books);
+        nextIsbn = catalogSize;
+
+        readerIds = new String[READERS];
+        for (int i = 0; i < READERS; i++) {
+            readerIds[i] = "R" + i;
+            manager.addReader(new Reader(readerIds[i], "Reader " + i, "r" + i + "@mail", Reader.ReaderCategory.REGULAR));
+        }
+
+        // Закрытые выдачи за последний год и около 5% открытых, часть из них просрочена
+        LocalDate today = LocalDate.now();
+        for (int i = 0; i < historySize; i++) {
+            String isbn = isbns[random.nextInt(catalogSize)];
+            String readerId = readerIds[random.nextInt(READERS)];
+            LocalDate borrowDate = today.minusDays(1 + random.nextInt(365));
+            if (!manager.borrowBook(isbn, readerId, borrowDate, borrowDate.plusDays(14))) {
+                continue;
+            }
+            if (random.nextInt(20) != 0) {
+                manager.returnBook(isbn, readerId, borrowDate.plusDays(random.nextInt(14)));
+            }
+        }
+    }
+
+    private Book newBook(String isbn) {
+        String title = TITLE_WORDS[random.nextInt(TITLE_WORDS.length)] + " "
+                + TITLE_WORDS[random.nextInt(TITLE_WORDS.length)] + " " + isbn;
+        Book book = new Book(isbn, title, 1950 + random.nextInt(75),
+                Book.Genre.values()[random.nextInt(Book.Genre.values().length)]);
+        book.addAuthor("Author " + random.nextInt(Math.max(1, catalogSize / 10)));
+        return book;
+    }
+
+    @Benchmark
+    public boolean addBook() {
+        return manager.addBook(newBook("NEW" + nextIsbn++));
+    }
+
+    @Benchmark
+    public boolean borrowAndReturnBook() {
+        String isbn = isbns[random.nextInt(catalogSize)];
+        String readerId = readerIds[random.nextInt(READERS)];
+        return manager.borrowBook(isbn, readerId, 14) && manager.returnBook(isbn, readerId);
+    }
+
+    @Benchmark
+    public List<Book> searchBooksByTitle() {
+        return manager.searchBooksByTitle(TITLE_WORDS[random.nextInt(TITLE_WORDS.length)] + " "
+                + TITLE_WORDS[random.nextInt(TITLE_WORDS.length)]);
+    }
+
+    @Benchmark
+    public Map<Book, Integer> getMostPopularBooks() {
+        return manager.getMostPopularBooks(10);
+    }
+
+    @Benchmark
+    public List<Borrowing> getOverdueBorrowings() {
+        return manager.getOverdueBorrowings();
+    }
+}
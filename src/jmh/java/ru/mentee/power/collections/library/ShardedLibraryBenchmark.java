@@ -0,0 +1,202 @@
+package ru.mentee.power.collections.library;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Пропускная способность выдач и возвратов ShardedLibraryManager в зависимости
+ * от числа шардов рядом с базовыми вариантами: обычным LibraryManager в одном потоке
+ * и ConcurrentLibraryManager. Каждый вызов бенчмарка — ровно одна операция
+ * (выдача или возврат), удачная или нет, поэтому ops/ms сравнимы между вариантами.
+ * <p>
+ * Операция шардированной библиотеки — передача задачи в поток шарда через
+ * CompletableFuture и ожидание ответа; разница с однопоточным LibraryManager
+ * при -t 1 и есть цена этой передачи.
+ * Запуск: ./gradlew jmh -PjmhArgs="ShardedLibraryBenchmark -p shards=1,2,4"
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(Threads.MAX)
+public class ShardedLibraryBenchmark {
+
+    private static final int BOOKS = 100_000;
+    private static final int READERS = 1_000;
+    private static final int BOOKS_ON_HAND = 4;
+
+    /**
+     * Библиотека, над которой клиенты выполняют операции
+     */
+    private interface Target {
+        boolean borrowBook(String isbn, String readerId);
+
+        boolean returnBook(String isbn, String readerId);
+    }
+
+    private static List<Book> books() {
+        List<Book> books = new ArrayList<>(BOOKS);
+        for (int i = 0; i < BOOKS; i++) {
+            books.add(new Book("ISBN" + i, "Book " + i, 1950 + i % 75, Book.Genre.values()[i % Book.Genre.values().length]));
+        }
+        return books;
+    }
+
+    private static Reader reader(int i) {
+        return new Reader("R" + i, "Reader " + i, "r" + i + "@mail", Reader.ReaderCategory.REGULAR);
+    }
+
+    @State(Scope.Benchmark)
+    public static class Plain implements Target {
+        private LibraryManager manager;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            manager = new LibraryManager(new HashMap<>(), new HashMap<>(), new ArrayList<>(), new HashMap<>());
+            manager.addBooks(books());
+            for (int i = 0; i < READERS; i++) {
+                manager.addReader(reader(i));
+            }
+        }
+
+        @Override
+        public boolean borrowBook(String isbn, String readerId) {
+            return manager.borrowBook(isbn, readerId, 14);
+        }
+
+        @Override
+        public boolean returnBook(String isbn, String readerId) {
+            return manager.returnBook(isbn, readerId);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Concurrent implements Target {
+        private ConcurrentLibraryManager manager;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            manager = new ConcurrentLibraryManager();
+            manager.addBooks(books());
+            for (int i = 0; i < READERS; i++) {
+                manager.addReader(reader(i));
+            }
+        }
+
+        @Override
+        public boolean borrowBook(String isbn, String readerId) {
+            return manager.borrowBook(isbn, readerId, 14);
+        }
+
+        @Override
+        public boolean returnBook(String isbn, String readerId) {
+            return manager.returnBook(isbn, readerId);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Sharded implements Target {
+        @Param({"1", "2", "4"})
+        public int shards;
+
+        private ShardedLibraryManager manager;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            manager = new ShardedLibraryManager(shards);
+            manager.addBooks(books());
+            for (int i = 0; i < READERS; i++) {
+                manager.addReader(reader(i));
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            manager.close();
+        }
+
+        @Override
+        public boolean borrowBook(String isbn, String readerId) {
+            return manager.borrowBook(isbn, readerId, 14);
+        }
+
+        @Override
+        public boolean returnBook(String isbn, String readerId) {
+            return manager.returnBook(isbn, readerId);
+        }
+    }
+
+    /**
+     * Клиентский поток: свой читатель и несколько книг на руках. Пока рук не хватает,
+     * клиент берёт случайную книгу, иначе возвращает самую давнюю — так каталог
+     * не кончается, а каждый вызов делает одну операцию
+     */
+    @State(Scope.Thread)
+    public static class Client {
+        private static final AtomicInteger NEXT_READER = new AtomicInteger();
+
+        private String readerId;
+        private Random random;
+        private ArrayDeque<String> onHand;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            int reader = NEXT_READER.getAndIncrement() % READERS;
+            readerId = "R" + reader;
+            random = new Random(reader);
+            onHand = new ArrayDeque<>(BOOKS_ON_HAND);
+        }
+
+        boolean step(Target target) {
+            if (onHand.size() == BOOKS_ON_HAND) {
+                return target.returnBook(onHand.poll(), readerId);
+            }
+            String isbn = "ISBN" + random.nextInt(BOOKS);
+            if (target.borrowBook(isbn, readerId)) {
+                onHand.add(isbn);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * LibraryManager не потокобезопасен, поэтому базовый замер — в одном потоке
+     */
+    @Benchmark
+    @Threads(1)
+    public boolean libraryManager(Plain library, Client client) {
+        return client.step(library);
+    }
+
+    @Benchmark
+    public boolean concurrentLibraryManager(Concurrent library, Client client) {
+        return client.step(library);
+    }
+
+    @Benchmark
+    public boolean shardedLibraryManager(Sharded library, Client client) {
+        return client.step(library);
+    }
+}
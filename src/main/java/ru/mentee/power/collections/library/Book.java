@@ -11,7 +11,9 @@ public class Book {
     private Genre genre;
     private int publicationYear;
     private int pageCount;
-    private boolean available;
+    private volatile boolean available;
+    // Копия в снимке LibrarySnapshot: сеттеры запрещены
+    private boolean frozen;
 
     public enum Genre {
         FICTION, NON_FICTION, SCIENCE, HISTORY, FANTASY, DETECTIVE, ROMANCE, BIOGRAPHY, CHILDREN
@@ -31,6 +33,7 @@ public class Book {
     }
 
     public void setIsbn(String isbn) {
+        checkNotFrozen();
         this.isbn = isbn;
     }
 
@@ -39,6 +42,7 @@ public class Book {
     }
 
     public void setTitle(String title) {
+        checkNotFrozen();
         this.title = title;
     }
 
@@ -47,6 +51,7 @@ public class Book {
     }
 
     public void setAuthors(Set<String> authors) {
+        checkNotFrozen();
         this.authors = authors;
     }
 
@@ -55,6 +60,7 @@ public class Book {
     }
 
     public void setGenre(Genre genre) {
+        checkNotFrozen();
         this.genre = genre;
     }
 
@@ -63,6 +69,7 @@ public class Book {
     }
 
     public void setPublicationYear(int publicationYear) {
+        checkNotFrozen();
         this.publicationYear = publicationYear;
     }
 
@@ -71,6 +78,7 @@ public class Book {
     }
 
     public void setPageCount(int pageCount) {
+        checkNotFrozen();
         this.pageCount = pageCount;
     }
 
@@ -79,17 +87,46 @@ public class Book {
     }
 
     public void setAvailable(boolean available) {
+        checkNotFrozen();
         this.available = available;
     }
 
 
     public void addAuthor(String author) {
+        checkNotFrozen();
         if(author == null || author.isBlank()){
             throw new IllegalArgumentException("Author cannot be null or blank");
         }
             authors.add(author.trim());
     }
 
+    /**
+     * Делает книгу доступной только для чтения (копии в неизменяемых снимках)
+     */
+    void freeze() {
+        authors = authors == null ? Set.of() : Set.copyOf(authors);
+        frozen = true;
+    }
+
+    /**
+     * @param available доступность, которую должна показывать копия
+     * @return копия книги только для чтения
+     */
+    Book readOnlyCopy(boolean available) {
+        Book copy = new Book(isbn, title, publicationYear, genre);
+        copy.pageCount = pageCount;
+        copy.authors = authors;
+        copy.available = available;
+        copy.freeze();
+        return copy;
+    }
+
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new UnsupportedOperationException("Book is a read-only snapshot copy");
+        }
+    }
+
     @Override
     public boolean equals(Object o) {
         if(this == o)return true;
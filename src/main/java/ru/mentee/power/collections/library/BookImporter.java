@@ -0,0 +1,225 @@
+package ru.mentee.power.collections.library;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Массовая загрузка каталога в LibraryManager.
+ * Строки CSV разбираются параллельно, после чего все книги передаются
+ * в {@link LibraryManager#addBooks(java.util.Collection)} одной пачкой.
+ * <p>
+ * Формат строки: {@code isbn,title,publicationYear,genre,pageCount,authors},
+ * авторы разделяются символом ';'. Поле можно заключить в двойные кавычки,
+ * кавычка внутри такого поля удваивается. Строка, начинающаяся с "isbn,", считается заголовком.
+ */
+public final class BookImporter {
+
+    private static final int FIELD_COUNT = 6;
+    private static final String HEADER_PREFIX = "isbn,";
+
+    private BookImporter() {
+    }
+
+    /**
+     * Итоги загрузки
+     */
+    public static final class Report {
+        private final long read;
+        private final long added;
+        private final long malformed;
+        private final long parseNanos;
+        private final long indexNanos;
+
+        Report(long read, long added, long malformed, long parseNanos, long indexNanos) {
+            this.read = read;
+            this.added = added;
+            this.malformed = malformed;
+            this.parseNanos = parseNanos;
+            this.indexNanos = indexNanos;
+        }
+
+        /**
+         * @return количество успешно разобранных книг
+         */
+        public long getRead() {
+            return read;
+        }
+
+        public long getAdded() {
+            return added;
+        }
+
+        /**
+         * @return книги, пропущенные из-за уже существующего ISBN
+         */
+        public long getDuplicates() {
+            return read - added;
+        }
+
+        /**
+         * @return строки, которые не удалось разобрать
+         */
+        public long getMalformed() {
+            return malformed;
+        }
+
+        public long getParseNanos() {
+            return parseNanos;
+        }
+
+        public long getIndexNanos() {
+            return indexNanos;
+        }
+
+        /**
+         * @return пропускная способность всей загрузки, книг в секунду
+         */
+        public double getBooksPerSecond() {
+            long total = parseNanos + indexNanos;
+            return total == 0 ? 0 : added * 1_000_000_000.0 / total;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Загружено %d из %d книг (дубликатов: %d, ошибок разбора: %d) "
+                            + "за %d мс: разбор %d мс, индексы %d мс, %.0f книг/с",
+                    added, read, getDuplicates(), malformed, (parseNanos + indexNanos) / 1_000_000,
+                    parseNanos / 1_000_000, indexNanos / 1_000_000, getBooksPerSecond());
+        }
+    }
+
+    /**
+     * Загружает книги из CSV-файла
+     * @param file файл в кодировке UTF-8
+     * @param manager менеджер, в который добавляются книги
+     * @return итоги загрузки
+     */
+    public static Report importCsv(Path file, LibraryManager manager) throws IOException {
+        if (file == null || manager == null) {
+            throw new IllegalArgumentException("File and manager must not be null");
+        }
+        LongAdder malformed = new LongAdder();
+        long start = System.nanoTime();
+        List<Book> books;
+        // Files.lines делит файл на части по байтам, поэтому parallel() действительно распараллеливает разбор
+        try (Stream<String> lines = Files.lines(file, StandardCharsets.UTF_8)) {
+            books = lines.parallel()
+                    .filter(line -> !line.isBlank() && !isHeader(line))
+                    .map(line -> {
+                        try {
+                            return parseLine(line);
+                        } catch (IllegalArgumentException e) {
+                            malformed.increment();
+                            return null;
+                        }
+                    })
+                    .filter(Objects::nonNull)
+                    .toList();
+        }
+        long parseNanos = System.nanoTime() - start;
+        return load(books, manager, malformed.sum(), parseNanos);
+    }
+
+    /**
+     * Загружает книги из готового потока (например, из другого источника данных)
+     * @param books поток книг
+     * @param manager менеджер, в который добавляются книги
+     * @return итоги загрузки
+     */
+    public static Report importBooks(Stream<Book> books, LibraryManager manager) {
+        if (books == null || manager == null) {
+            throw new IllegalArgumentException("Books and manager must not be null");
+        }
+        long start = System.nanoTime();
+        List<Book> collected = books.toList();
+        return load(collected, manager, 0, System.nanoTime() - start);
+    }
+
+    private static Report load(List<Book> books, LibraryManager manager, long malformed, long parseNanos) {
+        long start = System.nanoTime();
+        int added = manager.addBooks(books);
+        return new Report(books.size(), added, malformed, parseNanos, System.nanoTime() - start);
+    }
+
+    private static boolean isHeader(String line) {
+        return line.regionMatches(true, 0, HEADER_PREFIX, 0, HEADER_PREFIX.length());
+    }
+
+    /**
+     * Разбирает одну строку CSV
+     * @param line строка
+     * @return книга
+     * @throws IllegalArgumentException если строка не соответствует формату
+     */
+    static Book parseLine(String line) {
+        List<String> fields = splitFields(line);
+        if (fields.size() != FIELD_COUNT) {
+            throw new IllegalArgumentException("Expected " + FIELD_COUNT + " fields but got " + fields.size());
+        }
+        String isbn = fields.get(0).trim();
+        if (isbn.isEmpty()) {
+            throw new IllegalArgumentException("ISBN must not be blank");
+        }
+        Book.Genre genre;
+        int year;
+        int pageCount;
+        try {
+            year = Integer.parseInt(fields.get(2).trim());
+            genre = Book.Genre.valueOf(fields.get(3).trim().toUpperCase());
+            pageCount = fields.get(4).isBlank() ? 0 : Integer.parseInt(fields.get(4).trim());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed book line: " + line, e);
+        }
+
+        Book book = new Book(isbn, fields.get(1).trim(), year, genre);
+        book.setPageCount(pageCount);
+        Set<String> authors = new HashSet<>();
+        for (String author : fields.get(5).split(";")) {
+            if (!author.isBlank()) {
+                authors.add(author.trim());
+            }
+        }
+        book.setAuthors(authors);
+        return book;
+    }
+
+    private static List<String> splitFields(String line) {
+        List<String> fields = new ArrayList<>(FIELD_COUNT);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field: " + line);
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
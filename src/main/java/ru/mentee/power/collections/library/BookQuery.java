@@ -0,0 +1,255 @@
+package ru.mentee.power.collections.library;
+
+import ru.mentee.power.collections.library.comparator.BookPublicationYearComparator;
+import ru.mentee.power.collections.library.comparator.BookTitleComparator;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Составной запрос по каталогу LibraryManager.
+ * <pre>
+ * List&lt;Book&gt; books = libraryManager.query()
+ *         .genre(Book.Genre.SCIENCE)
+ *         .publishedBetween(1990, 2010)
+ *         .onlyAvailable()
+ *         .sortBy(new BookTitleComparator())
+ *         .limit(10)
+ *         .list();
+ * </pre>
+ * Запрос ленивый: условия только запоминаются, а при выполнении планировщик
+ * выбирает самый избирательный индекс (жанр + годы, автор, триграммы названия),
+ * перебирает только его книги и проверяет по ним остальные условия.
+ * При заданных сортировке и лимите вместо полной сортировки используется
+ * куча на limit элементов (top-K). Объект запроса не потокобезопасен.
+ */
+public class BookQuery {
+
+    private final LibraryManager manager;
+    private Book.Genre genre;
+    private String author;
+    private int fromYear = Integer.MIN_VALUE;
+    private int toYear = Integer.MAX_VALUE;
+    private boolean onlyAvailable;
+    private String titlePart;
+    private Comparator<? super Book> order;
+    private int limit = -1;
+
+    BookQuery(LibraryManager manager) {
+        this.manager = manager;
+    }
+
+    public BookQuery genre(Book.Genre genre) {
+        if (genre == null) {
+            throw new IllegalArgumentException("Genre must not be null");
+        }
+        this.genre = genre;
+        return this;
+    }
+
+    public BookQuery author(String author) {
+        if (author == null || author.isBlank()) {
+            throw new IllegalArgumentException("Author must not be null or blank");
+        }
+        this.author = author;
+        return this;
+    }
+
+    /**
+     * @param fromYear первый год издания (включительно)
+     * @param toYear последний год издания (включительно)
+     */
+    public BookQuery publishedBetween(int fromYear, int toYear) {
+        this.fromYear = fromYear;
+        this.toYear = toYear;
+        return this;
+    }
+
+    public BookQuery onlyAvailable() {
+        this.onlyAvailable = true;
+        return this;
+    }
+
+    /**
+     * @param titlePart часть названия (без учета регистра)
+     */
+    public BookQuery titleContains(String titlePart) {
+        if (titlePart == null || titlePart.isEmpty()) {
+            throw new IllegalArgumentException("Title part must not be null or empty");
+        }
+        this.titlePart = titlePart;
+        return this;
+    }
+
+    public BookQuery sortBy(Comparator<? super Book> order) {
+        if (order == null) {
+            throw new IllegalArgumentException("Comparator must not be null");
+        }
+        this.order = order;
+        return this;
+    }
+
+    public BookQuery sortByTitle() {
+        return sortBy(new BookTitleComparator());
+    }
+
+    /**
+     * Сортировка от новых книг к старым
+     */
+    public BookQuery sortByPublicationYear() {
+        return sortBy(new BookPublicationYearComparator());
+    }
+
+    public BookQuery limit(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit must not be negative");
+        }
+        this.limit = limit;
+        return this;
+    }
+
+    // ============ Выполнение ============
+
+    /**
+     * @return найденные книги с учетом сортировки и лимита
+     */
+    public List<Book> list() {
+        if (order != null && limit >= 0) {
+            return topK(plan().candidates());
+        }
+        return stream().toList();
+    }
+
+    /**
+     * @return ленивый поток найденных книг с учетом сортировки и лимита
+     */
+    public Stream<Book> stream() {
+        if (order != null && limit >= 0) {
+            return list().stream();
+        }
+        Plan plan = plan();
+        Stream<Book> result = plan.candidates();
+        if (order != null) {
+            result = result.sorted(order);
+        }
+        return limit >= 0 ? result.limit(limit) : result;
+    }
+
+    /**
+     * @return количество книг, удовлетворяющих условиям (лимит не учитывается)
+     */
+    public long count() {
+        return plan().candidates().count();
+    }
+
+    /**
+     * Описание выбранного плана, например "author index (~3 books)"
+     * @return описание
+     */
+    public String explain() {
+        Plan plan = plan();
+        return plan.name + " (~" + plan.estimate + " books)";
+    }
+
+    private List<Book> topK(Stream<Book> candidates) {
+        if (limit == 0) {
+            return List.of();
+        }
+        // В вершине кучи — худший из лучших limit элементов; его и вытесняем
+        Comparator<? super Book> reversed = order.reversed();
+        PriorityQueue<Book> heap = new PriorityQueue<>(Math.min(limit, 1024) + 1, reversed);
+        candidates.forEach(book -> {
+            if (heap.size() < limit) {
+                heap.add(book);
+            } else if (order.compare(book, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(book);
+            }
+        });
+        List<Book> result = new ArrayList<>(heap);
+        result.sort(order);
+        return result;
+    }
+
+    // ============ Планирование ============
+
+    private final class Plan {
+        private final String name;
+        private final int estimate;
+        private final Stream<Book> source;
+
+        private Plan(String name, int estimate, Stream<Book> source) {
+            this.name = name;
+            this.estimate = estimate;
+            this.source = source;
+        }
+
+        private Stream<Book> candidates() {
+            return source.filter(residualFilter());
+        }
+    }
+
+    private Plan plan() {
+        Collection<Book> all = manager.allBooksIndex();
+        String name = "full scan";
+        int estimate = all.size();
+        Stream<Book> source = null;
+
+        if (genre != null) {
+            Collection<Set<Book>> buckets = manager.genreYearIndex(genre, fromYear, toYear);
+            int size = 0;
+            for (Set<Book> bucket : buckets) {
+                size += bucket.size();
+            }
+            if (size < estimate) {
+                name = "genre/year index";
+                estimate = size;
+                source = buckets.stream().flatMap(Set::stream);
+            }
+        }
+        if (author != null) {
+            Collection<Book> books = manager.authorIndex(author);
+            if (books.size() < estimate) {
+                name = "author index";
+                estimate = books.size();
+                source = books.stream();
+            }
+        }
+        if (titlePart != null) {
+            TitleIndex titles = manager.titleIndex();
+            int size = titles.estimate(titlePart);
+            if (size < estimate) {
+                name = "title index";
+                estimate = size;
+                // Поиск по триграммам выполнится только когда поток начнут читать
+                source = Stream.of(titlePart).flatMap(part -> titles.search(part).stream());
+            }
+        }
+        return new Plan(name, estimate, source != null ? source : all.stream());
+    }
+
+    /**
+     * Проверяет все условия; для книг из ведущего индекса часть проверок избыточна, но дешева
+     */
+    private Predicate<Book> residualFilter() {
+        Book.Genre genre = this.genre;
+        String author = this.author;
+        int fromYear = this.fromYear;
+        int toYear = this.toYear;
+        boolean onlyAvailable = this.onlyAvailable;
+        String titleLower = titlePart == null ? null : titlePart.toLowerCase();
+        // Названия в нижнем регистре уже хранит индекс — кандидаты не приводятся заново
+        TitleIndex titles = manager.titleIndex();
+        return book -> (genre == null || book.getGenre() == genre)
+                && (author == null || book.getAuthors().contains(author))
+                && book.getPublicationYear() >= fromYear && book.getPublicationYear() <= toYear
+                && (!onlyAvailable || book.isAvailable())
+                && (titleLower == null || titles.titleContains(book, titleLower));
+    }
+}
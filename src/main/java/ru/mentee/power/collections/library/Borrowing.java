@@ -9,13 +9,18 @@ public class Borrowing {
     private String isbn;
     private String readerId;
     private LocalDate borrowDate;
-    private LocalDate dueDate;
-    private LocalDate returnDate;
+    private volatile LocalDate dueDate;
+    private volatile LocalDate returnDate;
+    // Порядковый номер выдачи в LibraryManager и индекс сроков, где она зарегистрирована
+    private long sequence;
+    private volatile DueDateIndex dueDateIndex;
+    // Копия в снимке LibrarySnapshot: сеттеры запрещены
+    private boolean frozen;
 
     public Borrowing(String isbn, String readerId, LocalDate borrowDate, LocalDate dueDate){
         this.isbn = isbn;
         this.readerId = readerId;
-        this.borrowDate = LocalDate.now();
+        this.borrowDate = borrowDate;
         this.dueDate = dueDate;
     }
 
@@ -41,14 +46,61 @@ public class Borrowing {
     }
 
     public void setDueDate(LocalDate dueDate) {
+        checkNotFrozen();
+        DueDateIndex index = this.dueDateIndex;
+        if (index != null) {
+            index.reschedule(this, dueDate); // переставляем выдачу в индексе сроков
+        } else {
+            this.dueDate = dueDate;
+        }
+    }
+
+    long getSequence() {
+        return sequence;
+    }
+
+    void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    void setDueDateIndex(DueDateIndex dueDateIndex) {
+        this.dueDateIndex = dueDateIndex;
+    }
+
+    void updateDueDate(LocalDate dueDate) {
         this.dueDate = dueDate;
     }
 
     public void setReturnDate(LocalDate returnDate) {
+        checkNotFrozen();
         this.returnDate = returnDate;
     }
 
 
+    /**
+     * Делает выдачу доступной только для чтения (копии в неизменяемых снимках)
+     */
+    void freeze() {
+        frozen = true;
+    }
+
+    /**
+     * @return копия выдачи только для чтения, не связанная с индексом сроков
+     */
+    Borrowing readOnlyCopy() {
+        Borrowing copy = new Borrowing(isbn, readerId, borrowDate, dueDate);
+        copy.returnDate = returnDate;
+        copy.sequence = sequence;
+        copy.freeze();
+        return copy;
+    }
+
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new UnsupportedOperationException("Borrowing is a read-only snapshot copy");
+        }
+    }
+
     public boolean isOverdue() {
         if(returnDate == null){
             LocalDate currentDate = LocalDate.now();
@@ -0,0 +1,411 @@
+package ru.mentee.power.collections.library;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Холодный архив завершённых выдач на диске.
+ * Старые возвращённые выдачи переносятся сюда из LibraryManager, чтобы не занимать
+ * кучу и не замедлять обходы истории. Архив состоит из неизменяемых сегментов,
+ * разбитых по месяцу возврата; каждый перенос пишет новые сегменты и затем атомарно
+ * подменяет манифест со списком сегментов и "водяным знаком" — датой, раньше которой
+ * все возвращённые выдачи уже в архиве, и максимальным номером архивной выдачи.
+ * <p>
+ * В памяти хранятся только заголовки сегментов с фильтрами Блума по читателям и
+ * книгам: поиск истории читает с диска лишь сегменты, где она может оказаться.
+ */
+public class BorrowingArchive {
+
+    private static final String MANIFEST_FILE = "archive.manifest";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final int MANIFEST_MAGIC = 0x4C4D414E; // "LMAN"
+    private static final int SEGMENT_MAGIC = 0x4C415243; // "LARC"
+    private static final int VERSION = 1;
+
+    private final Path directory;
+    // Список сегментов подменяется целиком: читатели обходят его без блокировок
+    private volatile List<Segment> segments;
+    private volatile LocalDate watermark;
+    private volatile long maxSequence;
+    private int nextSegmentId;
+
+    private BorrowingArchive(Path directory, List<Segment> segments, LocalDate watermark,
+                             long maxSequence, int nextSegmentId) {
+        this.directory = directory;
+        this.segments = segments;
+        this.watermark = watermark;
+        this.maxSequence = maxSequence;
+        this.nextSegmentId = nextSegmentId;
+    }
+
+    /**
+     * Открывает архив и читает заголовки его сегментов.
+     * Файлы, не попавшие в манифест (прерванный перенос), удаляются
+     * @param directory каталог архива (создаётся при необходимости)
+     * @return открытый архив
+     */
+    public static BorrowingArchive open(Path directory) throws IOException {
+        if (directory == null) {
+            throw new IllegalArgumentException("Directory must not be null");
+        }
+        Files.createDirectories(directory);
+        Path manifest = directory.resolve(MANIFEST_FILE);
+        List<Segment> segments = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        LocalDate watermark = null;
+        long maxSequence = 0;
+        int nextSegmentId = 0;
+        if (Files.exists(manifest)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(manifest)))) {
+                if (in.readInt() != MANIFEST_MAGIC || in.readInt() != VERSION) {
+                    throw new IOException("Файл " + manifest + " не является манифестом архива");
+                }
+                watermark = LibraryRecords.readDate(in);
+                maxSequence = in.readLong();
+                nextSegmentId = in.readInt();
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    String name = in.readUTF();
+                    names.add(name);
+                    segments.add(Segment.readHeader(directory.resolve(name)));
+                }
+            }
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (!names.contains(name) && (name.endsWith(SEGMENT_SUFFIX) || name.endsWith(".tmp"))) {
+                    Files.delete(file);
+                }
+            }
+        }
+        return new BorrowingArchive(directory, List.copyOf(segments), watermark, maxSequence, nextSegmentId);
+    }
+
+    /**
+     * Записывает выдачи в новые сегменты (по одному на месяц возврата) и публикует их
+     * подменой манифеста. До подмены новые сегменты не видны ни поиску, ни после перезапуска
+     * @param borrowings возвращённые выдачи
+     * @param newWatermark дата, раньше которой все возвращённые выдачи теперь в архиве
+     */
+    synchronized void append(Collection<Borrowing> borrowings, LocalDate newWatermark) throws IOException {
+        Map<YearMonth, List<Borrowing>> byMonth = new TreeMap<>();
+        long newMaxSequence = maxSequence;
+        for (Borrowing borrowing : borrowings) {
+            if (borrowing.getReturnDate() == null) {
+                throw new IllegalArgumentException("Only returned borrowings can be archived");
+            }
+            byMonth.computeIfAbsent(YearMonth.from(borrowing.getReturnDate()), month -> new ArrayList<>())
+                    .add(borrowing);
+            newMaxSequence = Math.max(newMaxSequence, borrowing.getSequence());
+        }
+
+        List<Segment> updated = new ArrayList<>(segments);
+        int segmentId = nextSegmentId;
+        for (Map.Entry<YearMonth, List<Borrowing>> entry : byMonth.entrySet()) {
+            String name = String.format("loans-%s-%06d%s", entry.getKey(), segmentId++, SEGMENT_SUFFIX);
+            updated.add(Segment.write(directory.resolve(name), entry.getKey(), entry.getValue()));
+        }
+        LocalDate mark = watermark == null || newWatermark.isAfter(watermark) ? newWatermark : watermark;
+        writeManifest(updated, mark, newMaxSequence, segmentId);
+
+        nextSegmentId = segmentId;
+        maxSequence = newMaxSequence;
+        watermark = mark;
+        segments = List.copyOf(updated);
+    }
+
+    private void writeManifest(List<Segment> list, LocalDate mark, long sequence, int segmentId) throws IOException {
+        Path file = directory.resolve(MANIFEST_FILE);
+        Path tmp = file.resolveSibling(MANIFEST_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            out.writeInt(MANIFEST_MAGIC);
+            out.writeInt(VERSION);
+            LibraryRecords.writeDate(out, mark);
+            out.writeLong(sequence);
+            out.writeInt(segmentId);
+            out.writeInt(list.size());
+            for (Segment segment : list) {
+                out.writeUTF(segment.file.getFileName().toString());
+            }
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // ============ Поиск ============
+
+    /**
+     * @return архивные выдачи читателя в порядке номеров выдачи
+     */
+    public List<Borrowing> findByReader(String readerId) {
+        long key = BloomFilter.readerKey(readerId);
+        return find(segment -> segment.filter.mightContain(key),
+                borrowing -> readerId.equals(borrowing.getReaderId()));
+    }
+
+    /**
+     * @return архивные выдачи книги в порядке номеров выдачи
+     */
+    public List<Borrowing> findByBook(String isbn) {
+        long key = BloomFilter.bookKey(isbn);
+        return find(segment -> segment.filter.mightContain(key),
+                borrowing -> isbn.equals(borrowing.getIsbn()));
+    }
+
+    /**
+     * Проверяет, лежит ли уже эта выдача в архиве (по номеру выдачи)
+     */
+    boolean contains(Borrowing borrowing) {
+        if (borrowing.getReturnDate() == null || borrowing.getSequence() > maxSequence) {
+            return false;
+        }
+        YearMonth month = YearMonth.from(borrowing.getReturnDate());
+        long key = BloomFilter.readerKey(borrowing.getReaderId());
+        long sequence = borrowing.getSequence();
+        return !find(segment -> segment.month.equals(month) && segment.minSequence <= sequence
+                        && sequence <= segment.maxSequence && segment.filter.mightContain(key),
+                archived -> archived.getSequence() == sequence).isEmpty();
+    }
+
+    /**
+     * @return ленивый поток всех архивных выдач; сегменты читаются по мере обхода
+     */
+    public Stream<Borrowing> stream() {
+        return segments.stream().flatMap(segment -> segment.readAll().stream());
+    }
+
+    private List<Borrowing> find(Predicate<Segment> segmentFilter, Predicate<Borrowing> filter) {
+        List<Borrowing> result = new ArrayList<>();
+        for (Segment segment : segments) {
+            if (segmentFilter.test(segment)) {
+                for (Borrowing borrowing : segment.readAll()) {
+                    if (filter.test(borrowing)) {
+                        result.add(borrowing);
+                    }
+                }
+            }
+        }
+        result.sort((a, b) -> Long.compare(a.getSequence(), b.getSequence()));
+        return result;
+    }
+
+    // ============ Состояние ============
+
+    /**
+     * @return дата, раньше которой все возвращённые выдачи перенесены в архив, или null
+     */
+    public LocalDate getWatermark() {
+        return watermark;
+    }
+
+    /**
+     * @return наибольший номер выдачи в архиве (0, если архив пуст)
+     */
+    public long getMaxSequence() {
+        return maxSequence;
+    }
+
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * @return количество выдач в архиве
+     */
+    public long size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            size += segment.count;
+        }
+        return size;
+    }
+
+    // ============ Сегмент ============
+
+    /**
+     * Неизменяемый файл с выдачами, возвращёнными в одном месяце.
+     * Заголовок (месяц, количество, диапазон номеров, фильтр Блума) держится в памяти,
+     * сами выдачи читаются с диска при каждом обращении
+     */
+    private static final class Segment {
+        private final Path file;
+        private final YearMonth month;
+        private final int count;
+        private final long minSequence;
+        private final long maxSequence;
+        private final BloomFilter filter;
+
+        private Segment(Path file, YearMonth month, int count, long minSequence, long maxSequence,
+                        BloomFilter filter) {
+            this.file = file;
+            this.month = month;
+            this.count = count;
+            this.minSequence = minSequence;
+            this.maxSequence = maxSequence;
+            this.filter = filter;
+        }
+
+        static Segment write(Path file, YearMonth month, List<Borrowing> borrowings) throws IOException {
+            long minSequence = Long.MAX_VALUE;
+            long maxSequence = Long.MIN_VALUE;
+            BloomFilter filter = new BloomFilter(2 * borrowings.size());
+            for (Borrowing borrowing : borrowings) {
+                minSequence = Math.min(minSequence, borrowing.getSequence());
+                maxSequence = Math.max(maxSequence, borrowing.getSequence());
+                filter.add(BloomFilter.readerKey(borrowing.getReaderId()));
+                filter.add(BloomFilter.bookKey(borrowing.getIsbn()));
+            }
+
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+                out.writeInt(SEGMENT_MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(month.getYear());
+                out.writeInt(month.getMonthValue());
+                out.writeInt(borrowings.size());
+                out.writeLong(minSequence);
+                out.writeLong(maxSequence);
+                filter.writeTo(out);
+                for (Borrowing borrowing : borrowings) {
+                    LibraryRecords.writeBorrowing(out, borrowing);
+                }
+                out.flush();
+                channel.force(true);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return new Segment(file, month, borrowings.size(), minSequence, maxSequence, filter);
+        }
+
+        static Segment readHeader(Path file) throws IOException {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                return readHeader(file, in);
+            }
+        }
+
+        private static Segment readHeader(Path file, DataInputStream in) throws IOException {
+            if (in.readInt() != SEGMENT_MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Файл " + file + " не является сегментом архива");
+            }
+            YearMonth month = YearMonth.of(in.readInt(), in.readInt());
+            int count = in.readInt();
+            long minSequence = in.readLong();
+            long maxSequence = in.readLong();
+            return new Segment(file, month, count, minSequence, maxSequence, BloomFilter.readFrom(in));
+        }
+
+        List<Borrowing> readAll() {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                readHeader(file, in);
+                List<Borrowing> result = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    result.add(LibraryRecords.readBorrowing(in));
+                }
+                return result;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Не удалось прочитать сегмент архива " + file, e);
+            }
+        }
+    }
+
+    /**
+     * Фильтр Блума: ~10 бит и 7 хеш-функций на ключ, около 1% ложных срабатываний
+     */
+    private static final class BloomFilter {
+        private static final int BITS_PER_KEY = 10;
+        private static final int HASHES = 7;
+
+        private final long[] bits;
+
+        private BloomFilter(int expectedKeys) {
+            this(new long[Math.max(1, (expectedKeys * BITS_PER_KEY + 63) / 64)]);
+        }
+
+        private BloomFilter(long[] bits) {
+            this.bits = bits;
+        }
+
+        static long readerKey(String readerId) {
+            return mix(readerId.hashCode() * 0x9E3779B97F4A7C15L + 1);
+        }
+
+        static long bookKey(String isbn) {
+            return mix(isbn.hashCode() * 0x9E3779B97F4A7C15L + 2);
+        }
+
+        void add(long key) {
+            long bitCount = (long) bits.length * 64;
+            int h1 = (int) key;
+            int h2 = (int) (key >>> 32);
+            for (int i = 0; i < HASHES; i++) {
+                int bit = (int) Math.floorMod(h1 + (long) i * h2, bitCount);
+                bits[bit >>> 6] |= 1L << bit;
+            }
+        }
+
+        boolean mightContain(long key) {
+            long bitCount = (long) bits.length * 64;
+            int h1 = (int) key;
+            int h2 = (int) (key >>> 32);
+            for (int i = 0; i < HASHES; i++) {
+                int bit = (int) Math.floorMod(h1 + (long) i * h2, bitCount);
+                if ((bits[bit >>> 6] & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            out.writeInt(bits.length);
+            for (long word : bits) {
+                out.writeLong(word);
+            }
+        }
+
+        static BloomFilter readFrom(DataInputStream in) throws IOException {
+            long[] bits = new long[in.readInt()];
+            for (int i = 0; i < bits.length; i++) {
+                bits[i] = in.readLong();
+            }
+            return new BloomFilter(bits);
+        }
+
+        // Финальное перемешивание MurmurHash3
+        private static long mix(long h) {
+            h ^= h >>> 33;
+            h *= 0xFF51AFD7ED558CCDL;
+            h ^= h >>> 33;
+            h *= 0xC4CEB93E1A85EC53L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package ru.mentee.power.collections.library;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Битовые индексы каталога. Каждой книге выдаётся плотный порядковый номер (ordinal),
+ * а для жанров, доступности, количества авторов и десятилетий издания хранятся
+ * битовые множества. Составной запрос вычисляется операциями AND/OR над словами
+ * BitSet, и объекты Book достаются только для итоговых совпадений.
+ * <p>
+ * Доступность меняется при каждой выдаче и возврате, поэтому она хранится отдельно,
+ * в атомарных словах: setAvailable не берёт блокировку и не мешает запросам.
+ * Операции над одной книгой вызывающий код выполняет последовательно
+ * (в ConcurrentLibraryManager — под блокировкой её полосы).
+ * <p>
+ * Жанр, год и корзина авторов запоминаются при добавлении книги. Если изменить их
+ * через сеттеры Book после addBook, индекс увидит изменения только после повторного
+ * добавления книги. Доступность на итоговых кандидатах перепроверяется по Book.isAvailable(),
+ * поэтому книга, снятая через Book.setAvailable(false) в обход LibraryManager, в выборку
+ * доступных не попадает; обратное изменение индекс не видит, пока доступность не изменит
+ * сам LibraryManager.
+ */
+final class CatalogBitmapIndex {
+
+    // Корзины по количеству авторов: 0, 1, 2 и "3 и больше"
+    private static final int AUTHOR_BUCKETS = 4;
+    private static final int YEARS_PER_BUCKET = 10;
+
+    // Читается без блокировки из setAvailable, поэтому потокобезопасна
+    private final Map<Book, Integer> ordinals = new ConcurrentHashMap<>();
+    private final List<Book> booksByOrdinal = new ArrayList<>();
+    private final Deque<Integer> freeOrdinals = new ArrayDeque<>();
+
+    private final BitSet live = new BitSet();
+    private final AtomicBitmap available = new AtomicBitmap();
+    private final BitSet[] byGenre = new BitSet[Book.Genre.values().length];
+    private final BitSet[] byAuthorCount = new BitSet[AUTHOR_BUCKETS];
+    private final NavigableMap<Integer, BitSet> byDecade = new TreeMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    CatalogBitmapIndex() {
+        for (int i = 0; i < byGenre.length; i++) {
+            byGenre[i] = new BitSet();
+        }
+        for (int i = 0; i < byAuthorCount.length; i++) {
+            byAuthorCount[i] = new BitSet();
+        }
+    }
+
+    void add(Book book) {
+        lock.writeLock().lock();
+        try {
+            addLocked(book);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Добавляет пачку книг под одной блокировкой записи
+     */
+    void addAll(Collection<Book> books) {
+        lock.writeLock().lock();
+        try {
+            for (Book book : books) {
+                addLocked(book);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void addLocked(Book book) {
+        int ordinal = freeOrdinals.isEmpty() ? booksByOrdinal.size() : freeOrdinals.pop();
+        if (ordinal == booksByOrdinal.size()) {
+            booksByOrdinal.add(book);
+        } else {
+            booksByOrdinal.set(ordinal, book);
+        }
+        // Страница битов доступности создаётся раньше, чем ordinal становится виден setAvailable
+        available.ensureCapacity(ordinal);
+        available.set(ordinal, book.isAvailable());
+        ordinals.put(book, ordinal);
+
+        live.set(ordinal);
+        if (book.getGenre() != null) {
+            byGenre[book.getGenre().ordinal()].set(ordinal);
+        }
+        byAuthorCount[authorBucket(book)].set(ordinal);
+        byDecade.computeIfAbsent(decade(book.getPublicationYear()), d -> new BitSet()).set(ordinal);
+    }
+
+    void remove(Book book) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.remove(book);
+            if (ordinal == null) {
+                return;
+            }
+            live.clear(ordinal);
+            available.set(ordinal, false);
+            for (BitSet bits : byGenre) {
+                bits.clear(ordinal);
+            }
+            for (BitSet bits : byAuthorCount) {
+                bits.clear(ordinal);
+            }
+            for (BitSet bits : byDecade.values()) {
+                bits.clear(ordinal);
+            }
+            booksByOrdinal.set(ordinal, null);
+            freeOrdinals.push(ordinal);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void setAvailable(Book book, boolean isAvailable) {
+        Integer ordinal = ordinals.get(book);
+        if (ordinal != null) {
+            available.set(ordinal, isAvailable);
+        }
+    }
+
+    /**
+     * Находит книги, удовлетворяющие всем условиям сразу
+     * @param genre жанр или null, если жанр не важен
+     * @param onlyAvailable только доступные книги
+     * @param minAuthorsCount минимальное количество авторов (0 — без ограничения)
+     * @param fromYear первый год издания (включительно)
+     * @param toYear последний год издания (включительно)
+     * @return список найденных книг в порядке ordinal
+     */
+    List<Book> find(Book.Genre genre, boolean onlyAvailable, int minAuthorsCount, int fromYear, int toYear) {
+        lock.readLock().lock();
+        try {
+            BitSet matches = match(genre, onlyAvailable, minAuthorsCount, fromYear, toYear);
+            List<Book> result = new ArrayList<>(matches.cardinality());
+            for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+                Book book = booksByOrdinal.get(i);
+                // Корзины годов и авторов грубее условия — точная проверка только для итоговых кандидатов;
+                // доступность перепроверяется на случай Book.setAvailable в обход LibraryManager
+                if (book.getPublicationYear() >= fromYear && book.getPublicationYear() <= toYear
+                        && authorCount(book) >= minAuthorsCount
+                        && (!onlyAvailable || book.isAvailable())) {
+                    result.add(book);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    List<Book> availableBooks() {
+        return find(null, true, 0, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    private BitSet match(Book.Genre genre, boolean onlyAvailable, int minAuthorsCount, int fromYear, int toYear) {
+        BitSet matches = (BitSet) live.clone();
+        if (genre != null) {
+            matches.and(byGenre[genre.ordinal()]);
+        }
+        if (onlyAvailable) {
+            matches.and(available.toBitSet(live.length()));
+        }
+        if (minAuthorsCount > 0) {
+            BitSet authors = new BitSet();
+            for (int bucket = Math.min(minAuthorsCount, AUTHOR_BUCKETS - 1); bucket < AUTHOR_BUCKETS; bucket++) {
+                authors.or(byAuthorCount[bucket]);
+            }
+            matches.and(authors);
+        }
+        if (fromYear > toYear) {
+            matches.clear();
+        } else if (fromYear != Integer.MIN_VALUE || toYear != Integer.MAX_VALUE) {
+            BitSet years = new BitSet();
+            for (BitSet bits : byDecade.subMap(decade(fromYear), true, decade(toYear), true).values()) {
+                years.or(bits);
+            }
+            matches.and(years);
+        }
+        return matches;
+    }
+
+    /**
+     * Битовое множество в атомарных словах. Слова разбиты на страницы фиксированного
+     * размера: при росте копируется только массив ссылок на страницы, поэтому
+     * параллельная запись в уже существующую страницу не теряется
+     */
+    private static final class AtomicBitmap {
+        private static final int PAGE_WORDS = 64;
+        private static final int BITS_PER_PAGE = PAGE_WORDS * Long.SIZE;
+
+        private volatile AtomicLongArray[] pages = new AtomicLongArray[0];
+
+        /**
+         * Вызывается под блокировкой записи индекса
+         */
+        void ensureCapacity(int bit) {
+            int page = bit / BITS_PER_PAGE;
+            AtomicLongArray[] current = pages;
+            if (page < current.length) {
+                return;
+            }
+            AtomicLongArray[] grown = Arrays.copyOf(current, Math.max(page + 1, current.length * 2));
+            for (int i = current.length; i < grown.length; i++) {
+                grown[i] = new AtomicLongArray(PAGE_WORDS);
+            }
+            pages = grown;
+        }
+
+        void set(int bit, boolean value) {
+            AtomicLongArray page = pages[bit / BITS_PER_PAGE];
+            int word = (bit % BITS_PER_PAGE) / Long.SIZE;
+            long mask = 1L << bit;
+            long current;
+            long updated;
+            do {
+                current = page.get(word);
+                updated = value ? current | mask : current & ~mask;
+            } while (current != updated && !page.compareAndSet(word, current, updated));
+        }
+
+        /**
+         * @param bitCount сколько младших битов нужно (остальные в индексе не используются)
+         * @return копия битов; каждый бит отражает одну из недавних записей
+         */
+        BitSet toBitSet(int bitCount) {
+            AtomicLongArray[] current = pages;
+            int wordCount = Math.min((bitCount + Long.SIZE - 1) / Long.SIZE, current.length * PAGE_WORDS);
+            long[] words = new long[wordCount];
+            for (int i = 0; i < wordCount; i++) {
+                words[i] = current[i / PAGE_WORDS].get(i % PAGE_WORDS);
+            }
+            return BitSet.valueOf(words);
+        }
+    }
+
+    private static int authorBucket(Book book) {
+        return Math.min(authorCount(book), AUTHOR_BUCKETS - 1);
+    }
+
+    private static int authorCount(Book book) {
+        return book.getAuthors() == null ? 0 : book.getAuthors().size();
+    }
+
+    private static int decade(int year) {
+        return Math.floorDiv(year, YEARS_PER_BUCKET);
+    }
+}
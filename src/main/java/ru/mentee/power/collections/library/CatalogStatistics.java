@@ -0,0 +1,86 @@
+package ru.mentee.power.collections.library;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Агрегаты каталога, которые обновляются при добавлении и удалении книги:
+ * количество книг по жанрам (массив счётчиков по ordinal жанра) и по годам издания.
+ */
+final class CatalogStatistics {
+
+    private static final Book.Genre[] GENRES = Book.Genre.values();
+
+    private final AtomicIntegerArray booksByGenre = new AtomicIntegerArray(GENRES.length);
+    private final NavigableMap<Integer, Integer> booksByYear;
+    private final NavigableMap<Integer, Integer> booksByYearView;
+
+    CatalogStatistics(boolean concurrent) {
+        this.booksByYear = concurrent ? new ConcurrentSkipListMap<>() : new TreeMap<>();
+        this.booksByYearView = Collections.unmodifiableNavigableMap(booksByYear);
+    }
+
+    void bookAdded(Book book) {
+        if (book.getGenre() != null) {
+            booksByGenre.incrementAndGet(book.getGenre().ordinal());
+        }
+        booksByYear.merge(book.getPublicationYear(), 1, Integer::sum);
+    }
+
+    /**
+     * Учитывает пачку книг: счётчики сначала агрегируются локально,
+     * поэтому каждый год обновляется один раз, а не по разу на книгу
+     */
+    void booksAdded(Collection<Book> books) {
+        int[] genreCounts = new int[GENRES.length];
+        Map<Integer, Integer> yearCounts = new HashMap<>();
+        for (Book book : books) {
+            if (book.getGenre() != null) {
+                genreCounts[book.getGenre().ordinal()]++;
+            }
+            yearCounts.merge(book.getPublicationYear(), 1, Integer::sum);
+        }
+        for (int i = 0; i < genreCounts.length; i++) {
+            if (genreCounts[i] > 0) {
+                booksByGenre.addAndGet(i, genreCounts[i]);
+            }
+        }
+        yearCounts.forEach((year, count) -> booksByYear.merge(year, count, Integer::sum));
+    }
+
+    void bookRemoved(Book book) {
+        if (book.getGenre() != null) {
+            booksByGenre.decrementAndGet(book.getGenre().ordinal());
+        }
+        booksByYear.computeIfPresent(book.getPublicationYear(), (year, count) -> count == 1 ? null : count - 1);
+    }
+
+    int countByGenre(Book.Genre genre) {
+        return booksByGenre.get(genre.ordinal());
+    }
+
+    /**
+     * @return карта "жанр -> количество книг" только для жанров, в которых есть книги
+     */
+    Map<Book.Genre, Integer> genreCounts() {
+        Map<Book.Genre, Integer> result = new EnumMap<>(Book.Genre.class);
+        for (Book.Genre genre : GENRES) {
+            int count = booksByGenre.get(genre.ordinal());
+            if (count > 0) {
+                result.put(genre, count);
+            }
+        }
+        return result;
+    }
+
+    NavigableMap<Integer, Integer> yearCounts() {
+        return booksByYearView;
+    }
+}
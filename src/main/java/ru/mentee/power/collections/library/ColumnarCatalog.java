@@ -0,0 +1,355 @@
+package ru.mentee.power.collections.library;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Колоночная копия каталога для аналитических запросов.
+ * Каждое поле книги хранится в отдельном массиве примитивов (строка i — i-я книга),
+ * авторы закодированы словарём (имя -> номер). Агрегаты и фильтры — это простые
+ * циклы по одному-двум массивам без обращения к объектам Book.
+ * <p>
+ * Копия необязательна: она подписывается на изменения LibraryManager через
+ * {@link #attach(LibraryManager)} и поддерживается в актуальном состоянии событиями.
+ */
+public class ColumnarCatalog implements LibraryChangeListener {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final byte NO_GENRE = -1;
+    private static final Book.Genre[] GENRES = Book.Genre.values();
+
+    private String[] isbns;
+    private int[] years;
+    private byte[] genres;
+    private int[] pageCounts;
+    private boolean[] available;
+    private int[][] authorIds;
+    private int rows;
+    private final Map<String, Integer> rowByIsbn = new HashMap<>();
+
+    // Словарь авторов и количество книг каждого автора (по номеру в словаре)
+    private final Map<String, Integer> authorDictionary = new HashMap<>();
+    private final List<String> authorNames = new ArrayList<>();
+    private int[] booksPerAuthor = new int[INITIAL_CAPACITY];
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public ColumnarCatalog() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * @param expectedBooks ожидаемое количество книг
+     */
+    public ColumnarCatalog(int expectedBooks) {
+        if (expectedBooks < 0) {
+            throw new IllegalArgumentException("Expected books must not be negative");
+        }
+        allocate(Math.max(expectedBooks, 16));
+    }
+
+    /**
+     * Строит колоночную копию каталога и подписывает её на дальнейшие изменения.
+     * Вызывать, пока в менеджер никто не пишет: изменения, сделанные во время
+     * первоначального копирования, могут быть учтены дважды.
+     * @param manager менеджер библиотеки
+     * @return колоночная копия
+     */
+    public static ColumnarCatalog attach(LibraryManager manager) {
+        if (manager == null) {
+            throw new IllegalArgumentException("Manager must not be null");
+        }
+        List<Book> books = manager.getAllBooks();
+        ColumnarCatalog catalog = new ColumnarCatalog(books.size());
+        manager.addChangeListener(catalog);
+        for (Book book : books) {
+            catalog.bookAdded(book);
+        }
+        return catalog;
+    }
+
+    // ============ Обновление по событиям LibraryManager ============
+
+    @Override
+    public void bookAdded(Book book) {
+        lock.writeLock().lock();
+        try {
+            if (rowByIsbn.containsKey(book.getIsbn())) {
+                return;
+            }
+            if (rows == isbns.length) {
+                allocate(rows + (rows >> 1));
+            }
+            int row = rows++;
+            isbns[row] = book.getIsbn();
+            years[row] = book.getPublicationYear();
+            genres[row] = book.getGenre() == null ? NO_GENRE : (byte) book.getGenre().ordinal();
+            pageCounts[row] = book.getPageCount();
+            available[row] = book.isAvailable();
+            authorIds[row] = encodeAuthors(book);
+            rowByIsbn.put(book.getIsbn(), row);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void bookRemoved(Book book) {
+        lock.writeLock().lock();
+        try {
+            Integer row = rowByIsbn.remove(book.getIsbn());
+            if (row == null) {
+                return;
+            }
+            for (int authorId : authorIds[row]) {
+                booksPerAuthor[authorId]--;
+            }
+            // Последняя строка переносится на место удалённой — массивы остаются плотными
+            int last = --rows;
+            if (row != last) {
+                isbns[row] = isbns[last];
+                years[row] = years[last];
+                genres[row] = genres[last];
+                pageCounts[row] = pageCounts[last];
+                available[row] = available[last];
+                authorIds[row] = authorIds[last];
+                rowByIsbn.put(isbns[row], row);
+            }
+            isbns[last] = null;
+            authorIds[last] = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void bookBorrowed(Borrowing borrowing) {
+        setAvailable(borrowing.getIsbn(), false);
+    }
+
+    @Override
+    public void bookReturned(Borrowing borrowing) {
+        setAvailable(borrowing.getIsbn(), true);
+    }
+
+    private void setAvailable(String isbn, boolean isAvailable) {
+        lock.writeLock().lock();
+        try {
+            Integer row = rowByIsbn.get(isbn);
+            if (row != null) {
+                available[row] = isAvailable;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ============ Аналитические запросы ============
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return rows;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return количество книг по жанрам (только жанры, в которых есть книги)
+     */
+    public Map<Book.Genre, Integer> countByGenre() {
+        int[] counts = new int[GENRES.length];
+        lock.readLock().lock();
+        try {
+            for (int i = 0; i < rows; i++) {
+                if (genres[i] != NO_GENRE) {
+                    counts[genres[i]]++;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        Map<Book.Genre, Integer> result = new EnumMap<>(Book.Genre.class);
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                result.put(GENRES[i], counts[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return количество книг по годам издания, отсортированное по году
+     */
+    public NavigableMap<Integer, Integer> countByYear() {
+        int[] sortedYears;
+        lock.readLock().lock();
+        try {
+            sortedYears = Arrays.copyOf(years, rows);
+        } finally {
+            lock.readLock().unlock();
+        }
+        // Сортировка примитивов и подсчёт серий вместо боксинга на каждую книгу
+        Arrays.sort(sortedYears);
+        NavigableMap<Integer, Integer> result = new TreeMap<>();
+        int i = 0;
+        while (i < sortedYears.length) {
+            int j = i;
+            while (j < sortedYears.length && sortedYears[j] == sortedYears[i]) {
+                j++;
+            }
+            result.put(sortedYears[i], j - i);
+            i = j;
+        }
+        return Collections.unmodifiableNavigableMap(result);
+    }
+
+    /**
+     * Считает книги, удовлетворяющие всем условиям
+     * @param genre жанр или null, если жанр не важен
+     * @param onlyAvailable только доступные книги
+     * @param minAuthorsCount минимальное количество авторов
+     * @param fromYear первый год издания (включительно)
+     * @param toYear последний год издания (включительно)
+     * @return количество книг
+     */
+    public int count(Book.Genre genre, boolean onlyAvailable, int minAuthorsCount, int fromYear, int toYear) {
+        byte genreCode = genre == null ? NO_GENRE : (byte) genre.ordinal();
+        int count = 0;
+        lock.readLock().lock();
+        try {
+            for (int i = 0; i < rows; i++) {
+                if (matches(i, genreCode, onlyAvailable, minAuthorsCount, fromYear, toYear)) {
+                    count++;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return count;
+    }
+
+    /**
+     * То же, что {@link #count}, но возвращает ISBN найденных книг
+     */
+    public List<String> findIsbns(Book.Genre genre, boolean onlyAvailable, int minAuthorsCount,
+                                  int fromYear, int toYear) {
+        byte genreCode = genre == null ? NO_GENRE : (byte) genre.ordinal();
+        List<String> result = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (int i = 0; i < rows; i++) {
+                if (matches(i, genreCode, onlyAvailable, minAuthorsCount, fromYear, toYear)) {
+                    result.add(isbns[i]);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    /**
+     * @param genre жанр или null для всего каталога
+     * @return среднее количество страниц или 0, если книг нет
+     */
+    public double averagePageCount(Book.Genre genre) {
+        byte genreCode = genre == null ? NO_GENRE : (byte) genre.ordinal();
+        long total = 0;
+        int count = 0;
+        lock.readLock().lock();
+        try {
+            for (int i = 0; i < rows; i++) {
+                if (genreCode == NO_GENRE || genres[i] == genreCode) {
+                    total += pageCounts[i];
+                    count++;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return count == 0 ? 0 : (double) total / count;
+    }
+
+    /**
+     * @param author имя автора
+     * @return количество книг автора в каталоге
+     */
+    public int countByAuthor(String author) {
+        lock.readLock().lock();
+        try {
+            Integer id = authorDictionary.get(author);
+            return id == null ? 0 : booksPerAuthor[id];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return количество разных авторов в словаре
+     */
+    public int authorDictionarySize() {
+        lock.readLock().lock();
+        try {
+            return authorNames.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean matches(int row, byte genreCode, boolean onlyAvailable, int minAuthorsCount,
+                            int fromYear, int toYear) {
+        return (genreCode == NO_GENRE || genres[row] == genreCode)
+                && (!onlyAvailable || available[row])
+                && years[row] >= fromYear && years[row] <= toYear
+                && authorIds[row].length >= minAuthorsCount;
+    }
+
+    private int[] encodeAuthors(Book book) {
+        if (book.getAuthors() == null || book.getAuthors().isEmpty()) {
+            return new int[0];
+        }
+        int[] ids = new int[book.getAuthors().size()];
+        int n = 0;
+        for (String author : book.getAuthors()) {
+            int id = authorDictionary.computeIfAbsent(author, name -> {
+                authorNames.add(name);
+                return authorNames.size() - 1;
+            });
+            if (id == booksPerAuthor.length) {
+                booksPerAuthor = Arrays.copyOf(booksPerAuthor, id + (id >> 1));
+            }
+            booksPerAuthor[id]++;
+            ids[n++] = id;
+        }
+        return ids;
+    }
+
+    private void allocate(int capacity) {
+        if (isbns == null) {
+            isbns = new String[capacity];
+            years = new int[capacity];
+            genres = new byte[capacity];
+            pageCounts = new int[capacity];
+            available = new boolean[capacity];
+            authorIds = new int[capacity][];
+            return;
+        }
+        isbns = Arrays.copyOf(isbns, capacity);
+        years = Arrays.copyOf(years, capacity);
+        genres = Arrays.copyOf(genres, capacity);
+        pageCounts = Arrays.copyOf(pageCounts, capacity);
+        available = Arrays.copyOf(available, capacity);
+        authorIds = Arrays.copyOf(authorIds, capacity);
+    }
+}
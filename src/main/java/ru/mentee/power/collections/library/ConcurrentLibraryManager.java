@@ -0,0 +1,158 @@
+package ru.mentee.power.collections.library;
+
+import java.time.LocalDate;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Потокобезопасный вариант LibraryManager для нескольких кафедр выдачи.
+ * Все операции над одной книгой выполняются под блокировкой её "полосы" (stripe),
+ * поэтому выдача разных книг не конкурирует, а проверка "книга свободна" и
+ * оформление выдачи происходят атомарно.
+ * <p>
+ * Блокировку берут внутренние методы без метрик, которые вызываются из открытых
+ * методов LibraryManager. Замер задержки и событие JFR поэтому охватывают ожидание
+ * полосы, а их запись не удлиняет время, пока полоса занята.
+ */
+public class ConcurrentLibraryManager extends LibraryManager {
+
+    private static final int DEFAULT_STRIPES = 64;
+
+    private final ReentrantLock[] stripes;
+
+    public ConcurrentLibraryManager() {
+        this(DEFAULT_STRIPES);
+    }
+
+    /**
+     * @param stripeCount количество блокировок; округляется вверх до степени двойки
+     */
+    public ConcurrentLibraryManager(int stripeCount) {
+        this(stripeCount, 0);
+    }
+
+    /**
+     * @param stripeCount количество блокировок; округляется вверх до степени двойки
+     * @param expectedBooks ожидаемое количество книг, под которое заранее размечаются карты
+     */
+    public ConcurrentLibraryManager(int stripeCount, int expectedBooks) {
+        super(new ConcurrentHashMap<>(Math.max(expectedBooks, 16)), new ConcurrentHashMap<>(),
+                new ConcurrentHashMap<>(Math.max(expectedBooks, 16)), true);
+        if (stripeCount <= 0) {
+            throw new IllegalArgumentException("Stripe count must be greater than zero");
+        }
+        int size = Integer.highestOneBit(stripeCount);
+        if (size < stripeCount) {
+            size <<= 1;
+        }
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    boolean insertBook(Book book) {
+        return withLock(book.getIsbn(), () -> super.insertBook(book));
+    }
+
+    /**
+     * Массовая загрузка удерживает все полосы: иначе параллельное удаление книги,
+     * ещё не попавшей в индексы, оставило бы в них "висящую" запись
+     */
+    @Override
+    public int addBooks(Collection<Book> books) {
+        for (ReentrantLock stripe : stripes) {
+            stripe.lock();
+        }
+        try {
+            return super.addBooks(books);
+        } finally {
+            for (int i = stripes.length - 1; i >= 0; i--) {
+                stripes[i].unlock();
+            }
+        }
+    }
+
+    @Override
+    boolean deleteBook(String isbn) {
+        return withLock(isbn, () -> super.deleteBook(isbn));
+    }
+
+    @Override
+    boolean borrowBook(String isbn, String readerId, LocalDate borrowDate, LocalDate dueDate) {
+        return withLock(isbn, () -> super.borrowBook(isbn, readerId, borrowDate, dueDate));
+    }
+
+    @Override
+    boolean returnBook(String isbn, String readerId, LocalDate returnDate) {
+        return withLock(isbn, () -> super.returnBook(isbn, readerId, returnDate));
+    }
+
+    @Override
+    boolean extendDueDate(String isbn, String readerId, int additionalDays) {
+        return withLock(isbn, () -> super.extendDueDate(isbn, readerId, additionalDays));
+    }
+
+    /**
+     * Пакетная выдача удерживает полосы всех книг пачки. Полосы захватываются
+     * по возрастанию номера, поэтому две пачки с пересекающимися книгами
+     * не могут заблокировать друг друга
+     */
+    @Override
+    boolean borrowBooks(String readerId, Collection<String> isbns, LocalDate borrowDate, LocalDate dueDate) {
+        return withLocks(isbns, () -> super.borrowBooks(readerId, isbns, borrowDate, dueDate));
+    }
+
+    @Override
+    boolean returnBooks(String readerId, Collection<String> isbns, LocalDate returnDate) {
+        return withLocks(isbns, () -> super.returnBooks(readerId, isbns, returnDate));
+    }
+
+    ReentrantLock lockFor(String isbn) {
+        return stripes[stripeIndex(isbn)];
+    }
+
+    private int stripeIndex(String isbn) {
+        if (isbn == null) {
+            return 0; // проверку аргумента выполнит базовый класс
+        }
+        int h = isbn.hashCode();
+        h ^= (h >>> 16);
+        return h & (stripes.length - 1);
+    }
+
+    private <T> T withLocks(Collection<String> isbns, Supplier<T> action) {
+        if (isbns == null) {
+            return action.get(); // проверку аргумента выполнит базовый класс
+        }
+        // BitSet сразу даёт номера полос без повторов и по возрастанию
+        BitSet indices = new BitSet(stripes.length);
+        for (String isbn : isbns) {
+            indices.set(stripeIndex(isbn));
+        }
+        for (int i = indices.nextSetBit(0); i >= 0; i = indices.nextSetBit(i + 1)) {
+            stripes[i].lock();
+        }
+        try {
+            return action.get();
+        } finally {
+            for (int i = indices.previousSetBit(stripes.length - 1); i >= 0; i = indices.previousSetBit(i - 1)) {
+                stripes[i].unlock();
+            }
+        }
+    }
+
+    private <T> T withLock(String isbn, Supplier<T> action) {
+        ReentrantLock lock = lockFor(isbn);
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
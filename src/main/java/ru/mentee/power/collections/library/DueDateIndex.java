@@ -0,0 +1,58 @@
+package ru.mentee.power.collections.library;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Открытые выдачи, упорядоченные по сроку возврата.
+ * Просроченные выдачи всегда лежат в начале набора, поэтому запрос
+ * "что просрочено на сегодня" затрагивает только их, а не всю историю.
+ */
+final class DueDateIndex {
+
+    private static final Comparator<Borrowing> BY_DUE_DATE =
+            Comparator.comparing(Borrowing::getDueDate).thenComparingLong(Borrowing::getSequence);
+
+    private final NavigableSet<Borrowing> openBorrowings;
+
+    DueDateIndex(boolean concurrent) {
+        this.openBorrowings = concurrent ? new ConcurrentSkipListSet<>(BY_DUE_DATE) : new TreeSet<>(BY_DUE_DATE);
+    }
+
+    void add(Borrowing borrowing) {
+        openBorrowings.add(borrowing);
+        borrowing.setDueDateIndex(this);
+    }
+
+    void remove(Borrowing borrowing) {
+        borrowing.setDueDateIndex(null);
+        openBorrowings.remove(borrowing);
+    }
+
+    /**
+     * Меняет срок возврата выдачи: запись удаляется по старому ключу и вставляется по новому
+     */
+    void reschedule(Borrowing borrowing, LocalDate newDueDate) {
+        openBorrowings.remove(borrowing);
+        borrowing.updateDueDate(newDueDate);
+        openBorrowings.add(borrowing);
+    }
+
+    /**
+     * Возвращает выдачи, срок которых истёк раньше указанной даты
+     * @param today текущая дата
+     * @return представление индекса (без копирования)
+     */
+    NavigableSet<Borrowing> overdueAt(LocalDate today) {
+        Borrowing bound = new Borrowing(null, null, today, today);
+        bound.setSequence(Long.MIN_VALUE);
+        return openBorrowings.headSet(bound, false);
+    }
+
+    int size() {
+        return openBorrowings.size();
+    }
+}
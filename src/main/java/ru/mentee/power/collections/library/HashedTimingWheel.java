@@ -0,0 +1,122 @@
+package ru.mentee.power.collections.library;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Хешированное колесо таймеров. Время разбито на тики; таймер со сроком в тике t
+ * лежит в ячейке t mod size. Продвижение на один тик просматривает только одну
+ * ячейку, а постановка и отмена таймера — O(1). Таймеры дальше одного оборота
+ * колеса лежат в той же ячейке и пропускаются, пока их тик не наступит.
+ * Не потокобезопасно.
+ *
+ * @param <T> объект, к которому привязан таймер (сравнивается по ссылке)
+ */
+final class HashedTimingWheel<T> {
+
+    private static final class Timer<T> {
+        private final T item;
+        private final long deadlineTick;
+
+        private Timer(T item, long deadlineTick) {
+            this.item = item;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+
+    private final List<Set<Timer<T>>> buckets;
+    private final int mask;
+    private final Map<T, Timer<T>> timers = new IdentityHashMap<>();
+    private long currentTick;
+
+    /**
+     * @param size количество ячеек; округляется вверх до степени двойки
+     * @param startTick тик, с которого начинается отсчёт
+     */
+    HashedTimingWheel(int size, long startTick) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Wheel size must be greater than zero");
+        }
+        int capacity = Integer.highestOneBit(size);
+        if (capacity < size) {
+            capacity <<= 1;
+        }
+        this.buckets = new ArrayList<>(capacity);
+        for (int i = 0; i < capacity; i++) {
+            buckets.add(new LinkedHashSet<>());
+        }
+        this.mask = capacity - 1;
+        this.currentTick = startTick;
+    }
+
+    long getCurrentTick() {
+        return currentTick;
+    }
+
+    int size() {
+        return timers.size();
+    }
+
+    /**
+     * Ставит (или переставляет) таймер
+     * @return false, если тик уже наступил — таймер не ставится
+     */
+    boolean schedule(T item, long deadlineTick) {
+        cancel(item);
+        if (deadlineTick <= currentTick) {
+            return false;
+        }
+        Timer<T> timer = new Timer<>(item, deadlineTick);
+        timers.put(item, timer);
+        buckets.get((int) (deadlineTick & mask)).add(timer);
+        return true;
+    }
+
+    /**
+     * @return true, если таймер был и отменён
+     */
+    boolean cancel(T item) {
+        Timer<T> timer = timers.remove(item);
+        if (timer == null) {
+            return false;
+        }
+        buckets.get((int) (timer.deadlineTick & mask)).remove(timer);
+        return true;
+    }
+
+    /**
+     * Продвигает колесо до тика targetTick включительно
+     * @return объекты сработавших таймеров в порядке их сроков
+     */
+    List<T> advanceTo(long targetTick) {
+        if (targetTick <= currentTick) {
+            return List.of();
+        }
+        List<Timer<T>> expired = new ArrayList<>();
+        // Больше одного оборота смысла не имеет: каждая ячейка просматривается один раз
+        long steps = Math.min(targetTick - currentTick, buckets.size());
+        for (long tick = currentTick + 1; tick <= currentTick + steps; tick++) {
+            Set<Timer<T>> bucket = buckets.get((int) (tick & mask));
+            bucket.removeIf(timer -> {
+                if (timer.deadlineTick <= targetTick) {
+                    expired.add(timer);
+                    return true;
+                }
+                return false;
+            });
+        }
+        currentTick = targetTick;
+
+        expired.sort((a, b) -> Long.compare(a.deadlineTick, b.deadlineTick));
+        List<T> result = new ArrayList<>(expired.size());
+        for (Timer<T> timer : expired) {
+            timers.remove(timer.item);
+            result.add(timer.item);
+        }
+        return result;
+    }
+}
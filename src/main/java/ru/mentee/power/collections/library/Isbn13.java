@@ -0,0 +1,127 @@
+package ru.mentee.power.collections.library;
+
+/**
+ * ISBN-13, упакованный в long. Тринадцать десятичных цифр помещаются в 44 бита,
+ * поэтому ключ занимает 8 байт вместо объекта String с массивом символов,
+ * а его хеш и сравнение — одна операция над примитивом.
+ */
+public final class Isbn13 implements Comparable<Isbn13> {
+
+    static final int LENGTH = 13;
+    /** Признак того, что строку нельзя представить числом без потери вида */
+    static final long NOT_ENCODABLE = -1L;
+
+    private final long value;
+
+    private Isbn13(long value) {
+        this.value = value;
+    }
+
+    /**
+     * Разбирает ISBN-13; дефисы и пробелы между группами цифр допускаются
+     * @param text ISBN, например "978-5-389-07435-4"
+     * @return ISBN
+     * @throws IllegalArgumentException если это не ISBN-13 или не сходится контрольная цифра
+     */
+    public static Isbn13 parse(String text) {
+        if (text == null) {
+            throw new IllegalArgumentException("ISBN must not be null");
+        }
+        long value = 0;
+        int digits = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '-' || c == ' ') {
+                continue;
+            }
+            if (c < '0' || c > '9' || ++digits > LENGTH) {
+                throw new IllegalArgumentException("Invalid ISBN-13: " + text);
+            }
+            value = value * 10 + (c - '0');
+        }
+        if (digits != LENGTH || !hasValidCheckDigit(value)) {
+            throw new IllegalArgumentException("Invalid ISBN-13: " + text);
+        }
+        return new Isbn13(value);
+    }
+
+    public static Isbn13 of(long value) {
+        if (value < 0 || value > 9_999_999_999_999L || !hasValidCheckDigit(value)) {
+            throw new IllegalArgumentException("Invalid ISBN-13: " + value);
+        }
+        return new Isbn13(value);
+    }
+
+    /**
+     * Кодирует строку, если она в точности записана как 13 цифр. Контрольная цифра
+     * здесь не проверяется: это ключ карты на горячем пути, а любые 13 цифр
+     * декодируются обратно в ту же строку. Для остальных строк (с дефисами,
+     * внутренних кодов вроде "ISBN1") обратное преобразование не вернуло бы
+     * исходный ключ, поэтому они не кодируются.
+     * @param isbn строка ISBN
+     * @return значение или {@link #NOT_ENCODABLE}
+     */
+    static long encode(String isbn) {
+        if (isbn == null || isbn.length() != LENGTH) {
+            return NOT_ENCODABLE;
+        }
+        long value = 0;
+        for (int i = 0; i < LENGTH; i++) {
+            char c = isbn.charAt(i);
+            if (c < '0' || c > '9') {
+                return NOT_ENCODABLE;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /**
+     * @return 13 цифр ISBN без разделителей
+     */
+    static String decode(long value) {
+        char[] digits = new char[LENGTH];
+        for (int i = LENGTH - 1; i >= 0; i--) {
+            digits[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return new String(digits);
+    }
+
+    private static boolean hasValidCheckDigit(long value) {
+        int checkDigit = (int) (value % 10);
+        long rest = value / 10;
+        int sum = 0;
+        // Веса 1 и 3 чередуются с первой цифры; идём с конца, где у 12-й цифры вес 3
+        for (int i = 0; i < LENGTH - 1; i++) {
+            int digit = (int) (rest % 10);
+            sum += (i % 2 == 0) ? digit * 3 : digit;
+            rest /= 10;
+        }
+        return (10 - sum % 10) % 10 == checkDigit;
+    }
+
+    public long longValue() {
+        return value;
+    }
+
+    @Override
+    public int compareTo(Isbn13 other) {
+        return Long.compare(value, other.value);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof Isbn13 other && value == other.value);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(value);
+    }
+
+    @Override
+    public String toString() {
+        return decode(value);
+    }
+}
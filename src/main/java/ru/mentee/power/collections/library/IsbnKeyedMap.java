@@ -0,0 +1,188 @@
+package ru.mentee.power.collections.library;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Карта с ключом-ISBN. Ключи, записанные как настоящий ISBN-13 (13 цифр), хранятся
+ * упакованными в long в {@link LongObjectHashMap}; остальные строки — в обычной HashMap.
+ * Для вызывающего кода это обычная Map&lt;String, V&gt;, поэтому её можно передать
+ * в LibraryManager вместо HashMap. Не потокобезопасна.
+ *
+ * @param <V> тип значения
+ */
+public class IsbnKeyedMap<V> extends AbstractMap<String, V> {
+
+    private final LongObjectHashMap<V> encoded;
+    private final Map<String, V> other = new HashMap<>();
+    private final EntrySet entrySet = new EntrySet();
+    private final Values values = new Values();
+
+    public IsbnKeyedMap() {
+        this.encoded = new LongObjectHashMap<>();
+    }
+
+    /**
+     * @param expectedSize ожидаемое количество ключей
+     */
+    public IsbnKeyedMap(int expectedSize) {
+        this.encoded = new LongObjectHashMap<>(expectedSize);
+    }
+
+    @Override
+    public int size() {
+        return encoded.size() + other.size();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        if (!(key instanceof String isbn)) {
+            return false;
+        }
+        long code = Isbn13.encode(isbn);
+        return code != Isbn13.NOT_ENCODABLE ? encoded.containsKey(code) : other.containsKey(isbn);
+    }
+
+    @Override
+    public V get(Object key) {
+        if (!(key instanceof String isbn)) {
+            return null;
+        }
+        long code = Isbn13.encode(isbn);
+        return code != Isbn13.NOT_ENCODABLE ? encoded.get(code) : other.get(isbn);
+    }
+
+    @Override
+    public V put(String key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Value must not be null");
+        }
+        long code = Isbn13.encode(key);
+        return code != Isbn13.NOT_ENCODABLE ? encoded.put(code, value) : other.put(key, value);
+    }
+
+    @Override
+    public V remove(Object key) {
+        if (!(key instanceof String isbn)) {
+            return null;
+        }
+        long code = Isbn13.encode(isbn);
+        return code != Isbn13.NOT_ENCODABLE ? encoded.remove(code) : other.remove(isbn);
+    }
+
+    @Override
+    public void clear() {
+        encoded.clear();
+        other.clear();
+    }
+
+    @Override
+    public Set<Entry<String, V>> entrySet() {
+        return entrySet;
+    }
+
+    /**
+     * Значения обходятся прямо по таблице, без копии ключей и декодирования их в строки.
+     * Представление только для чтения: удалять записи нужно через entrySet() или keySet()
+     */
+    @Override
+    public Collection<V> values() {
+        return values;
+    }
+
+    private final class Values extends AbstractCollection<V> {
+        @Override
+        public int size() {
+            return IsbnKeyedMap.this.size();
+        }
+
+        @Override
+        public Iterator<V> iterator() {
+            Iterator<V> packed = encoded.valueIterator();
+            Iterator<V> others = other.values().iterator();
+            return new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return packed.hasNext() || others.hasNext();
+                }
+
+                @Override
+                public V next() {
+                    return packed.hasNext() ? packed.next() : others.next();
+                }
+            };
+        }
+    }
+
+    private final class EntrySet extends AbstractSet<Entry<String, V>> {
+        @Override
+        public int size() {
+            return IsbnKeyedMap.this.size();
+        }
+
+        @Override
+        public Iterator<Entry<String, V>> iterator() {
+            return new EntryIterator();
+        }
+    }
+
+    /**
+     * Сначала обходит упакованные ключи (по снимку ключей), затем строковые
+     */
+    private final class EntryIterator implements Iterator<Entry<String, V>> {
+        private final long[] codes = encoded.keys();
+        private final Iterator<Entry<String, V>> others = other.entrySet().iterator();
+        private int position;
+        private boolean lastFromOthers;
+        private long lastCode;
+        private boolean canRemove;
+
+        @Override
+        public boolean hasNext() {
+            return position < codes.length || others.hasNext();
+        }
+
+        @Override
+        public Entry<String, V> next() {
+            if (position < codes.length) {
+                long code = codes[position++];
+                lastCode = code;
+                lastFromOthers = false;
+                canRemove = true;
+                return new SimpleEntry<>(Isbn13.decode(code), encoded.get(code)) {
+                    @Override
+                    public V setValue(V value) {
+                        encoded.put(code, value);
+                        return super.setValue(value);
+                    }
+                };
+            }
+            if (!others.hasNext()) {
+                throw new NoSuchElementException("Нет больше записей");
+            }
+            lastFromOthers = true;
+            canRemove = true;
+            return others.next();
+        }
+
+        @Override
+        public void remove() {
+            if (!canRemove) {
+                throw new IllegalStateException("next() has not been called");
+            }
+            canRemove = false;
+            if (lastFromOthers) {
+                others.remove();
+            } else {
+                encoded.remove(lastCode);
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package ru.mentee.power.collections.library;
+
+/**
+ * Слушатель изменений LibraryManager.
+ * Методы вызываются после того, как изменение применено ко всем индексам;
+ * committed() вызывается один раз в конце каждой изменяющей операции,
+ * поэтому слушатель может копить события и сбрасывать их пачкой.
+ */
+public interface LibraryChangeListener {
+
+    default void bookAdded(Book book) {
+    }
+
+    default void bookRemoved(Book book) {
+    }
+
+    default void readerAdded(Reader reader) {
+    }
+
+    default void readerRemoved(Reader reader) {
+    }
+
+    default void bookBorrowed(Borrowing borrowing) {
+    }
+
+    default void bookReturned(Borrowing borrowing) {
+    }
+
+    default void borrowingExtended(Borrowing borrowing) {
+    }
+
+    /**
+     * Операция завершена: все её события уже переданы слушателю
+     */
+    default void committed() {
+    }
+}
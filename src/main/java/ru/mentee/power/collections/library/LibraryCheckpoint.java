@@ -0,0 +1,89 @@
+package ru.mentee.power.collections.library;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Компактный снимок состояния библиотеки (контрольная точка): книги, читатели
+ * и история выдач, ещё не перенесённая в архив, плюс LSN журнала, до которого снимок актуален.
+ * Файл пишется во временный файл и атомарно подменяет предыдущий снимок.
+ */
+final class LibraryCheckpoint {
+
+    private static final int MAGIC = 0x4C494252; // "LIBR"
+    private static final int VERSION = 1;
+
+    private LibraryCheckpoint() {
+    }
+
+    static void write(Path file, LibraryManager manager, long lsn) throws IOException {
+        List<Book> books = manager.getAllBooks();
+        List<Reader> readers = manager.getAllReaders();
+        List<Borrowing> borrowings = manager.getHotBorrowings();
+        borrowings.sort(Comparator.comparingLong(Borrowing::getSequence));
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(lsn);
+            out.writeInt(books.size());
+            for (Book book : books) {
+                LibraryRecords.writeBook(out, book);
+            }
+            out.writeInt(readers.size());
+            for (Reader reader : readers) {
+                LibraryRecords.writeReader(out, reader);
+            }
+            out.writeInt(borrowings.size());
+            for (Borrowing borrowing : borrowings) {
+                LibraryRecords.writeBorrowing(out, borrowing);
+            }
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Загружает снимок в пустой менеджер
+     * @return LSN журнала, учтённый снимком, или 0, если снимка ещё нет
+     */
+    static long read(Path file, LibraryManager manager) throws IOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Файл " + file + " не является контрольной точкой библиотеки");
+            }
+            long lsn = in.readLong();
+            int books = in.readInt();
+            for (int i = 0; i < books; i++) {
+                manager.addBook(LibraryRecords.readBook(in));
+            }
+            int readers = in.readInt();
+            for (int i = 0; i < readers; i++) {
+                manager.addReader(LibraryRecords.readReader(in));
+            }
+            int borrowings = in.readInt();
+            for (int i = 0; i < borrowings; i++) {
+                manager.restoreBorrowing(LibraryRecords.readBorrowing(in));
+            }
+            return lsn;
+        }
+    }
+}
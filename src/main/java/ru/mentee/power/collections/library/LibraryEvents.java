@@ -0,0 +1,85 @@
+package ru.mentee.power.collections.library;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * События Java Flight Recorder для выдачи, возврата, поиска и статистики.
+ * Длительность события — время от begin() до commit(). Пока запись JFR
+ * не идёт или событие выключено в её настройках, begin() и shouldCommit()
+ * почти ничего не стоят, а сам объект события JIT убирает escape-анализом.
+ * <p>
+ * Включить: java -XX:StartFlightRecording:filename=library.jfr ...,
+ * посмотреть: jfr print --events ru.mentee.library.BookBorrowed library.jfr
+ */
+final class LibraryEvents {
+
+    private static final String CATEGORY = "Library";
+
+    private LibraryEvents() {
+    }
+
+    @Name("ru.mentee.library.BookBorrowed")
+    @Label("Book Borrowed")
+    @Description("Выдача книги читателю")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static final class Borrow extends Event {
+        @Label("ISBN")
+        String isbn;
+
+        @Label("Reader ID")
+        String readerId;
+
+        @Label("Succeeded")
+        @Description("false, если книга не найдена или уже выдана")
+        boolean succeeded;
+    }
+
+    @Name("ru.mentee.library.BookReturned")
+    @Label("Book Returned")
+    @Description("Возврат книги читателем")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static final class Return extends Event {
+        @Label("ISBN")
+        String isbn;
+
+        @Label("Reader ID")
+        String readerId;
+
+        @Label("Succeeded")
+        @Description("false, если выдача не найдена")
+        boolean succeeded;
+    }
+
+    @Name("ru.mentee.library.TitleSearch")
+    @Label("Title Search")
+    @Description("Поиск книг по части названия")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static final class TitleSearch extends Event {
+        @Label("Query")
+        String query;
+
+        @Label("Result Count")
+        int resultCount;
+    }
+
+    @Name("ru.mentee.library.Statistics")
+    @Label("Statistics Query")
+    @Description("Построение статистики или рейтинга")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static final class Statistics extends Event {
+        @Label("Method")
+        String method;
+
+        @Label("Result Count")
+        int resultCount;
+    }
+}
@@ -0,0 +1,394 @@
+package ru.mentee.power.collections.library;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+
+/**
+ * Журнал изменений библиотеки: дописываемый в конец двоичный файл.
+ * Каждая запись: [длина][LSN][тип + данные][CRC32]. Записи дописываются через FileChannel,
+ * а fsync выполняется групповым коммитом: один вызов force() подтверждает все записи,
+ * накопленные к этому моменту всеми потоками.
+ * <p>
+ * Это журнал повтора (redo log), а не write-ahead log: запись дописывается уже после
+ * изменения в памяти, из события слушателя. Операция возвращается только после fsync,
+ * но в ConcurrentLibraryManager ожидание fsync (committed()) идёт под блокировкой полосы:
+ * операции над книгами одной полосы выстраиваются в очередь на задержку диска,
+ * а групповой коммит объединяет записи только разных полос.
+ */
+public class LibraryJournal implements LibraryChangeListener, Closeable {
+
+    static final byte ADD_BOOK = 1;
+    static final byte REMOVE_BOOK = 2;
+    static final byte ADD_READER = 3;
+    static final byte REMOVE_READER = 4;
+    static final byte BORROW = 5;
+    static final byte RETURN = 6;
+    static final byte EXTEND = 7;
+
+    private static final int FRAME_OVERHEAD = Integer.BYTES + Long.BYTES + Integer.BYTES;
+    private static final int MAX_RECORD_SIZE = 16 * 1024 * 1024;
+
+    private final Path file;
+    private FileChannel channel;
+    private long lastLsn;               // под монитором this
+    private volatile long durableLsn;
+    private final Object syncLock = new Object();
+
+    private final LongAdder appendedRecords = new LongAdder();
+    private final LongAdder syncCount = new LongAdder();
+    private final LongAdder syncNanos = new LongAdder();
+
+    @FunctionalInterface
+    private interface RecordWriter {
+        void write(DataOutput out) throws IOException;
+    }
+
+    LibraryJournal(Path file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+    }
+
+    // ============ Запись ============
+
+    @Override
+    public void bookAdded(Book book) {
+        append(ADD_BOOK, out -> LibraryRecords.writeBook(out, book));
+    }
+
+    @Override
+    public void bookRemoved(Book book) {
+        append(REMOVE_BOOK, out -> LibraryRecords.writeString(out, book.getIsbn()));
+    }
+
+    @Override
+    public void readerAdded(Reader reader) {
+        append(ADD_READER, out -> LibraryRecords.writeReader(out, reader));
+    }
+
+    @Override
+    public void readerRemoved(Reader reader) {
+        append(REMOVE_READER, out -> LibraryRecords.writeString(out, reader.getId()));
+    }
+
+    @Override
+    public void bookBorrowed(Borrowing borrowing) {
+        append(BORROW, out -> LibraryRecords.writeBorrowing(out, borrowing));
+    }
+
+    @Override
+    public void bookReturned(Borrowing borrowing) {
+        append(RETURN, out -> {
+            writeLoanKey(out, borrowing);
+            LibraryRecords.writeDate(out, borrowing.getReturnDate());
+        });
+    }
+
+    @Override
+    public void borrowingExtended(Borrowing borrowing) {
+        // Пишем итоговый срок, а не прибавку: повторное применение записи ничего не меняет
+        append(EXTEND, out -> {
+            writeLoanKey(out, borrowing);
+            LibraryRecords.writeDate(out, borrowing.getDueDate());
+        });
+    }
+
+    /**
+     * Дожидается, пока все дописанные записи окажутся на диске
+     */
+    @Override
+    public void committed() {
+        long target;
+        synchronized (this) {
+            target = lastLsn;
+        }
+        awaitDurable(target);
+    }
+
+    private void append(byte type, RecordWriter writer) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(type);
+            writer.write(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        byte[] payload = bytes.toByteArray();
+
+        synchronized (this) {
+            long lsn = lastLsn + 1;
+            ByteBuffer frame = ByteBuffer.allocate(FRAME_OVERHEAD + payload.length);
+            frame.putInt(payload.length).putLong(lsn).put(payload);
+            CRC32 crc = new CRC32();
+            crc.update(frame.array(), Integer.BYTES, Long.BYTES + payload.length);
+            frame.putInt((int) crc.getValue());
+            frame.flip();
+            try {
+                while (frame.hasRemaining()) {
+                    channel.write(frame);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Не удалось записать журнал " + file, e);
+            }
+            lastLsn = lsn;
+        }
+        appendedRecords.increment();
+    }
+
+    private void awaitDurable(long lsn) {
+        if (durableLsn >= lsn) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (durableLsn >= lsn) {
+                return; // нашу запись уже подтвердил чужой force()
+            }
+            long target;
+            synchronized (this) {
+                target = lastLsn;
+            }
+            long start = System.nanoTime();
+            try {
+                channel.force(false);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Не удалось сбросить журнал " + file + " на диск", e);
+            }
+            syncNanos.add(System.nanoTime() - start);
+            syncCount.increment();
+            durableLsn = target;
+        }
+    }
+
+    private static void writeLoanKey(DataOutput out, Borrowing borrowing) throws IOException {
+        out.writeLong(borrowing.getSequence());
+        LibraryRecords.writeString(out, borrowing.getIsbn());
+        LibraryRecords.writeString(out, borrowing.getReaderId());
+    }
+
+    // ============ Восстановление ============
+
+    /**
+     * Применяет к менеджеру записи журнала с LSN больше afterLsn.
+     * Оборванная или повреждённая запись в конце файла (сбой во время записи) отбрасывается.
+     * @param afterLsn LSN, уже учтённый контрольной точкой
+     * @param manager менеджер, в который восстанавливается состояние
+     * @return количество применённых записей
+     */
+    synchronized long replay(long afterLsn, LibraryManager manager) throws IOException {
+        lastLsn = afterLsn;
+        long replayed = 0;
+        long validEnd = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            while (true) {
+                Frame frame = readFrame(in);
+                if (frame == null) {
+                    break;
+                }
+                validEnd += FRAME_OVERHEAD + frame.payload.length;
+                if (frame.lsn > afterLsn) {
+                    apply(frame.payload, manager);
+                    replayed++;
+                }
+                lastLsn = Math.max(lastLsn, frame.lsn);
+            }
+        }
+        // Обрезаем хвост после последней целой записи и продолжаем писать с этого места
+        channel.truncate(validEnd);
+        channel.position(validEnd);
+        durableLsn = lastLsn;
+        return replayed;
+    }
+
+    private static final class Frame {
+        private final long lsn;
+        private final byte[] payload;
+
+        private Frame(long lsn, byte[] payload) {
+            this.lsn = lsn;
+            this.payload = payload;
+        }
+    }
+
+    private static Frame readFrame(DataInputStream in) throws IOException {
+        try {
+            int length = in.readInt();
+            if (length <= 0 || length > MAX_RECORD_SIZE) {
+                return null;
+            }
+            long lsn = in.readLong();
+            byte[] payload = new byte[length];
+            in.readFully(payload);
+            int storedCrc = in.readInt();
+
+            CRC32 crc = new CRC32();
+            crc.update(ByteBuffer.allocate(Long.BYTES).putLong(lsn).array());
+            crc.update(payload);
+            return (int) crc.getValue() == storedCrc ? new Frame(lsn, payload) : null;
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    private static void apply(byte[] payload, LibraryManager manager) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte type = in.readByte();
+        switch (type) {
+            case ADD_BOOK -> manager.addBook(LibraryRecords.readBook(in));
+            case REMOVE_BOOK -> manager.removeBook(LibraryRecords.readString(in));
+            case ADD_READER -> manager.addReader(LibraryRecords.readReader(in));
+            case REMOVE_READER -> manager.removeReader(LibraryRecords.readString(in));
+            case BORROW -> {
+                Borrowing borrowing = LibraryRecords.readBorrowing(in);
+                // Выдача могла уже попасть в контрольную точку, снятую во время записи журнала
+                if (borrowing.getSequence() > manager.getLastBorrowingSequence()) {
+                    manager.restoreBorrowing(borrowing);
+                }
+            }
+            case RETURN -> {
+                Borrowing active = readActiveLoan(in, manager);
+                LocalDate returnDate = LibraryRecords.readDate(in);
+                if (active != null) {
+                    manager.returnBook(active.getIsbn(), active.getReaderId(), returnDate);
+                }
+            }
+            case EXTEND -> {
+                Borrowing active = readActiveLoan(in, manager);
+                LocalDate dueDate = LibraryRecords.readDate(in);
+                if (active != null) {
+                    active.setDueDate(dueDate);
+                }
+            }
+            default -> throw new IOException("Неизвестный тип записи журнала: " + type);
+        }
+    }
+
+    private static Borrowing readActiveLoan(DataInputStream in, LibraryManager manager) throws IOException {
+        long sequence = in.readLong();
+        String isbn = LibraryRecords.readString(in);
+        String readerId = LibraryRecords.readString(in);
+        Borrowing active = manager.findActiveBorrowing(isbn, readerId);
+        return active != null && active.getSequence() == sequence ? active : null;
+    }
+
+    // ============ Обслуживание ============
+
+    /**
+     * Убирает из журнала записи, которые уже вошли в контрольную точку.
+     * Хвост с более новыми записями переписывается в новый файл, который атомарно заменяет старый.
+     * @param checkpointLsn LSN контрольной точки
+     */
+    void discardUpTo(long checkpointLsn) throws IOException {
+        synchronized (syncLock) {
+            synchronized (this) {
+                channel.force(false);
+                Path tail = file.resolveSibling(file.getFileName() + ".tmp");
+                try (FileChannel out = FileChannel.open(tail, StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    long size = channel.size();
+                    long tailStart = findTailStart(checkpointLsn, size);
+                    // transferTo может перенести меньше, чем просили: копируем до конца
+                    long copied = 0;
+                    while (copied < size - tailStart) {
+                        long transferred = channel.transferTo(tailStart + copied, size - tailStart - copied, out);
+                        if (transferred <= 0) {
+                            break;
+                        }
+                        copied += transferred;
+                    }
+                    out.force(true);
+                    // Короткий хвост заменил бы журнал и потерял записи, которых нет в контрольной точке
+                    if (out.size() != size - tailStart) {
+                        throw new IOException("Хвост журнала " + file + " скопирован не полностью: "
+                                + out.size() + " из " + (size - tailStart) + " байт");
+                    }
+                }
+                channel.close();
+                Files.move(tail, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                channel.position(channel.size());
+            }
+        }
+    }
+
+    /**
+     * @return позиция первой записи с LSN больше checkpointLsn или size, если таких нет
+     */
+    private long findTailStart(long checkpointLsn, long size) throws IOException {
+        long position = 0;
+        ByteBuffer header = ByteBuffer.allocate(Integer.BYTES + Long.BYTES);
+        while (position < size) {
+            header.clear();
+            while (header.hasRemaining()) {
+                if (channel.read(header, position + header.position()) < 0) {
+                    throw new IOException("Неожиданный конец журнала " + file);
+                }
+            }
+            header.flip();
+            int length = header.getInt();
+            long lsn = header.getLong();
+            if (lsn > checkpointLsn) {
+                return position;
+            }
+            position += FRAME_OVERHEAD + length;
+        }
+        return size;
+    }
+
+    synchronized long getLastLsn() {
+        return lastLsn;
+    }
+
+    /**
+     * @return количество записей, дописанных с момента открытия журнала
+     */
+    public long getAppendedRecords() {
+        return appendedRecords.sum();
+    }
+
+    /**
+     * @return количество вызовов fsync; отношение записей к fsync показывает эффект группового коммита
+     */
+    public long getSyncCount() {
+        return syncCount.sum();
+    }
+
+    /**
+     * @return суммарное время, проведённое в fsync, в наносекундах
+     */
+    public long getSyncNanos() {
+        return syncNanos.sum();
+    }
+
+    public synchronized long size() throws IOException {
+        return channel.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (syncLock) {
+            synchronized (this) {
+                if (channel.isOpen()) {
+                    channel.force(false);
+                    channel.close();
+                }
+            }
+        }
+    }
+}
@@ -3,51 +3,85 @@ package ru.mentee.power.collections.library;
 
 import ru.mentee.power.collections.library.comparator.BookAvailabilityComparator;
 import ru.mentee.power.collections.library.comparator.BookTitleComparator;
-import ru.mentee.power.collections.library.comparator.PopularBookComparator;
 
+import java.io.IOException;
 import java.time.LocalDate;
+import java.time.Period;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class LibraryManager {
 
     private Map<String, Book> library;
     private Map<String, Reader> readers;
-    private List<Borrowing> borrowings;
+    private Collection<Borrowing> borrowings;
     private Map<Book.Genre, Set<Book>> genreSetMap;
     private Map<String, List<Book>> authorsAndTheirBooks;
+    // Двухуровневый индекс: жанр -> (год издания -> книги)
+    private Map<Book.Genre, NavigableMap<Integer, Set<Book>>> booksByGenreAndYear;
+    // Индексы открытых выдач: ISBN -> выдача и ID читателя -> (ISBN -> выдача)
+    private Map<String, Borrowing> activeBorrowingsByIsbn;
+    private Map<String, Map<String, Borrowing>> activeBorrowingsByReader;
+    // История выдач по читателю и по книге
+    private Map<String, List<Borrowing>> borrowingHistoryByReader;
+    private Map<String, List<Borrowing>> borrowingHistoryByIsbn;
+    // Открытые выдачи в порядке срока возврата
+    private DueDateIndex dueDateIndex;
+    // Индекс триграмм по названиям книг
+    private TitleIndex titleIndex;
+    // Счётчики выдач для рейтингов популярных книг и активных читателей
+    private LoanCounter bookLoanCounter;
+    private LoanCounter readerLoanCounter;
+    // Количество книг по жанрам и годам издания
+    private CatalogStatistics catalogStatistics;
+    // Битовые индексы для составных фильтров (жанр, доступность, авторы, годы)
+    private CatalogBitmapIndex bitmapIndex;
+    private final AtomicLong borrowingSequence = new AtomicLong();
+    // Холодный архив старых возвращённых выдач (необязателен)
+    private volatile BorrowingArchive archive;
+    // Метрики операций; null, пока не включены
+    private volatile LibraryMetrics metrics;
+    // Подписчики на изменения состояния (журнал, кэши и т.п.)
+    private final List<LibraryChangeListener> listeners = new CopyOnWriteArrayList<>();
+    // true, если внутренние индексы должны выдерживать работу из нескольких потоков
+    private final boolean concurrent;
 
     private class BooksByGenreAndYearIterator implements Iterator<Book> {
-        private final Iterator<Book> internal;
-        private final int year;
-        private Book nextBook;
-        private boolean hasNextCalculated = false;
-
-        public BooksByGenreAndYearIterator(Book.Genre genre, int year) {
-            this.internal = genreSetMap.getOrDefault(genre, Collections.emptySet()).iterator();
-            this.year = year;
+        private final Iterator<Set<Book>> yearBuckets;
+        private Iterator<Book> current = Collections.emptyIterator();
+
+        public BooksByGenreAndYearIterator(Book.Genre genre, int fromYear, int toYear) {
+            NavigableMap<Integer, Set<Book>> years = genre == null ? null : booksByGenreAndYear.get(genre);
+            if (years == null || fromYear > toYear) {
+                this.yearBuckets = Collections.emptyIterator();
+            } else {
+                // Сразу переходим к нужным годам, книги других лет не просматриваются
+                this.yearBuckets = years.subMap(fromYear, true, toYear, true).values().iterator();
+            }
         }
 
         @Override
         public boolean hasNext() {
-            if (hasNextCalculated) return nextBook != null;
-            while (internal.hasNext()) {
-                Book b = internal.next();
-                if (b.getPublicationYear() == year) {
-                    nextBook = b;
-                    hasNextCalculated = true;
-                    return true;
-                }
+            while (!current.hasNext() && yearBuckets.hasNext()) {
+                current = yearBuckets.next().iterator();
             }
-            nextBook = null;
-            hasNextCalculated = true;
-            return false;
+            return current.hasNext();
         }
 
         @Override
         public Book next() {
             if (!hasNext()) throw new NoSuchElementException("Нет книг указанного жанра и года");
-            hasNextCalculated = false;
-            return nextBook;
+            return current.next();
         }
 
         @Override
@@ -60,28 +94,17 @@ public class LibraryManager {
     private class BooksWithMultipleAuthorsIterator implements Iterator<Book> {
         private final Iterator<Book> internal;
         private final int minAuthorsCount;
-        private Book nextBook;
-        private boolean hasNextCalculated = false;
 
         public BooksWithMultipleAuthorsIterator(int minAuthorsCount) {
-            this.internal = library.values().iterator();
+            // Кандидаты отбираются по битовому индексу количества авторов
+            this.internal = bitmapIndex.find(null, false, minAuthorsCount, Integer.MIN_VALUE, Integer.MAX_VALUE)
+                    .iterator();
             this.minAuthorsCount = minAuthorsCount;
         }
 
         @Override
         public boolean hasNext() {
-            if (hasNextCalculated) return nextBook != null;
-            while (internal.hasNext()) {
-                Book b = internal.next();
-                if (b.getAuthors() != null && b.getAuthors().size() >= minAuthorsCount) {
-                    nextBook = b;
-                    hasNextCalculated = true;
-                    return true;
-                }
-            }
-            nextBook = null;
-            hasNextCalculated = true;
-            return false;
+            return internal.hasNext();
         }
 
         @Override
@@ -89,8 +112,7 @@ public class LibraryManager {
             if (!hasNext()) {
                 throw new NoSuchElementException("Нет книг с " + minAuthorsCount + " или более авторами");
             }
-            hasNextCalculated = false;
-            return nextBook;
+            return internal.next();
         }
 
         @Override
@@ -101,27 +123,15 @@ public class LibraryManager {
 
     private class OverdueBorrowingsIterator implements Iterator<Borrowing> {
         private final Iterator<Borrowing> internal;
-        private Borrowing nextBorrowing;
-        private boolean hasNextCalculated = false;
 
         public OverdueBorrowingsIterator() {
-            this.internal = borrowings.iterator();
+            // В индексе сроков просроченные выдачи идут первыми, фильтровать не нужно
+            this.internal = dueDateIndex.overdueAt(LocalDate.now()).iterator();
         }
 
         @Override
         public boolean hasNext() {
-            if (hasNextCalculated) return nextBorrowing != null;
-            while (internal.hasNext()) {
-                Borrowing b = internal.next();
-                if (b.isOverdue()) {
-                    nextBorrowing = b;
-                    hasNextCalculated = true;
-                    return true;
-                }
-            }
-            nextBorrowing = null;
-            hasNextCalculated = true;
-            return false;
+            return internal.hasNext();
         }
 
         @Override
@@ -129,8 +139,7 @@ public class LibraryManager {
             if (!hasNext()) {
                 throw new NoSuchElementException("Нет просроченных выдач");
             }
-            hasNextCalculated = false;
-            return nextBorrowing;
+            return internal.next();
         }
 
         @Override
@@ -147,43 +156,363 @@ public class LibraryManager {
             List<Borrowing> borrowings,
             Map<String, List<Book>> authorsAndTheirBooks
     ) {
+        this(library, readers, authorsAndTheirBooks, false);
+    }
+
+    /**
+     * Создаёт менеджер, карты которого заранее рассчитаны на нужное количество книг,
+     * чтобы при загрузке каталога не было промежуточных перехеширований.
+     * Каталог хранится в IsbnKeyedMap: ключи ISBN-13 занимают 8 байт вместо String
+     * @param expectedBooks ожидаемое количество книг
+     * @param expectedAuthors ожидаемое количество разных авторов
+     * @return пустой менеджер
+     */
+    public static LibraryManager withExpectedSize(int expectedBooks, int expectedAuthors) {
+        if (expectedBooks < 0 || expectedAuthors < 0) {
+            throw new IllegalArgumentException("Expected sizes must not be negative");
+        }
+        return new LibraryManager(new IsbnKeyedMap<>(expectedBooks), new HashMap<>(),
+                HashMap.newHashMap(expectedAuthors), false);
+    }
+
+    /**
+     * Конструктор для потокобезопасных наследников: при concurrent = true
+     * все внутренние индексы создаются на основе concurrent-коллекций
+     */
+    LibraryManager(
+            Map<String, Book> library,
+            Map<String, Reader> readers,
+            Map<String, List<Book>> authorsAndTheirBooks,
+            boolean concurrent
+    ) {
+        this.concurrent = concurrent;
         this.library = library;
         this.readers = readers;
-        this.borrowings = new ArrayList<>();
-        this.genreSetMap = new HashMap<>();
+        this.borrowings = concurrent ? new ConcurrentLinkedQueue<>() : new ArrayList<>();
+        this.genreSetMap = newIndexMap();
+        this.booksByGenreAndYear = newIndexMap();
         this.authorsAndTheirBooks = authorsAndTheirBooks;
+        this.activeBorrowingsByIsbn = newIsbnMap();
+        this.activeBorrowingsByReader = newIndexMap();
+        this.borrowingHistoryByReader = newIndexMap();
+        this.borrowingHistoryByIsbn = newIsbnMap();
+        this.dueDateIndex = new DueDateIndex(concurrent);
+        this.titleIndex = new TitleIndex(concurrent);
+        this.bookLoanCounter = new LoanCounter();
+        this.readerLoanCounter = new LoanCounter();
+        this.catalogStatistics = new CatalogStatistics(concurrent);
+        this.bitmapIndex = new CatalogBitmapIndex();
+    }
+
+    private <K, V> Map<K, V> newIndexMap() {
+        return concurrent ? new ConcurrentHashMap<>() : new HashMap<>();
+    }
+
+    private <V> Map<String, V> newIsbnMap() {
+        // ISBN-13 хранятся упакованными в long; IsbnKeyedMap не потокобезопасна
+        return concurrent ? new ConcurrentHashMap<>() : new IsbnKeyedMap<>();
+    }
+
+    private <T> Set<T> newIndexSet() {
+        return concurrent ? ConcurrentHashMap.newKeySet() : new HashSet<>();
+    }
+
+    private <T> Set<T> newIndexSet(int expectedSize) {
+        return concurrent ? ConcurrentHashMap.newKeySet(expectedSize) : HashSet.newHashSet(expectedSize);
+    }
+
+    private <V> NavigableMap<Integer, V> newYearMap() {
+        return concurrent ? new ConcurrentSkipListMap<>() : new TreeMap<>();
+    }
+
+    private <T> Set<T> newYearBucket() {
+        // LinkedHashSet сохраняет порядок добавления книг внутри года
+        return concurrent ? ConcurrentHashMap.newKeySet() : new LinkedHashSet<>();
+    }
+
+    private <T> List<T> newIndexList() {
+        return concurrent ? new CopyOnWriteArrayList<>() : new ArrayList<>();
+    }
+
+    /**
+     * История выдач только растёт, и копирование всего списка при каждой выдаче
+     * (как в CopyOnWriteArrayList) стоило бы O(история). Поэтому в потокобезопасном
+     * режиме это ArrayList под собственным монитором, а читатели получают снимок
+     */
+    private <T> List<T> newHistoryList() {
+        return concurrent ? Collections.synchronizedList(new ArrayList<>()) : new ArrayList<>();
+    }
+
+    // ============ Составные запросы ============
+
+    /**
+     * Создает построитель запроса по каталогу.
+     * Условия комбинируются свободно, а сам запрос выполняется только при вызове
+     * list()/stream()/count() — по самому избирательному из подходящих индексов
+     * @return пустой запрос (без условий возвращает все книги)
+     */
+    public BookQuery query() {
+        return new BookQuery(this);
+    }
+
+    // Доступ к индексам для планировщика BookQuery
+
+    Collection<Book> allBooksIndex() {
+        return library.values();
+    }
+
+    Collection<Book> genreIndex(Book.Genre genre) {
+        Set<Book> books = genreSetMap.get(genre);
+        return books == null ? Collections.emptySet() : books;
+    }
+
+    Collection<Book> authorIndex(String author) {
+        List<Book> books = authorsAndTheirBooks.get(author);
+        return books == null ? Collections.emptyList() : books;
+    }
+
+    /**
+     * @return корзины "год -> книги" жанра в диапазоне лет
+     */
+    Collection<Set<Book>> genreYearIndex(Book.Genre genre, int fromYear, int toYear) {
+        NavigableMap<Integer, Set<Book>> years = booksByGenreAndYear.get(genre);
+        if (years == null || fromYear > toYear) {
+            return Collections.emptyList();
+        }
+        return years.subMap(fromYear, true, toYear, true).values();
+    }
+
+    TitleIndex titleIndex() {
+        return titleIndex;
+    }
+
+    // ============ Подписка на изменения ============
+
+    /**
+     * Подписывает слушателя на изменения библиотеки
+     * @param listener слушатель
+     */
+    public void addChangeListener(LibraryChangeListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener must not be null");
+        }
+        listeners.add(listener);
+    }
+
+    /**
+     * Отписывает слушателя
+     * @param listener слушатель
+     * @return true если слушатель был подписан
+     */
+    public boolean removeChangeListener(LibraryChangeListener listener) {
+        return listeners.remove(listener);
+    }
+
+    private void publish(Consumer<LibraryChangeListener> event) {
+        for (LibraryChangeListener listener : listeners) {
+            event.accept(listener);
+        }
+    }
+
+    private void commit() {
+        for (LibraryChangeListener listener : listeners) {
+            listener.committed();
+        }
+    }
+
+    // ============ Метрики ============
+
+    /**
+     * Включает метрики: задержки основных операций и датчики размеров индексов.
+     * Повторный вызов возвращает уже включённые метрики. В ConcurrentLibraryManager
+     * задержка измеряется вне блокировки полосы, то есть вместе с её ожиданием
+     * @return метрики менеджера
+     */
+    public synchronized LibraryMetrics enableMetrics() {
+        LibraryMetrics current = metrics;
+        if (current != null) {
+            return current;
+        }
+        LibraryMetrics created = new LibraryMetrics();
+        created.gauge("library_books", () -> library.size());
+        created.gauge("library_readers", () -> readers.size());
+        created.gauge("library_borrowings", () -> borrowings.size());
+        created.gauge("library_active_borrowings", () -> activeBorrowingsByIsbn.size());
+        created.gauge("library_due_date_index_size", () -> dueDateIndex.size());
+        created.gauge("library_authors", () -> authorsAndTheirBooks.size());
+        created.gauge("library_archived_borrowings", () -> {
+            BorrowingArchive attached = archive;
+            return attached == null ? 0 : attached.size();
+        });
+        metrics = created;
+        return created;
+    }
+
+    /**
+     * Выключает метрики; накопленные значения остаются в ранее выданном объекте
+     */
+    public synchronized void disableMetrics() {
+        metrics = null;
+    }
+
+    /**
+     * @return включённые метрики или null
+     */
+    public LibraryMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return момент начала операции или 0, если метрики выключены
+     */
+    private long metricsStart() {
+        return metrics == null ? 0 : System.nanoTime();
+    }
+
+    private void recordMetrics(LibraryMetrics.Operation operation, long start, boolean succeeded) {
+        LibraryMetrics current = metrics;
+        // start == 0: метрики включили посреди операции
+        if (current != null && start != 0) {
+            current.record(operation, start, succeeded);
+        }
     }
 
     // ============ Методы для работы с книгами ============
 
     public boolean addBook(Book book) {
-        if (library.containsKey(book.getIsbn())) {
+        long start = metricsStart();
+        boolean added = insertBook(book);
+        recordMetrics(LibraryMetrics.Operation.ADD_BOOK, start, added);
+        return added;
+    }
+
+    /**
+     * Добавляет книгу без метрик; ConcurrentLibraryManager оборачивает его блокировкой
+     */
+    boolean insertBook(Book book) {
+        if (library.putIfAbsent(book.getIsbn(), book) != null) {
             return false; // Книга с таким ISBN уже есть
         }
 
-        library.put(book.getIsbn(), book);
-
-        // Обновляем genreSetMap
-        Set<Book> booksOfGenre = genreSetMap.get(book.getGenre());
-        if (booksOfGenre == null) {
-            booksOfGenre = new HashSet<>();
-            genreSetMap.put(book.getGenre(), booksOfGenre);
-        }
-        booksOfGenre.add(book);
+        // Обновляем genreSetMap (compute, чтобы параллельное удаление не выбросило набор из карты)
+        genreSetMap.compute(book.getGenre(), (genre, books) -> {
+            Set<Book> booksOfGenre = books == null ? newIndexSet() : books;
+            booksOfGenre.add(book);
+            return booksOfGenre;
+        });
 
         // Обновляем authorsAndTheirBooks
         for (String author : book.getAuthors()) {
-            List<Book> booksByAuthor = authorsAndTheirBooks.get(author);
-            if (booksByAuthor == null) {
-                booksByAuthor = new ArrayList<>();
-                authorsAndTheirBooks.put(author, booksByAuthor);
-            }
-            booksByAuthor.add(book);
+            authorsAndTheirBooks.compute(author, (name, books) -> {
+                List<Book> booksByAuthor = books == null ? newIndexList() : books;
+                booksByAuthor.add(book);
+                return booksByAuthor;
+            });
         }
 
+        // Пустые корзины лет не удаляются: их не больше, чем жанров * лет, зато
+        // добавление не конкурирует с удалением за саму корзину
+        booksByGenreAndYear.computeIfAbsent(book.getGenre(), genre -> newYearMap())
+                .computeIfAbsent(book.getPublicationYear(), year -> newYearBucket())
+                .add(book);
+
+        titleIndex.add(book);
+        catalogStatistics.bookAdded(book);
+        bitmapIndex.add(book);
+
+        publish(listener -> listener.bookAdded(book));
+        commit();
         return true;
     }
 
+    /**
+     * Массово добавляет книги (загрузка каталога).
+     * Вместо поштучного обновления индексы строятся целиком по всей пачке:
+     * книги группируются по жанрам, годам и авторам, а независимые индексы
+     * (названия, битовые, статистика) заполняются параллельно.
+     * Слушатели получают одно подтверждение на всю пачку.
+     * @param books книги для добавления
+     * @return количество добавленных книг (дубликаты ISBN пропускаются)
+     */
+    public int addBooks(Collection<Book> books) {
+        if (books == null) {
+            throw new IllegalArgumentException("Books must not be null");
+        }
+        // Вся пачка проверяется до первой вставки: иначе книги до ошибочной остались бы
+        // в каталоге, но не попали бы ни в индексы, ни к слушателям
+        for (Book book : books) {
+            if (book == null) {
+                throw new IllegalArgumentException("Book must not be null");
+            }
+            if (book.getIsbn() == null || book.getIsbn().isBlank()) {
+                throw new IllegalArgumentException("ISBN must not be null or blank");
+            }
+        }
+        List<Book> added = new ArrayList<>(books.size());
+        for (Book book : books) {
+            if (library.putIfAbsent(book.getIsbn(), book) == null) {
+                added.add(book);
+            }
+        }
+        if (added.isEmpty()) {
+            return 0;
+        }
+
+        // Каждый индекс заполняет ровно одна задача, поэтому обычные HashMap здесь безопасны;
+        // join() публикует результат всех задач текущему потоку
+        CompletableFuture<Void> titles = CompletableFuture.runAsync(() -> titleIndex.addAll(added));
+        CompletableFuture<Void> bitmaps = CompletableFuture.runAsync(() -> bitmapIndex.addAll(added));
+        CompletableFuture<Void> statistics = CompletableFuture.runAsync(() -> catalogStatistics.booksAdded(added));
+        CompletableFuture<Void> authors = CompletableFuture.runAsync(() -> indexAuthors(added));
+        indexGenresAndYears(added);
+        try {
+            CompletableFuture.allOf(titles, bitmaps, statistics, authors).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+
+        for (Book book : added) {
+            publish(listener -> listener.bookAdded(book));
+        }
+        commit();
+        return added.size();
+    }
+
+    private void indexGenresAndYears(List<Book> books) {
+        Map<Book.Genre, List<Book>> byGenre = new HashMap<>();
+        for (Book book : books) {
+            byGenre.computeIfAbsent(book.getGenre(), genre -> new ArrayList<>()).add(book);
+        }
+        byGenre.forEach((genre, booksOfGenre) -> {
+            genreSetMap.compute(genre, (g, existing) -> {
+                Set<Book> result = existing == null ? newIndexSet(booksOfGenre.size()) : existing;
+                result.addAll(booksOfGenre);
+                return result;
+            });
+            NavigableMap<Integer, Set<Book>> years = booksByGenreAndYear.computeIfAbsent(genre, g -> newYearMap());
+            for (Book book : booksOfGenre) {
+                years.computeIfAbsent(book.getPublicationYear(), year -> newYearBucket()).add(book);
+            }
+        });
+    }
+
+    private void indexAuthors(List<Book> books) {
+        Map<String, List<Book>> byAuthor = books.parallelStream()
+                .flatMap(book -> book.getAuthors().stream().map(author -> Map.entry(author, book)))
+                .collect(Collectors.groupingByConcurrent(Map.Entry::getKey,
+                        Collectors.mapping(Map.Entry::getValue, Collectors.toList())));
+        byAuthor.forEach((author, booksOfAuthor) -> authorsAndTheirBooks.compute(author, (name, existing) -> {
+            if (existing == null) {
+                return concurrent ? new CopyOnWriteArrayList<>(booksOfAuthor) : new ArrayList<>(booksOfAuthor);
+            }
+            existing.addAll(booksOfAuthor);
+            return existing;
+        }));
+    }
+
 
     /**
      * Получает книгу по ISBN
@@ -194,7 +523,10 @@ public class LibraryManager {
         if (isbn == null){
             throw new IllegalArgumentException("Пожалуйста введите isbn  в корректном формате");
         }
-        return library.get(isbn);
+        long start = metricsStart();
+        Book book = library.get(isbn);
+        recordMetrics(LibraryMetrics.Operation.GET_BOOK, start, book != null);
+        return book;
     }
 
     /**
@@ -206,7 +538,46 @@ public class LibraryManager {
         if (isbn == null){
             throw new IllegalArgumentException("Пожалуйста введите isbn  в корректном формате");
         }
-        return library.remove(isbn) != null;
+        long start = metricsStart();
+        boolean removed = deleteBook(isbn);
+        recordMetrics(LibraryMetrics.Operation.REMOVE_BOOK, start, removed);
+        return removed;
+    }
+
+    /**
+     * Удаляет книгу без метрик; ConcurrentLibraryManager оборачивает его блокировкой
+     */
+    boolean deleteBook(String isbn) {
+        Book removed = library.remove(isbn);
+        if (removed == null) {
+            return false;
+        }
+
+        // Убираем книгу из всех индексов, иначе статистика и поиск по автору "видят" удаленные книги
+        genreSetMap.computeIfPresent(removed.getGenre(), (genre, books) -> {
+            books.remove(removed);
+            return books.isEmpty() ? null : books;
+        });
+        for (String author : removed.getAuthors()) {
+            authorsAndTheirBooks.computeIfPresent(author, (name, books) -> {
+                books.remove(removed);
+                return books.isEmpty() ? null : books;
+            });
+        }
+        NavigableMap<Integer, Set<Book>> years = booksByGenreAndYear.get(removed.getGenre());
+        if (years != null) {
+            Set<Book> booksOfYear = years.get(removed.getPublicationYear());
+            if (booksOfYear != null) {
+                booksOfYear.remove(removed);
+            }
+        }
+        titleIndex.remove(removed);
+        catalogStatistics.bookRemoved(removed);
+        bitmapIndex.remove(removed);
+
+        publish(listener -> listener.bookRemoved(removed));
+        commit();
+        return true;
     }
 
     /**
@@ -217,6 +588,13 @@ public class LibraryManager {
         return new ArrayList<>(library.values());
     }
 
+    /**
+     * @return количество книг в каталоге (без копирования списка)
+     */
+    public int getBookCount() {
+        return library.size();
+    }
+
     /**
      * Возвращает список книг определенного жанра
      * @param genre жанр
@@ -245,31 +623,53 @@ public class LibraryManager {
     }
 
     /**
-     * Поиск книг по названию (частичное совпадение)
+     * Поиск книг по названию (частичное совпадение).
+     * Использует индекс триграмм, поэтому название книги, изменённое после
+     * addBook, будет найдено только после повторного добавления книги
      * @param titlePart часть названия
      * @return список книг
      */
     public List<Book> searchBooksByTitle(String titlePart) {
-        List<Book> result = new ArrayList<>();
-        for(Book book : library.values()){
-            if (book.getTitle() != null && book.getTitle().toLowerCase().contains(titlePart.toLowerCase())){
-                result.add(book);
-            }
+        long start = metricsStart();
+        LibraryEvents.TitleSearch event = new LibraryEvents.TitleSearch();
+        event.begin();
+        List<Book> found = titleIndex.search(titlePart);
+        recordMetrics(LibraryMetrics.Operation.SEARCH_BY_TITLE, start, true);
+        if (event.shouldCommit()) {
+            event.query = titlePart;
+            event.resultCount = found.size();
+            event.commit();
         }
-        return result;
+        return found;
     }
 
     /**
-     * Возвращает список доступных книг
+     * Возвращает список доступных книг. Кандидаты берутся из битового индекса, а доступность
+     * каждой книги перепроверяется по isAvailable(). Книгу, ставшую доступной через
+     * Book.setAvailable в обход менеджера, индекс не видит: выдавать и возвращать книги
+     * нужно через LibraryManager
      * @return список доступных книг
      */
     public List<Book> getAvailableBooks() {
-        List<Book> result = new ArrayList<>();
-        for (Book book : library.values()){
-            if (book.isAvailable())
-                result.add(book);
+        return bitmapIndex.availableBooks();
+    }
+
+    /**
+     * Находит книги по нескольким условиям сразу с помощью битовых индексов.
+     * Жанр и авторы, изменённые через сеттеры Book после addBook, индекс не видит
+     * до повторного добавления книги
+     * @param genre жанр или null, если жанр не важен
+     * @param onlyAvailable true, если нужны только доступные книги
+     * @param minAuthorsCount минимальное количество авторов (0 — без ограничения)
+     * @param fromYear первый год издания (включительно)
+     * @param toYear последний год издания (включительно)
+     * @return список книг
+     */
+    public List<Book> findBooks(Book.Genre genre, boolean onlyAvailable, int minAuthorsCount, int fromYear, int toYear) {
+        if (minAuthorsCount < 0) {
+            throw new IllegalArgumentException("Minimal authors count must not be negative");
         }
-        return result;
+        return bitmapIndex.find(genre, onlyAvailable, minAuthorsCount, fromYear, toYear);
     }
 
 
@@ -327,10 +727,11 @@ public class LibraryManager {
         if (reader == null){
             throw new IllegalArgumentException("reader cannot be null");
         }
-        if (readers.containsKey(reader.getId())){
+        if (readers.putIfAbsent(reader.getId(), reader) != null) {
             return false;
         }
-        readers.put(reader.getId(), reader);
+        publish(listener -> listener.readerAdded(reader));
+        commit();
         return true;
     }
 
@@ -355,9 +756,12 @@ public class LibraryManager {
         if (readerId == null || readerId.isBlank()){
             throw new IllegalArgumentException("Reader's id cannot be null or blank");
         }
-        if (readers.remove(readerId) == null) {
+        Reader removed = readers.remove(readerId);
+        if (removed == null) {
             return false;
         }
+        publish(listener -> listener.readerRemoved(removed));
+        commit();
         return true;
     }
 
@@ -369,6 +773,13 @@ public class LibraryManager {
         return new ArrayList<>(readers.values());
     }
 
+    /**
+     * @return количество зарегистрированных читателей (без копирования списка)
+     */
+    public int getReaderCount() {
+        return readers.size();
+    }
+
     // ============ Методы для выдачи и возврата книг ============
 
     /**
@@ -382,28 +793,243 @@ public class LibraryManager {
         if (isbn == null || isbn.isBlank() || readerId == null || readerId.isBlank()) {
             throw new IllegalArgumentException("ISBN and Reader ID must not be null or blank");
         }
+        long start = metricsStart();
+        LibraryEvents.Borrow event = new LibraryEvents.Borrow();
+        event.begin();
+        LocalDate today = LocalDate.now();
+        boolean borrowed = borrowBook(isbn, readerId, today, today.plusDays(borrowDays));
+        recordMetrics(LibraryMetrics.Operation.BORROW_BOOK, start, borrowed);
+        if (event.shouldCommit()) {
+            event.isbn = isbn;
+            event.readerId = readerId;
+            event.succeeded = borrowed;
+            event.commit();
+        }
+        return borrowed;
+    }
+
+    /**
+     * Выдает книгу с явно заданными датами (используется и при восстановлении из журнала)
+     */
+    boolean borrowBook(String isbn, String readerId, LocalDate borrowDate, LocalDate dueDate) {
         Book book = library.get(isbn);
         Reader reader = readers.get(readerId);
 
-
         if (book == null || reader == null){
             return false;
         }
 
-        for (Borrowing borrowing : borrowings){
-            if (borrowing.getIsbn().equals(isbn) && !borrowing.isReturned())
-                return false;
+        if (activeBorrowingsByIsbn.containsKey(isbn)) {
+            return false; // Книга уже выдана
         }
 
-        LocalDate today = LocalDate.now();
-        LocalDate dueDate = today.plusDays(borrowDays);
+        // Создадим новый объект выдачи и добавим его во все индексы
+        Borrowing borrowing = new Borrowing(isbn, readerId, borrowDate, dueDate);
+        registerBorrowing(borrowing);
 
-        // Создадим новый объект выдачи и добавим его в список Array list
+        publish(listener -> listener.bookBorrowed(borrowing));
+        commit();
+        return true;
+    }
 
-        borrowings.add(new Borrowing(isbn, readerId, today, dueDate));
-        book.setAvailable(false);
+    /**
+     * Восстанавливает выдачу из контрольной точки. В отличие от borrowBook не проверяет,
+     * что книга и читатель ещё существуют: история удаленных книг тоже должна сохраниться
+     */
+    void restoreBorrowing(Borrowing borrowing) {
+        BorrowingArchive archive = this.archive;
+        // Контрольная точка, снятая до переноса в архив, ещё содержит перенесённые выдачи
+        if (archive != null && archive.getWatermark() != null && borrowing.getReturnDate() != null
+                && borrowing.getReturnDate().isBefore(archive.getWatermark()) && archive.contains(borrowing)) {
+            return;
+        }
+        registerBorrowing(borrowing);
+    }
 
-        return true;
+    /**
+     * Помечает выданными книги с открытыми выдачами. Контрольная точка снимается
+     * без остановки записи, поэтому выдача может попасть в неё раньше своей книги:
+     * тогда книга, добавленная при проигрывании журнала, осталась бы "на полке",
+     * а повторная выдача из журнала была бы отклонена как уже оформленная
+     */
+    void restoreAvailability() {
+        for (Borrowing borrowing : activeBorrowingsByIsbn.values()) {
+            Book book = library.get(borrowing.getIsbn());
+            if (book != null && book.isAvailable()) {
+                book.setAvailable(false);
+                bitmapIndex.setAvailable(book, false);
+            }
+        }
+    }
+
+    // ============ Архив выдач ============
+
+    /**
+     * Подключает холодный архив выдач: история читателей и книг дальше включает
+     * и архивные выдачи. Счётчики рейтингов пополняются архивными выдачами,
+     * поэтому архив подключается до загрузки выдач в память — так делает LibraryStore,
+     * подключая его до чтения контрольной точки
+     * @param archive открытый архив
+     */
+    public void attachArchive(BorrowingArchive archive) {
+        if (archive == null) {
+            throw new IllegalArgumentException("Archive must not be null");
+        }
+        this.archive = archive;
+        // Номера архивных выдач не должны выдаваться повторно
+        borrowingSequence.accumulateAndGet(archive.getMaxSequence(), Math::max);
+
+        // Архивные выдачи ушли из памяти, но в рейтингах популярности должны остаться
+        Map<String, Integer> loansByIsbn = new HashMap<>();
+        Map<String, Integer> loansByReader = new HashMap<>();
+        archive.stream().forEach(borrowing -> {
+            loansByIsbn.merge(borrowing.getIsbn(), 1, Integer::sum);
+            loansByReader.merge(borrowing.getReaderId(), 1, Integer::sum);
+        });
+        loansByIsbn.forEach(bookLoanCounter::add);
+        loansByReader.forEach(readerLoanCounter::add);
+    }
+
+    public BorrowingArchive getArchive() {
+        return archive;
+    }
+
+    /**
+     * Переносит в архив выдачи, возвращённые раньше заданного срока назад, и убирает
+     * их из памяти. Рейтинги популярности не меняются: счётчики выдач остаются прежними,
+     * а после перезапуска восстанавливаются из архива при его подключении
+     * @param minAge сколько времени должно пройти после возврата
+     * @return количество перенесённых выдач
+     */
+    public int archiveReturnedBorrowings(Period minAge) throws IOException {
+        if (minAge == null || minAge.isNegative()) {
+            throw new IllegalArgumentException("Age must not be null or negative");
+        }
+        return archiveReturnedBorrowings(LocalDate.now().minus(minAge));
+    }
+
+    int archiveReturnedBorrowings(LocalDate returnedBefore) throws IOException {
+        BorrowingArchive archive = this.archive;
+        if (archive == null) {
+            throw new IllegalStateException("Archive is not attached");
+        }
+        synchronized (archive) {
+            List<Borrowing> moved = new ArrayList<>();
+            for (Borrowing borrowing : borrowings) {
+                LocalDate returnDate = borrowing.getReturnDate();
+                if (returnDate != null && returnDate.isBefore(returnedBefore)) {
+                    moved.add(borrowing);
+                }
+            }
+            // Сначала выдачи становятся видны в архиве, и только потом пропадают из памяти:
+            // в промежутке запрос истории увидит их дважды, но merge отбросит повтор
+            archive.append(moved, returnedBefore);
+            if (moved.isEmpty()) {
+                return 0;
+            }
+
+            Set<Borrowing> movedSet = Collections.newSetFromMap(new IdentityHashMap<>(moved.size()));
+            movedSet.addAll(moved);
+            Set<String> readerIds = new HashSet<>();
+            Set<String> isbns = new HashSet<>();
+            for (Borrowing borrowing : moved) {
+                readerIds.add(borrowing.getReaderId());
+                isbns.add(borrowing.getIsbn());
+            }
+            borrowings.removeIf(movedSet::contains);
+            for (String readerId : readerIds) {
+                pruneHistory(borrowingHistoryByReader, readerId, movedSet);
+            }
+            for (String isbn : isbns) {
+                pruneHistory(borrowingHistoryByIsbn, isbn, movedSet);
+            }
+            return moved.size();
+        }
+    }
+
+    private static void pruneHistory(Map<String, List<Borrowing>> historyIndex, String key, Set<Borrowing> moved) {
+        historyIndex.computeIfPresent(key, (id, history) -> {
+            history.removeIf(moved::contains);
+            return history.isEmpty() ? null : history;
+        });
+    }
+
+    /**
+     * История из памяти плюс архивная; повторы (выдача в процессе переноса) отбрасываются
+     */
+    private List<Borrowing> withArchived(List<Borrowing> archived, List<Borrowing> history) {
+        if (archived.isEmpty()) {
+            return historyView(history);
+        }
+        // Конструктор копирования берёт toArray(), а он у synchronizedList выполняется под монитором
+        List<Borrowing> hot = history == null ? new ArrayList<>() : new ArrayList<>(history);
+        // Параллельные выдачи дописываются в историю не в порядке номеров, а слияние
+        // и отбрасывание соседних повторов требуют отсортированных списков
+        hot.sort((a, b) -> Long.compare(a.getSequence(), b.getSequence()));
+        List<Borrowing> result = new ArrayList<>(archived.size() + hot.size());
+        int i = 0;
+        int j = 0;
+        while (i < archived.size() || j < hot.size()) {
+            Borrowing next;
+            if (j == hot.size() || i < archived.size()
+                    && archived.get(i).getSequence() <= hot.get(j).getSequence()) {
+                next = archived.get(i++);
+            } else {
+                next = hot.get(j++);
+            }
+            if (result.isEmpty() || result.getLast().getSequence() != next.getSequence()) {
+                result.add(next);
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * @return true, если индексы построены на concurrent-коллекциях и их можно
+     * читать из другого потока во время записи
+     */
+    boolean isConcurrent() {
+        return concurrent;
+    }
+
+    /**
+     * @return порядковый номер последней оформленной выдачи
+     */
+    long getLastBorrowingSequence() {
+        return borrowingSequence.get();
+    }
+
+    private void registerBorrowing(Borrowing borrowing) {
+        String isbn = borrowing.getIsbn();
+        String readerId = borrowing.getReaderId();
+
+        if (borrowing.getSequence() == 0) {
+            borrowing.setSequence(borrowingSequence.incrementAndGet());
+        } else {
+            // Восстановленная выдача сохраняет свой номер, счётчик догоняет его
+            borrowingSequence.accumulateAndGet(borrowing.getSequence(), Math::max);
+        }
+        borrowings.add(borrowing);
+        bookLoanCounter.increment(isbn);
+        readerLoanCounter.increment(readerId);
+        borrowingHistoryByReader.computeIfAbsent(readerId, id -> newHistoryList()).add(borrowing);
+        borrowingHistoryByIsbn.computeIfAbsent(isbn, id -> newHistoryList()).add(borrowing);
+        if (borrowing.isReturned()) {
+            return;
+        }
+
+        dueDateIndex.add(borrowing);
+        activeBorrowingsByIsbn.put(isbn, borrowing);
+        activeBorrowingsByReader.compute(readerId, (id, readerLoans) -> {
+            Map<String, Borrowing> loans = readerLoans == null ? newIndexMap() : readerLoans;
+            loans.put(isbn, borrowing);
+            return loans;
+        });
+        Book book = library.get(isbn);
+        if (book != null) {
+            book.setAvailable(false);
+            bitmapIndex.setAvailable(book, false);
+        }
     }
 
     /**
@@ -417,48 +1043,275 @@ public class LibraryManager {
             throw new IllegalArgumentException("ISBN and Reader ID must not be null or blank");
         }
 
+        long start = metricsStart();
+        LibraryEvents.Return event = new LibraryEvents.Return();
+        event.begin();
+        boolean returned = returnBook(isbn, readerId, LocalDate.now());
+        recordMetrics(LibraryMetrics.Operation.RETURN_BOOK, start, returned);
+        if (event.shouldCommit()) {
+            event.isbn = isbn;
+            event.readerId = readerId;
+            event.succeeded = returned;
+            event.commit();
+        }
+        return returned;
+    }
+
+    /**
+     * Принимает книгу с явно заданной датой возврата (используется и при восстановлении из журнала)
+     */
+    boolean returnBook(String isbn, String readerId, LocalDate returnDate) {
         Book book = library.get(isbn);
         Reader reader = readers.get(readerId);
 
         if (book == null || reader == null){
             return false;
         }
-        for (Borrowing borowwing : borrowings){
-            if (borowwing.getIsbn().equals(isbn) && borowwing.getReaderId().equals(readerId) && !borowwing.isReturned()){
-                borowwing.returnBook(LocalDate.now());
-                book.setAvailable(true);
-                return true;
+        Borrowing borrowing = findActiveBorrowing(isbn, readerId);
+        if (borrowing == null) {
+            return false;
+        }
+
+        borrowing.returnBook(returnDate);
+        dueDateIndex.remove(borrowing);
+        activeBorrowingsByIsbn.remove(isbn);
+        // compute атомарен для ConcurrentHashMap: пустая карта не удалится под чужой выдачей
+        activeBorrowingsByReader.computeIfPresent(readerId, (id, readerLoans) -> {
+            readerLoans.remove(isbn);
+            return readerLoans.isEmpty() ? null : readerLoans;
+        });
+        book.setAvailable(true);
+        bitmapIndex.setAvailable(book, true);
+
+        publish(listener -> listener.bookReturned(borrowing));
+        commit();
+        return true;
+    }
+
+    /**
+     * Выдает читателю сразу несколько книг по принципу "всё или ничего".
+     * Читатель и книги проверяются один раз до каких-либо изменений; если хотя бы
+     * одна книга не найдена или уже выдана, не выдается ни одна. Индексы читателя
+     * обновляются один раз на всю пачку, слушатели получают одно подтверждение.
+     * @param readerId ID читателя
+     * @param isbns ISBN книг (без повторов)
+     * @param borrowDays количество дней, на которое выдаются книги
+     * @return true если выданы все книги, false если не выдана ни одна
+     */
+    public boolean borrowBooks(String readerId, Collection<String> isbns, int borrowDays) {
+        validateBatch(readerId, isbns);
+        long start = metricsStart();
+        LocalDate today = LocalDate.now();
+        boolean borrowed = borrowBooks(readerId, isbns, today, today.plusDays(borrowDays));
+        recordMetrics(LibraryMetrics.Operation.BORROW_BOOKS, start, borrowed);
+        return borrowed;
+    }
+
+    /**
+     * Выдает пачку книг с явно заданными датами; аргументы уже проверены
+     */
+    boolean borrowBooks(String readerId, Collection<String> isbns, LocalDate borrowDate, LocalDate dueDate) {
+        if (readers.get(readerId) == null) {
+            return false;
+        }
+        List<Book> books = new ArrayList<>(isbns.size());
+        for (String isbn : isbns) {
+            Book book = library.get(isbn);
+            if (book == null || activeBorrowingsByIsbn.containsKey(isbn)) {
+                return false;
             }
+            books.add(book);
+        }
+
+        List<Borrowing> batch = new ArrayList<>(books.size());
+        for (Book book : books) {
+            Borrowing borrowing = new Borrowing(book.getIsbn(), readerId, borrowDate, dueDate);
+            borrowing.setSequence(borrowingSequence.incrementAndGet());
+            batch.add(borrowing);
+        }
+        borrowings.addAll(batch);
+        readerLoanCounter.add(readerId, batch.size());
+        borrowingHistoryByReader.computeIfAbsent(readerId, id -> newHistoryList()).addAll(batch);
+        activeBorrowingsByReader.compute(readerId, (id, readerLoans) -> {
+            Map<String, Borrowing> loans = readerLoans == null ? newIndexMap() : readerLoans;
+            for (Borrowing borrowing : batch) {
+                loans.put(borrowing.getIsbn(), borrowing);
+            }
+            return loans;
+        });
+        for (int i = 0; i < batch.size(); i++) {
+            Borrowing borrowing = batch.get(i);
+            Book book = books.get(i);
+            bookLoanCounter.increment(book.getIsbn());
+            borrowingHistoryByIsbn.computeIfAbsent(book.getIsbn(), id -> newHistoryList()).add(borrowing);
+            dueDateIndex.add(borrowing);
+            activeBorrowingsByIsbn.put(book.getIsbn(), borrowing);
+            book.setAvailable(false);
+            bitmapIndex.setAvailable(book, false);
+        }
+
+        for (Borrowing borrowing : batch) {
+            publish(listener -> listener.bookBorrowed(borrowing));
         }
-        return false;
+        commit();
+        return true;
     }
 
     /**
-     * Получает список всех выданных книг
+     * Принимает от читателя сразу несколько книг по принципу "всё или ничего":
+     * если хотя бы одна из книг не числится за читателем, не принимается ни одна.
+     * Как и returnBook, отказывает, если читателя или одной из книг уже нет в библиотеке
+     * @param readerId ID читателя
+     * @param isbns ISBN книг (без повторов)
+     * @return true если приняты все книги, false если не принята ни одна
+     */
+    public boolean returnBooks(String readerId, Collection<String> isbns) {
+        validateBatch(readerId, isbns);
+        long start = metricsStart();
+        boolean returned = returnBooks(readerId, isbns, LocalDate.now());
+        recordMetrics(LibraryMetrics.Operation.RETURN_BOOKS, start, returned);
+        return returned;
+    }
+
+    /**
+     * Принимает пачку книг с явно заданной датой возврата; аргументы уже проверены
+     */
+    boolean returnBooks(String readerId, Collection<String> isbns, LocalDate returnDate) {
+        Map<String, Borrowing> readerLoans = activeBorrowingsByReader.get(readerId);
+        if (readerLoans == null || readers.get(readerId) == null) {
+            return false;
+        }
+        List<Borrowing> batch = new ArrayList<>(isbns.size());
+        List<Book> books = new ArrayList<>(isbns.size());
+        for (String isbn : isbns) {
+            Borrowing borrowing = readerLoans.get(isbn);
+            Book book = library.get(isbn);
+            if (borrowing == null || book == null) {
+                return false;
+            }
+            batch.add(borrowing);
+            books.add(book);
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            Borrowing borrowing = batch.get(i);
+            borrowing.returnBook(returnDate);
+            dueDateIndex.remove(borrowing);
+            activeBorrowingsByIsbn.remove(borrowing.getIsbn());
+            books.get(i).setAvailable(true);
+            bitmapIndex.setAvailable(books.get(i), true);
+        }
+        activeBorrowingsByReader.computeIfPresent(readerId, (id, loans) -> {
+            for (Borrowing borrowing : batch) {
+                loans.remove(borrowing.getIsbn());
+            }
+            return loans.isEmpty() ? null : loans;
+        });
+
+        for (Borrowing borrowing : batch) {
+            publish(listener -> listener.bookReturned(borrowing));
+        }
+        commit();
+        return true;
+    }
+
+    private static void validateBatch(String readerId, Collection<String> isbns) {
+        if (readerId == null || readerId.isBlank()) {
+            throw new IllegalArgumentException("Reader ID must not be null or blank");
+        }
+        if (isbns == null || isbns.isEmpty()) {
+            throw new IllegalArgumentException("ISBN list must not be null or empty");
+        }
+        Set<String> unique = new HashSet<>();
+        for (String isbn : isbns) {
+            if (isbn == null || isbn.isBlank()) {
+                throw new IllegalArgumentException("ISBN must not be null or blank");
+            }
+            if (!unique.add(isbn)) {
+                throw new IllegalArgumentException("Duplicate ISBN in batch: " + isbn);
+            }
+        }
+    }
+
+    /**
+     * Ищет открытую выдачу книги конкретному читателю за O(1)
+     * @param isbn ISBN книги
+     * @param readerId ID читателя
+     * @return выдача или null, если такой открытой выдачи нет
+     */
+    Borrowing findActiveBorrowing(String isbn, String readerId) {
+        Map<String, Borrowing> readerLoans = activeBorrowingsByReader.get(readerId);
+        return readerLoans == null ? null : readerLoans.get(isbn);
+    }
+
+    /**
+     * Получает список всех выданных книг (вместе с архивными, если архив подключен)
      * @return список выдач
      */
     public List<Borrowing> getAllBorrowings() {
+        BorrowingArchive archive = this.archive;
+        if (archive == null) {
+            return new ArrayList<>(borrowings);
+        }
+        List<Borrowing> result = new ArrayList<>(archive.stream().toList());
+        Set<Long> archived = new HashSet<>();
+        for (Borrowing borrowing : result) {
+            archived.add(borrowing.getSequence());
+        }
+        for (Borrowing borrowing : borrowings) {
+            if (!archived.contains(borrowing.getSequence())) {
+                result.add(borrowing);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return выдачи, которые ещё хранятся в памяти (без архива)
+     */
+    List<Borrowing> getHotBorrowings() {
         return new ArrayList<>(borrowings);
     }
 
+    /**
+     * Получает список книг, которые читатель держит на руках прямо сейчас
+     * @param readerId ID читателя
+     * @return список открытых выдач читателя
+     */
+    public List<Borrowing> getActiveBorrowingsByReader(String readerId) {
+        if (readerId == null || readerId.isBlank()){
+            throw new IllegalArgumentException(" Reader ID must not be null or blank");
+        }
+        Map<String, Borrowing> readerLoans = activeBorrowingsByReader.get(readerId);
+        if (readerLoans == null) {
+            return Collections.emptyList();
+        }
+        return new ArrayList<>(readerLoans.values());
+    }
+
     /**
      * Получает список просроченных выдач
      * @return список просроченных выдач
      */
     public List<Borrowing> getOverdueBorrowings() {
-        List<Borrowing> overDue = new ArrayList<>();
-        for(Borrowing b : borrowings){
-            if(b.isOverdue()){
-                overDue.add(b);
-            }
-        }
-        return overDue;
-
+        long start = metricsStart();
+        List<Borrowing> overdue = new ArrayList<>(dueDateIndex.overdueAt(LocalDate.now()));
+        recordMetrics(LibraryMetrics.Operation.OVERDUE_BORROWINGS, start, true);
+        return overdue;
+    }
 
+    /**
+     * @return количество просроченных выдач; считается по индексу сроков без копирования выдач
+     */
+    public int getOverdueCount() {
+        return dueDateIndex.overdueAt(LocalDate.now()).size();
     }
 
     /**
-     * Получает историю выдач для конкретного читателя
+     * Получает историю выдач для конкретного читателя.
+     * Возвращается представление только для чтения, без копирования истории
+     * (в потокобезопасном менеджере — снимок истории);
+     * если к менеджеру подключен архив, архивные выдачи сливаются с историей по номеру выдачи
      * @param readerId ID читателя
      * @return список выдач
      */
@@ -466,19 +1319,29 @@ public class LibraryManager {
         if (readerId == null || readerId.isBlank()){
             throw new IllegalArgumentException(" Reader ID must not be null or blank");
         }
-
-        List<Borrowing>  borrowingsByReader = new ArrayList<>();
-        for (Borrowing b : borrowings){
-            if (b.getReaderId().equals(readerId)){
-                borrowingsByReader.add(b);
-            }
+        BorrowingArchive archive = this.archive;
+        if (archive == null) {
+            return historyView(borrowingHistoryByReader.get(readerId));
         }
+        return withArchived(archive.findByReader(readerId), borrowingHistoryByReader.get(readerId));
+    }
 
-        return borrowingsByReader;
+    /**
+     * Получает страницу истории выдач читателя (в порядке выдачи)
+     * @param readerId ID читателя
+     * @param offset номер первой выдачи на странице
+     * @param limit максимальный размер страницы
+     * @return список выдач только для чтения
+     */
+    public List<Borrowing> getBorrowingsByReader(String readerId, int offset, int limit) {
+        return page(getBorrowingsByReader(readerId), offset, limit);
     }
 
     /**
-     * Получает историю выдач для конкретной книги
+     * Получает историю выдач для конкретной книги.
+     * Возвращается представление только для чтения, без копирования истории
+     * (в потокобезопасном менеджере — снимок истории);
+     * если к менеджеру подключен архив, архивные выдачи сливаются с историей по номеру выдачи
      * @param isbn ISBN книги
      * @return список выдач
      */
@@ -486,13 +1349,45 @@ public class LibraryManager {
         if (isbn == null || isbn.isBlank()){
             throw new IllegalArgumentException("ISBN and Reader ID must not be null or blank");
         }
-        List<Borrowing> borrowingsByBook = new ArrayList<>();
-        for (Borrowing b : borrowings){
-            if(isbn.equals(b.getIsbn())){
-                borrowingsByBook.add(b);
+        BorrowingArchive archive = this.archive;
+        if (archive == null) {
+            return historyView(borrowingHistoryByIsbn.get(isbn));
+        }
+        return withArchived(archive.findByBook(isbn), borrowingHistoryByIsbn.get(isbn));
+    }
+
+    /**
+     * Получает страницу истории выдач книги (в порядке выдачи)
+     * @param isbn ISBN книги
+     * @param offset номер первой выдачи на странице
+     * @param limit максимальный размер страницы
+     * @return список выдач только для чтения
+     */
+    public List<Borrowing> getBorrowingsByBook(String isbn, int offset, int limit) {
+        return page(getBorrowingsByBook(isbn), offset, limit);
+    }
+
+    private List<Borrowing> historyView(List<Borrowing> history) {
+        if (history == null) {
+            return Collections.emptyList();
+        }
+        if (concurrent) {
+            // Итерация по synchronizedList без монитора небезопасна — отдаём копию
+            synchronized (history) {
+                return List.copyOf(history);
             }
         }
-        return borrowingsByBook;
+        return Collections.unmodifiableList(history);
+    }
+
+    private List<Borrowing> page(List<Borrowing> history, int offset, int limit) {
+        if (offset < 0 || limit <= 0) {
+            throw new IllegalArgumentException("Offset must not be negative, limit must be greater than zero");
+        }
+        if (offset >= history.size()) {
+            return Collections.emptyList();
+        }
+        return history.subList(offset, Math.min(history.size(), offset + limit));
     }
 
     /**
@@ -506,6 +1401,16 @@ public class LibraryManager {
         if(isbn == null || isbn.isBlank() || readerId == null || readerId.isBlank()|| additionalDays == 0){
             throw new IllegalArgumentException("ISBN and Reader ID must not be null or blank, additional days must be grater then zero");
         }
+        long start = metricsStart();
+        boolean extended = extendDueDate(isbn, readerId, additionalDays);
+        recordMetrics(LibraryMetrics.Operation.EXTEND_BORROWING, start, extended);
+        return extended;
+    }
+
+    /**
+     * Продлевает срок без метрик; ConcurrentLibraryManager оборачивает его блокировкой
+     */
+    boolean extendDueDate(String isbn, String readerId, int additionalDays) {
         Book book = library.get(isbn);
         Reader reader = readers.get(readerId);
 
@@ -513,19 +1418,17 @@ public class LibraryManager {
             return false;
         }
 
-
-        for (Borrowing b : borrowings) {
-            if (b.getIsbn().equals(isbn) &&
-                    b.getReaderId().equals(readerId) &&
-                    !b.isReturned()) {
-
-                LocalDate newDueDate = b.getDueDate().plusDays(additionalDays);
-                b.setDueDate(newDueDate);
-                return true;
-            }
+        Borrowing b = findActiveBorrowing(isbn, readerId);
+        if (b == null) {
+            return false;
         }
 
-        return false;
+        LocalDate newDueDate = b.getDueDate().plusDays(additionalDays);
+        b.setDueDate(newDueDate); // выдача переставляется в индексе сроков
+
+        publish(listener -> listener.borrowingExtended(b));
+        commit();
+        return true;
     }
 
 
@@ -536,15 +1439,48 @@ public class LibraryManager {
      * @return карта "жанр -> количество книг"
      */
     public Map<Book.Genre, Integer> getGenreStatistics() {
-        Map<Book.Genre, Integer> genreStats = new HashMap<>();
+        long start = metricsStart();
+        LibraryEvents.Statistics event = startStatisticsEvent();
+        Map<Book.Genre, Integer> statistics = catalogStatistics.genreCounts();
+        recordMetrics(LibraryMetrics.Operation.GENRE_STATISTICS, start, true);
+        commitStatisticsEvent(event, "getGenreStatistics", statistics.size());
+        return statistics;
+    }
 
-        for (Map.Entry<Book.Genre, Set<Book>> entry : genreSetMap.entrySet()) {
-            Book.Genre genre = entry.getKey();
-            int count = entry.getValue().size();
-            genreStats.put(genre, count);
+    /**
+     * Возвращает количество книг жанра без построения карты статистики
+     * @param genre жанр
+     * @return количество книг
+     */
+    public int getBookCountByGenre(Book.Genre genre) {
+        if (genre == null) {
+            throw new IllegalArgumentException("Genre must not be null");
         }
+        return catalogStatistics.countByGenre(genre);
+    }
 
-        return genreStats;
+    /**
+     * Возвращает статистику по годам издания
+     * @return карта только для чтения "год -> количество книг", упорядоченная по году
+     */
+    public NavigableMap<Integer, Integer> getYearStatistics() {
+        LibraryEvents.Statistics event = startStatisticsEvent();
+        NavigableMap<Integer, Integer> statistics = catalogStatistics.yearCounts();
+        commitStatisticsEvent(event, "getYearStatistics", statistics.size());
+        return statistics;
+    }
+
+    /**
+     * Возвращает количество книг автора
+     * @param author автор
+     * @return количество книг
+     */
+    public int getBookCountByAuthor(String author) {
+        if (author == null || author.isBlank()) {
+            return 0;
+        }
+        List<Book> books = authorsAndTheirBooks.get(author);
+        return books == null ? 0 : books.size();
     }
 
     /**
@@ -556,31 +1492,20 @@ public class LibraryManager {
         if (limit <= 0) {
             throw new IllegalArgumentException("Limit must be greater than zero");
         }
+        long start = metricsStart();
+        LibraryEvents.Statistics event = startStatisticsEvent();
 
-        // Подсчёт количества выдач по ISBN
-        Map<String, Integer> countByIsbn = new HashMap<>();
-        for (Borrowing borrowing : borrowings) {
-            String isbn = borrowing.getIsbn();
-            countByIsbn.put(isbn, countByIsbn.getOrDefault(isbn, 0) + 1);
-        }
-
-        // Сортировка по убыванию количества выдач
-        List<Map.Entry<String, Integer>> sortedEntries = new ArrayList<>(countByIsbn.entrySet());
-        Collections.sort(sortedEntries, new PopularBookComparator());
-
-        // Построение итоговой мапы: Book -> количество выдач
+        // Рейтинг отбирает первые limit книг, которые ещё есть в библиотеке
         Map<Book, Integer> result = new LinkedHashMap<>();
-        int count = 0;
-        for (Map.Entry<String, Integer> entry : sortedEntries) {
-            if (count >= limit) break;
-
+        for (Map.Entry<String, Integer> entry : bookLoanCounter.top(limit, library::containsKey)) {
             Book book = library.get(entry.getKey());
             if (book != null) {
                 result.put(book, entry.getValue());
-                count++;
             }
         }
 
+        recordMetrics(LibraryMetrics.Operation.MOST_POPULAR_BOOKS, start, true);
+        commitStatisticsEvent(event, "getMostPopularBooks", result.size());
         return result;
     }
 
@@ -593,32 +1518,18 @@ public class LibraryManager {
         if (limit <= 0) {
             throw new IllegalArgumentException("Limit must be greater than zero");
         }
+        LibraryEvents.Statistics event = startStatisticsEvent();
 
-        // Подсчёт количества выдач по readerId
-        Map<String, Integer> countByReader = new HashMap<>();
-        for (Borrowing b : borrowings) {
-            String readerId = b.getReaderId();
-            countByReader.put(readerId, countByReader.getOrDefault(readerId, 0) + 1);
-        }
-
-        // Сортировка по убыванию количества выдач
-        List<Map.Entry<String, Integer>> sortedEntries = new ArrayList<>(countByReader.entrySet());
-        sortedEntries.sort((a, b) -> b.getValue() - a.getValue());
-
-        // Формирование результата
         Map<Reader, Integer> result = new LinkedHashMap<>();
-        int count = 0;
-        for (Map.Entry<String, Integer> entry : sortedEntries) {
-            if (count >= limit) break;
+        for (Map.Entry<String, Integer> entry : readerLoanCounter.top(limit, readers::containsKey)) {
             Reader reader = readers.get(entry.getKey());
             if (reader != null) {
                 result.put(reader, entry.getValue());
-                count++;
             }
         }
 
+        commitStatisticsEvent(event, "getMostActiveReaders", result.size());
         return result;
-
     }
 
     /**
@@ -626,12 +1537,11 @@ public class LibraryManager {
      * @return список читателей с просроченными книгами
      */
     public List<Reader> getReadersWithOverdueBooks() {
-        Set<String> overdueReaderIds = new HashSet<>();
+        LibraryEvents.Statistics event = startStatisticsEvent();
+        Set<String> overdueReaderIds = new LinkedHashSet<>();
 
-        for (Borrowing b : borrowings) {
-            if (b.isOverdue()) {
-                overdueReaderIds.add(b.getReaderId());
-            }
+        for (Borrowing b : dueDateIndex.overdueAt(LocalDate.now())) {
+            overdueReaderIds.add(b.getReaderId());
         }
 
         List<Reader> result = new ArrayList<>();
@@ -642,9 +1552,24 @@ public class LibraryManager {
             }
         }
 
+        commitStatisticsEvent(event, "getReadersWithOverdueBooks", result.size());
         return result;
     }
 
+    private static LibraryEvents.Statistics startStatisticsEvent() {
+        LibraryEvents.Statistics event = new LibraryEvents.Statistics();
+        event.begin();
+        return event;
+    }
+
+    private static void commitStatisticsEvent(LibraryEvents.Statistics event, String method, int resultCount) {
+        if (event.shouldCommit()) {
+            event.method = method;
+            event.resultCount = resultCount;
+            event.commit();
+        }
+    }
+
     // ============ Методы для работы с итераторами ============
 
     /**
@@ -654,7 +1579,18 @@ public class LibraryManager {
      * @return итератор
      */
     public Iterator<Book> getBooksByGenreAndYearIterator(Book.Genre genre, int year) {
-        return new BooksByGenreAndYearIterator(genre, year);
+        return new BooksByGenreAndYearIterator(genre, year, year);
+    }
+
+    /**
+     * Создает итератор для просмотра книг определенного жанра, изданных в диапазоне лет
+     * @param genre жанр книг
+     * @param fromYear первый год диапазона (включительно)
+     * @param toYear последний год диапазона (включительно)
+     * @return итератор, книги идут по возрастанию года издания
+     */
+    public Iterator<Book> getBooksByGenreAndYearRangeIterator(Book.Genre genre, int fromYear, int toYear) {
+        return new BooksByGenreAndYearIterator(genre, fromYear, toYear);
     }
 
     /**
@@ -673,4 +1609,72 @@ public class LibraryManager {
     public Iterator<Borrowing> getOverdueBorrowingsIterator() {
         return new OverdueBorrowingsIterator();
     }
-}
\ No newline at end of file
+
+    // ============ Потоки (Stream) для отчетов ============
+
+    /**
+     * Поток всех книг каталога.
+     * Потоки строятся по снимку индекса в массив: такой Spliterator знает точный размер
+     * (SIZED/SUBSIZED) и делится пополам без потерь, поэтому parallel() равномерно
+     * распределяет работу по ForkJoinPool. Изменения после создания потока в него не попадают.
+     * @return последовательный поток; для параллельной обработки вызовите parallel()
+     */
+    public Stream<Book> streamBooks() {
+        return snapshotStream(library.values());
+    }
+
+    /**
+     * Поток книг жанра, изданных в диапазоне лет, по возрастанию года издания
+     * @param genre жанр книг
+     * @param fromYear первый год диапазона (включительно)
+     * @param toYear последний год диапазона (включительно)
+     * @return поток книг
+     */
+    public Stream<Book> streamBooksByGenreAndYear(Book.Genre genre, int fromYear, int toYear) {
+        NavigableMap<Integer, Set<Book>> years = genre == null ? null : booksByGenreAndYear.get(genre);
+        if (years == null || fromYear > toYear) {
+            return Stream.empty();
+        }
+        List<Book> books = new ArrayList<>();
+        for (Set<Book> booksOfYear : years.subMap(fromYear, true, toYear, true).values()) {
+            books.addAll(booksOfYear);
+        }
+        return snapshotStream(books);
+    }
+
+    /**
+     * Поток книг, у которых не меньше minAuthorsCount авторов
+     * @param minAuthorsCount минимальное количество авторов
+     * @return поток книг
+     */
+    public Stream<Book> streamBooksWithMultipleAuthors(int minAuthorsCount) {
+        // find() уже возвращает свежий ArrayList — его Spliterator тоже SIZED/SUBSIZED
+        return bitmapIndex.find(null, false, minAuthorsCount, Integer.MIN_VALUE, Integer.MAX_VALUE).stream();
+    }
+
+    /**
+     * Поток всех выдач (включая закрытые и архивные)
+     * @return поток выдач
+     */
+    public Stream<Borrowing> streamBorrowings() {
+        if (archive != null) {
+            return getAllBorrowings().stream();
+        }
+        return snapshotStream(borrowings);
+    }
+
+    /**
+     * Поток просроченных выдач в порядке срока возврата
+     * @return поток выдач
+     */
+    public Stream<Borrowing> streamOverdueBorrowings() {
+        return snapshotStream(dueDateIndex.overdueAt(LocalDate.now()));
+    }
+
+    private static <T> Stream<T> snapshotStream(Collection<T> source) {
+        // Spliterators.spliterator(array, ...) сам добавляет SIZED и SUBSIZED
+        Spliterator<T> spliterator = Spliterators.spliterator(source.toArray(),
+                Spliterator.ORDERED | Spliterator.IMMUTABLE | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false);
+    }
+}
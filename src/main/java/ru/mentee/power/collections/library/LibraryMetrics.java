@@ -0,0 +1,175 @@
+package ru.mentee.power.collections.library;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Метрики LibraryManager: гистограмма задержек и счётчик отказов для каждой
+ * измеряемой операции, произвольные счётчики (LongAdder) и датчики (gauge)
+ * размеров внутренних структур. Запись не берёт блокировок; датчики
+ * вычисляются только при экспорте.
+ * <p>
+ * Включаются через {@link LibraryManager#enableMetrics()}; пока метрики
+ * выключены, операции менеджера не вызывают даже System.nanoTime().
+ */
+public final class LibraryMetrics {
+
+    /**
+     * Измеряемые операции LibraryManager
+     */
+    public enum Operation {
+        ADD_BOOK("addBook"),
+        REMOVE_BOOK("removeBook"),
+        GET_BOOK("getBookByIsbn"),
+        SEARCH_BY_TITLE("searchBooksByTitle"),
+        BORROW_BOOK("borrowBook"),
+        RETURN_BOOK("returnBook"),
+        BORROW_BOOKS("borrowBooks"),
+        RETURN_BOOKS("returnBooks"),
+        EXTEND_BORROWING("extendBorrowingPeriod"),
+        OVERDUE_BORROWINGS("getOverdueBorrowings"),
+        GENRE_STATISTICS("getGenreStatistics"),
+        MOST_POPULAR_BOOKS("getMostPopularBooks");
+
+        private final String methodName;
+
+        Operation(String methodName) {
+            this.methodName = methodName;
+        }
+
+        public String getMethodName() {
+            return methodName;
+        }
+    }
+
+    private final Map<Operation, LatencyHistogram> latencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> failures = new EnumMap<>(Operation.class);
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final Map<String, LongSupplier> gauges = new ConcurrentSkipListMap<>();
+
+    LibraryMetrics() {
+        // Карты операций заполняются целиком заранее и дальше только читаются
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new LatencyHistogram());
+            failures.put(operation, new LongAdder());
+        }
+    }
+
+    /**
+     * @param operation операция
+     * @param startNanos значение System.nanoTime() в начале операции
+     * @param succeeded false, если операция вернула отказ (книга занята, не найдена и т.п.)
+     */
+    void record(Operation operation, long startNanos, boolean succeeded) {
+        latencies.get(operation).record(System.nanoTime() - startNanos);
+        if (!succeeded) {
+            failures.get(operation).increment();
+        }
+    }
+
+    public LatencyHistogram getLatency(Operation operation) {
+        return latencies.get(operation);
+    }
+
+    /**
+     * @return количество вызовов операции, завершившихся отказом
+     */
+    public long getFailureCount(Operation operation) {
+        return failures.get(operation).sum();
+    }
+
+    /**
+     * @return счётчик с заданным именем (создаётся при первом обращении)
+     */
+    public LongAdder counter(String name) {
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("Metric name must not be null or blank");
+        }
+        return counters.computeIfAbsent(name, key -> new LongAdder());
+    }
+
+    /**
+     * Регистрирует датчик; значение вычисляется при каждом чтении
+     */
+    public void gauge(String name, LongSupplier value) {
+        if (name == null || name.isBlank() || value == null) {
+            throw new IllegalArgumentException("Gauge name and value must not be null");
+        }
+        gauges.put(name, value);
+    }
+
+    /**
+     * @return текущее значение датчика
+     */
+    public long getGauge(String name) {
+        LongSupplier gauge = gauges.get(name);
+        if (gauge == null) {
+            throw new IllegalArgumentException("Unknown gauge: " + name);
+        }
+        return gauge.getAsLong();
+    }
+
+    /**
+     * Текстовый снимок всех метрик в формате экспозиции Prometheus.
+     * Задержки — в наносекундах, перцентили округлены вверх до границы корзины
+     * @return снимок
+     */
+    public String export() {
+        StringBuilder out = new StringBuilder();
+        for (Map.Entry<String, LongSupplier> gauge : gauges.entrySet()) {
+            out.append("# TYPE ").append(gauge.getKey()).append(" gauge\n");
+            out.append(gauge.getKey()).append(' ').append(gauge.getValue().getAsLong()).append('\n');
+        }
+        new ConcurrentSkipListMap<>(counters).forEach((name, counter) -> {
+            out.append("# TYPE ").append(name).append(" counter\n");
+            out.append(name).append(' ').append(counter.sum()).append('\n');
+        });
+
+        // Каждое семейство метрик — одним блоком под своей строкой # TYPE
+        out.append("# TYPE library_operation_latency_nanos summary\n");
+        for (Operation operation : Operation.values()) {
+            LatencyHistogram histogram = latencies.get(operation);
+            long count = histogram.getCount();
+            if (count == 0) {
+                continue;
+            }
+            String label = label(operation);
+            for (double quantile : new double[] {0.5, 0.9, 0.99, 0.999}) {
+                out.append("library_operation_latency_nanos").append(label)
+                        .append(",quantile=\"").append(quantile).append("\"} ")
+                        .append(histogram.getPercentile(quantile * 100)).append('\n');
+            }
+            out.append("library_operation_latency_nanos_count").append(label).append("} ")
+                    .append(count).append('\n');
+            out.append("library_operation_latency_nanos_sum").append(label).append("} ")
+                    .append(Math.round(histogram.getMean() * count)).append('\n');
+        }
+
+        out.append("# TYPE library_operation_latency_nanos_max gauge\n");
+        for (Operation operation : Operation.values()) {
+            LatencyHistogram histogram = latencies.get(operation);
+            if (histogram.getCount() > 0) {
+                out.append("library_operation_latency_nanos_max").append(label(operation)).append("} ")
+                        .append(histogram.getMax()).append('\n');
+            }
+        }
+
+        out.append("# TYPE library_operation_failures_total counter\n");
+        for (Operation operation : Operation.values()) {
+            if (latencies.get(operation).getCount() > 0) {
+                out.append("library_operation_failures_total").append(label(operation)).append("} ")
+                        .append(failures.get(operation).sum()).append('\n');
+            }
+        }
+        return out.toString();
+    }
+
+    // Без закрывающей скобки: к метке summary дописывается quantile
+    private static String label(Operation operation) {
+        return "{operation=\"" + operation.getMethodName() + "\"";
+    }
+}
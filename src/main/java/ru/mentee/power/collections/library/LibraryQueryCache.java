@@ -0,0 +1,209 @@
+package ru.mentee.power.collections.library;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Кэш результатов частых запросов к каталогу: доступные книги, книги жанра, поиск по названию.
+ * Повторный запрос с теми же аргументами возвращает уже готовый неизменяемый список
+ * без обращения к индексам и без копирования.
+ * <p>
+ * Размер ограничен, при переполнении вытесняется запись, к которой дольше всего
+ * не обращались (LRU). Кэш подписан на изменения LibraryManager и сбрасывает только
+ * затронутые записи: добавление или удаление книги — её жанр, поиски, которым
+ * соответствует её название, и список доступных книг; выдача и возврат — только
+ * список доступных книг.
+ */
+public class LibraryQueryCache implements LibraryChangeListener {
+
+    private enum Kind { AVAILABLE, GENRE, TITLE }
+
+    private record Key(Kind kind, Object argument) {
+    }
+
+    private static final Key AVAILABLE_KEY = new Key(Kind.AVAILABLE, null);
+
+    private final LibraryManager manager;
+    private final Map<Key, List<Book>> entries;
+    // Увеличивается при каждом сбросе: результат, вычисленный до сброса, в кэш не кладётся
+    private long generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    private LibraryQueryCache(LibraryManager manager, int maxEntries) {
+        this.manager = manager;
+        // accessOrder = true: get() переносит запись в конец, первой вытесняется самая давняя
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, List<Book>> eldest) {
+                if (size() > maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Создаёт кэш и подписывает его на изменения менеджера. Подписка делается
+     * после конструктора, чтобы менеджер не увидел недостроенный кэш
+     * @param manager менеджер библиотеки
+     * @param maxEntries максимальное количество закэшированных запросов
+     * @return кэш, подписанный на изменения
+     */
+    public static LibraryQueryCache attach(LibraryManager manager, int maxEntries) {
+        if (manager == null) {
+            throw new IllegalArgumentException("Manager must not be null");
+        }
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Max entries must be greater than zero");
+        }
+        LibraryQueryCache cache = new LibraryQueryCache(manager, maxEntries);
+        manager.addChangeListener(cache);
+        return cache;
+    }
+
+    // ============ Запросы ============
+
+    public List<Book> getAvailableBooks() {
+        return cached(AVAILABLE_KEY, manager::getAvailableBooks);
+    }
+
+    public List<Book> getBooksByGenre(Book.Genre genre) {
+        if (genre == null) {
+            throw new IllegalArgumentException("Genre must not be null");
+        }
+        return cached(new Key(Kind.GENRE, genre), () -> manager.getBooksByGenre(genre));
+    }
+
+    public List<Book> searchBooksByTitle(String titlePart) {
+        if (titlePart == null) {
+            throw new IllegalArgumentException("Title part must not be null");
+        }
+        String query = titlePart.toLowerCase();
+        return cached(new Key(Kind.TITLE, query), () -> manager.searchBooksByTitle(query));
+    }
+
+    private List<Book> cached(Key key, Supplier<List<Book>> loader) {
+        long loadGeneration;
+        synchronized (this) {
+            List<Book> result = entries.get(key);
+            if (result != null) {
+                hits.increment();
+                return result;
+            }
+            loadGeneration = generation;
+        }
+        misses.increment();
+        // Индексы читаются вне блокировки кэша: медленный запрос не задерживает остальных
+        List<Book> result = Collections.unmodifiableList(loader.get());
+        synchronized (this) {
+            if (generation == loadGeneration) {
+                entries.put(key, result);
+            }
+        }
+        return result;
+    }
+
+    // ============ Сброс по событиям LibraryManager ============
+
+    @Override
+    public void bookAdded(Book book) {
+        invalidateBook(book);
+    }
+
+    @Override
+    public void bookRemoved(Book book) {
+        invalidateBook(book);
+    }
+
+    @Override
+    public void bookBorrowed(Borrowing borrowing) {
+        invalidate(AVAILABLE_KEY);
+    }
+
+    @Override
+    public void bookReturned(Borrowing borrowing) {
+        invalidate(AVAILABLE_KEY);
+    }
+
+    private synchronized void invalidateBook(Book book) {
+        generation++;
+        remove(AVAILABLE_KEY);
+        remove(new Key(Kind.GENRE, book.getGenre()));
+        if (book.getTitle() == null) {
+            return;
+        }
+        String title = book.getTitle().toLowerCase();
+        Iterator<Key> keys = entries.keySet().iterator();
+        while (keys.hasNext()) {
+            Key key = keys.next();
+            if (key.kind() == Kind.TITLE && title.contains((String) key.argument())) {
+                keys.remove();
+                invalidations.increment();
+            }
+        }
+    }
+
+    private synchronized void invalidate(Key key) {
+        generation++;
+        remove(key);
+    }
+
+    private void remove(Key key) {
+        if (entries.remove(key) != null) {
+            invalidations.increment();
+        }
+    }
+
+    /**
+     * Отписывает кэш от менеджера и очищает его
+     */
+    public synchronized void close() {
+        manager.removeChangeListener(this);
+        entries.clear();
+    }
+
+    // ============ Статистика ============
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return количество записей, сброшенных из-за изменений каталога
+     */
+    public long getInvalidationCount() {
+        return invalidations.sum();
+    }
+
+    /**
+     * @return доля попаданий среди всех запросов (0, если запросов не было)
+     */
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+}
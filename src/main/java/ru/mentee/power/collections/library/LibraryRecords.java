@@ -0,0 +1,105 @@
+package ru.mentee.power.collections.library;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Двоичное представление книг, читателей и выдач для журнала и контрольных точек
+ */
+final class LibraryRecords {
+
+    private LibraryRecords() {
+    }
+
+    static void writeBook(DataOutput out, Book book) throws IOException {
+        writeString(out, book.getIsbn());
+        writeString(out, book.getTitle());
+        out.writeInt(book.getPublicationYear());
+        writeString(out, book.getGenre() == null ? null : book.getGenre().name());
+        out.writeInt(book.getPageCount());
+        Set<String> authors = book.getAuthors() == null ? Set.of() : book.getAuthors();
+        out.writeInt(authors.size());
+        for (String author : authors) {
+            writeString(out, author);
+        }
+    }
+
+    static Book readBook(DataInput in) throws IOException {
+        String isbn = readString(in);
+        String title = readString(in);
+        int year = in.readInt();
+        String genre = readString(in);
+        Book book = new Book(isbn, title, year, genre == null ? null : Book.Genre.valueOf(genre));
+        book.setPageCount(in.readInt());
+        int authorsCount = in.readInt();
+        Set<String> authors = new HashSet<>();
+        for (int i = 0; i < authorsCount; i++) {
+            authors.add(readString(in));
+        }
+        book.setAuthors(authors);
+        return book;
+    }
+
+    static void writeReader(DataOutput out, Reader reader) throws IOException {
+        writeString(out, reader.getId());
+        writeString(out, reader.getName());
+        writeString(out, reader.getEmail());
+        writeString(out, reader.getCategory() == null ? null : reader.getCategory().name());
+    }
+
+    static Reader readReader(DataInput in) throws IOException {
+        String id = readString(in);
+        String name = readString(in);
+        String email = readString(in);
+        String category = readString(in);
+        return new Reader(id, name, email, category == null ? null : Reader.ReaderCategory.valueOf(category));
+    }
+
+    static void writeBorrowing(DataOutput out, Borrowing borrowing) throws IOException {
+        out.writeLong(borrowing.getSequence());
+        writeString(out, borrowing.getIsbn());
+        writeString(out, borrowing.getReaderId());
+        writeDate(out, borrowing.getBorrowDate());
+        writeDate(out, borrowing.getDueDate());
+        writeDate(out, borrowing.getReturnDate());
+    }
+
+    static Borrowing readBorrowing(DataInput in) throws IOException {
+        long sequence = in.readLong();
+        String isbn = readString(in);
+        String readerId = readString(in);
+        LocalDate borrowDate = readDate(in);
+        LocalDate dueDate = readDate(in);
+        LocalDate returnDate = readDate(in);
+        Borrowing borrowing = new Borrowing(isbn, readerId, borrowDate, dueDate);
+        borrowing.setSequence(sequence);
+        if (returnDate != null) {
+            borrowing.returnBook(returnDate);
+        }
+        return borrowing;
+    }
+
+    static void writeString(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    static String readString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    static void writeDate(DataOutput out, LocalDate date) throws IOException {
+        out.writeLong(date == null ? Long.MIN_VALUE : date.toEpochDay());
+    }
+
+    static LocalDate readDate(DataInput in) throws IOException {
+        long epochDay = in.readLong();
+        return epochDay == Long.MIN_VALUE ? null : LocalDate.ofEpochDay(epochDay);
+    }
+}
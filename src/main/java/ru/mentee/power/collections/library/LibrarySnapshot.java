@@ -0,0 +1,124 @@
+package ru.mentee.power.collections.library;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Согласованный снимок каталога, читателей и открытых выдач на момент его получения.
+ * Снимок никогда не меняется: его можно обходить сколько угодно долго и из любых
+ * потоков, пока кафедра продолжает оформлять выдачи. Книги и выдачи в снимке —
+ * копии, сделанные в момент изменения, а не "живые" объекты менеджера.
+ */
+public final class LibrarySnapshot {
+
+    static final LibrarySnapshot EMPTY = new LibrarySnapshot(0, PersistentHashMap.empty(),
+            PersistentHashMap.empty(), PersistentHashMap.empty());
+
+    private final long version;
+    private final PersistentHashMap<String, Book> books;
+    private final PersistentHashMap<String, Reader> readers;
+    private final PersistentHashMap<String, Borrowing> activeBorrowings;
+
+    LibrarySnapshot(long version, PersistentHashMap<String, Book> books,
+                    PersistentHashMap<String, Reader> readers,
+                    PersistentHashMap<String, Borrowing> activeBorrowings) {
+        this.version = version;
+        this.books = books;
+        this.readers = readers;
+        this.activeBorrowings = activeBorrowings;
+    }
+
+    /**
+     * @return номер версии; растёт с каждой завершённой изменяющей операцией
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public Book getBook(String isbn) {
+        return books.get(isbn);
+    }
+
+    public Reader getReader(String readerId) {
+        return readers.get(readerId);
+    }
+
+    /**
+     * @return открытая выдача книги или null, если книга на месте
+     */
+    public Borrowing getActiveBorrowing(String isbn) {
+        return activeBorrowings.get(isbn);
+    }
+
+    public int getBookCount() {
+        return books.size();
+    }
+
+    public int getReaderCount() {
+        return readers.size();
+    }
+
+    public int getActiveBorrowingCount() {
+        return activeBorrowings.size();
+    }
+
+    public List<Book> getAllBooks() {
+        return Collections.unmodifiableList(books.values());
+    }
+
+    public List<Reader> getAllReaders() {
+        return Collections.unmodifiableList(readers.values());
+    }
+
+    public List<Borrowing> getActiveBorrowings() {
+        return Collections.unmodifiableList(activeBorrowings.values());
+    }
+
+    public List<Borrowing> getActiveBorrowingsByReader(String readerId) {
+        List<Borrowing> result = new ArrayList<>();
+        activeBorrowings.forEach((isbn, borrowing) -> {
+            if (borrowing.getReaderId().equals(readerId)) {
+                result.add(borrowing);
+            }
+        });
+        return result;
+    }
+
+    public Stream<Book> streamBooks() {
+        return books.values().stream();
+    }
+
+    public Stream<Borrowing> streamActiveBorrowings() {
+        return activeBorrowings.values().stream();
+    }
+
+    LibrarySnapshot withBooks(PersistentHashMap<String, Book> newBooks) {
+        return new LibrarySnapshot(version, newBooks, readers, activeBorrowings);
+    }
+
+    LibrarySnapshot withReaders(PersistentHashMap<String, Reader> newReaders) {
+        return new LibrarySnapshot(version, books, newReaders, activeBorrowings);
+    }
+
+    LibrarySnapshot withActiveBorrowings(PersistentHashMap<String, Borrowing> newBorrowings) {
+        return new LibrarySnapshot(version, books, readers, newBorrowings);
+    }
+
+    LibrarySnapshot nextVersion() {
+        return new LibrarySnapshot(version + 1, books, readers, activeBorrowings);
+    }
+
+    PersistentHashMap<String, Book> books() {
+        return books;
+    }
+
+    PersistentHashMap<String, Reader> readers() {
+        return readers;
+    }
+
+    PersistentHashMap<String, Borrowing> activeBorrowings() {
+        return activeBorrowings;
+    }
+}
@@ -0,0 +1,169 @@
+package ru.mentee.power.collections.library;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+/**
+ * Источник неизменяемых снимков LibraryManager (MVCC).
+ * Подписывается на изменения менеджера и ведёт текущее состояние в постоянных
+ * (persistent) хеш-картах: каждое изменение строит новую версию, разделяющую
+ * с предыдущей почти все узлы. Завершённая операция публикуется одной записью
+ * в volatile-поле, поэтому {@link #snapshot()} — это O(1) чтение без блокировок,
+ * а отчёт по снимку не видит "полуизменённого" состояния и не получает
+ * ConcurrentModificationException.
+ * <p>
+ * События одной операции приходят в потоке, который её выполняет, поэтому изменения
+ * копятся отдельно для каждого потока и применяются к опубликованной версии целиком
+ * по committed(): параллельная операция другого потока не может опубликовать
+ * чужую незавершённую пачку. Книги, читатели и выдачи в снимке доступны только
+ * для чтения — их сеттеры выбрасывают UnsupportedOperationException.
+ */
+public class LibrarySnapshots implements LibraryChangeListener {
+
+    private final LibraryManager manager;
+    // Изменения текущей операции этого потока, ещё не опубликованные
+    private final ThreadLocal<List<UnaryOperator<LibrarySnapshot>>> pending = ThreadLocal.withInitial(ArrayList::new);
+    private volatile LibrarySnapshot published;
+
+    private LibrarySnapshots(LibraryManager manager, LibrarySnapshot initial) {
+        this.manager = manager;
+        this.published = initial;
+    }
+
+    /**
+     * Копирует текущее состояние менеджера и подписывается на его изменения.
+     * Вызывать, пока в менеджер никто не пишет.
+     * @param manager менеджер библиотеки
+     * @return источник снимков
+     */
+    public static LibrarySnapshots attach(LibraryManager manager) {
+        if (manager == null) {
+            throw new IllegalArgumentException("Manager must not be null");
+        }
+        PersistentHashMap<String, Book> books = PersistentHashMap.empty();
+        for (Book book : manager.getAllBooks()) {
+            books = books.plus(book.getIsbn(), copyOf(book, book.isAvailable()));
+        }
+        PersistentHashMap<String, Reader> readers = PersistentHashMap.empty();
+        for (Reader reader : manager.getAllReaders()) {
+            readers = readers.plus(reader.getId(), copyOf(reader));
+        }
+        PersistentHashMap<String, Borrowing> loans = PersistentHashMap.empty();
+        for (Borrowing borrowing : manager.getHotBorrowings()) {
+            if (!borrowing.isReturned()) {
+                loans = loans.plus(borrowing.getIsbn(), copyOf(borrowing));
+            }
+        }
+        LibrarySnapshots snapshots = new LibrarySnapshots(manager,
+                LibrarySnapshot.EMPTY.withBooks(books).withReaders(readers).withActiveBorrowings(loans));
+        manager.addChangeListener(snapshots);
+        return snapshots;
+    }
+
+    /**
+     * @return снимок последнего завершённого состояния
+     */
+    public LibrarySnapshot snapshot() {
+        return published;
+    }
+
+    /**
+     * Отписывает источник от менеджера; уже полученные снимки остаются доступными
+     */
+    public void close() {
+        manager.removeChangeListener(this);
+    }
+
+    // ============ События LibraryManager ============
+
+    @Override
+    public void bookAdded(Book book) {
+        // Копия снимается сейчас: к моменту committed() книгу могут уже изменить
+        Book copy = copyOf(book, book.isAvailable());
+        pending.get().add(state -> state.withBooks(state.books().plus(copy.getIsbn(), copy)));
+    }
+
+    @Override
+    public void bookRemoved(Book book) {
+        String isbn = book.getIsbn();
+        pending.get().add(state -> state.withBooks(state.books().minus(isbn)));
+    }
+
+    @Override
+    public void readerAdded(Reader reader) {
+        Reader copy = copyOf(reader);
+        pending.get().add(state -> state.withReaders(state.readers().plus(copy.getId(), copy)));
+    }
+
+    @Override
+    public void readerRemoved(Reader reader) {
+        String readerId = reader.getId();
+        pending.get().add(state -> state.withReaders(state.readers().minus(readerId)));
+    }
+
+    @Override
+    public void bookBorrowed(Borrowing borrowing) {
+        Borrowing copy = copyOf(borrowing);
+        pending.get().add(state -> setAvailable(
+                state.withActiveBorrowings(state.activeBorrowings().plus(copy.getIsbn(), copy)), copy.getIsbn(), false));
+    }
+
+    @Override
+    public void bookReturned(Borrowing borrowing) {
+        String isbn = borrowing.getIsbn();
+        pending.get().add(state -> setAvailable(
+                state.withActiveBorrowings(state.activeBorrowings().minus(isbn)), isbn, true));
+    }
+
+    @Override
+    public void borrowingExtended(Borrowing borrowing) {
+        Borrowing copy = copyOf(borrowing);
+        pending.get().add(state -> state.withActiveBorrowings(state.activeBorrowings().plus(copy.getIsbn(), copy)));
+    }
+
+    /**
+     * Публикует изменения операции, завершённой в текущем потоке. Менеджер вызывает
+     * его, ещё удерживая блокировки операции, поэтому операции над одной книгой
+     * применяются в том же порядке, в каком выполнялись
+     */
+    @Override
+    public void committed() {
+        List<UnaryOperator<LibrarySnapshot>> changes = pending.get();
+        if (changes.isEmpty()) {
+            return;
+        }
+        synchronized (this) {
+            LibrarySnapshot next = published;
+            for (UnaryOperator<LibrarySnapshot> change : changes) {
+                next = change.apply(next);
+            }
+            published = next.nextVersion();
+        }
+        changes.clear();
+    }
+
+    private static LibrarySnapshot setAvailable(LibrarySnapshot state, String isbn, boolean available) {
+        Book book = state.books().get(isbn);
+        if (book == null || book.isAvailable() == available) {
+            return state;
+        }
+        return state.withBooks(state.books().plus(isbn, copyOf(book, available)));
+    }
+
+    // ============ Копии объектов на момент изменения ============
+
+    private static Book copyOf(Book book, boolean available) {
+        return book.readOnlyCopy(available);
+    }
+
+    private static Reader copyOf(Reader reader) {
+        Reader copy = new Reader(reader.getId(), reader.getName(), reader.getEmail(), reader.getCategory());
+        copy.freeze();
+        return copy;
+    }
+
+    private static Borrowing copyOf(Borrowing borrowing) {
+        return borrowing.readOnlyCopy();
+    }
+}
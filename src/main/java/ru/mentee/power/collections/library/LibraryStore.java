@@ -0,0 +1,174 @@
+package ru.mentee.power.collections.library;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Period;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Долговременное хранение LibraryManager: контрольная точка + журнал изменений.
+ * При открытии состояние восстанавливается из последней контрольной точки и
+ * хвоста журнала, после чего все изменения менеджера пишутся в журнал.
+ * Старые возвращённые выдачи можно переносить в архив (подкаталог archive).
+ */
+public class LibraryStore implements Closeable {
+
+    private static final String CHECKPOINT_FILE = "library.checkpoint";
+    private static final String JOURNAL_FILE = "library.journal";
+    private static final String ARCHIVE_DIRECTORY = "archive";
+
+    private final Path directory;
+    private final LibraryManager manager;
+    private final LibraryJournal journal;
+    private final long recoveryNanos;
+    private final long replayedRecords;
+    private final Object checkpointLock = new Object();
+    private ScheduledExecutorService checkpointScheduler;
+    // Ошибка последней фоновой контрольной точки; сбрасывается следующей удачной
+    private volatile IOException checkpointFailure;
+
+    private LibraryStore(Path directory, LibraryManager manager, LibraryJournal journal,
+                         long recoveryNanos, long replayedRecords) {
+        this.directory = directory;
+        this.manager = manager;
+        this.journal = journal;
+        this.recoveryNanos = recoveryNanos;
+        this.replayedRecords = replayedRecords;
+    }
+
+    /**
+     * Открывает хранилище и восстанавливает в менеджер сохранённое состояние.
+     * Контрольная точка читает весь менеджер, поэтому для обычного (непотокобезопасного)
+     * LibraryManager её снимает тот же поток, что его меняет; фоновые контрольные точки
+     * доступны только для ConcurrentLibraryManager
+     * @param directory каталог с файлами хранилища (создаётся при необходимости)
+     * @param manager пустой менеджер
+     * @return открытое хранилище, подписанное на изменения менеджера
+     */
+    public static LibraryStore open(Path directory, LibraryManager manager) throws IOException {
+        if (directory == null || manager == null) {
+            throw new IllegalArgumentException("Directory and manager must not be null");
+        }
+        Files.createDirectories(directory);
+
+        long start = System.nanoTime();
+        if (manager.getArchive() == null) {
+            manager.attachArchive(BorrowingArchive.open(directory.resolve(ARCHIVE_DIRECTORY)));
+        }
+        long checkpointLsn = LibraryCheckpoint.read(directory.resolve(CHECKPOINT_FILE), manager);
+        LibraryJournal journal = new LibraryJournal(directory.resolve(JOURNAL_FILE));
+        long replayed = journal.replay(checkpointLsn, manager);
+        manager.restoreAvailability();
+        long recoveryNanos = System.nanoTime() - start;
+
+        manager.addChangeListener(journal);
+        return new LibraryStore(directory, manager, journal, recoveryNanos, replayed);
+    }
+
+    /**
+     * Снимает контрольную точку и убирает из журнала уже учтённые в ней записи.
+     * Изменения, сделанные во время снятия, остаются в журнале и при восстановлении
+     * применяются повторно — записи журнала идемпотентны, а доступность книг
+     * с открытыми выдачами после восстановления выставляется заново.
+     * Для обычного LibraryManager вызывать только из потока, который его меняет:
+     * его коллекции нельзя читать параллельно с записью.
+     */
+    public void checkpoint() throws IOException {
+        synchronized (checkpointLock) {
+            long lsn = journal.getLastLsn();
+            LibraryCheckpoint.write(directory.resolve(CHECKPOINT_FILE), manager, lsn);
+            journal.discardUpTo(lsn);
+            checkpointFailure = null;
+        }
+    }
+
+    /**
+     * Переносит в архив выдачи, возвращённые раньше заданного срока назад, и сразу
+     * снимает контрольную точку, чтобы перенесённые выдачи не остались в ней и в журнале
+     * @param minAge сколько времени должно пройти после возврата
+     * @return количество перенесённых выдач
+     */
+    public int archiveReturnedBorrowings(Period minAge) throws IOException {
+        int archived = manager.archiveReturnedBorrowings(minAge);
+        if (archived > 0) {
+            checkpoint();
+        }
+        return archived;
+    }
+
+    /**
+     * Запускает периодическое снятие контрольных точек в фоновом потоке.
+     * Ошибка фоновой контрольной точки не останавливает расписание и доступна
+     * через {@link #getCheckpointFailure()}: журнал при этом продолжает расти,
+     * но ничего не теряется. Фоновый поток читает менеджер параллельно с записью,
+     * поэтому нужен потокобезопасный менеджер (ConcurrentLibraryManager)
+     * @param interval период между контрольными точками
+     * @throws IllegalStateException если менеджер не потокобезопасен
+     */
+    public synchronized void startPeriodicCheckpoints(Duration interval) {
+        if (interval == null || interval.isNegative() || interval.isZero()) {
+            throw new IllegalArgumentException("Interval must be positive");
+        }
+        if (!manager.isConcurrent()) {
+            throw new IllegalStateException("Periodic checkpoints require a thread-safe manager");
+        }
+        if (checkpointScheduler != null) {
+            throw new IllegalStateException("Periodic checkpoints are already running");
+        }
+        checkpointScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "library-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long millis = interval.toMillis();
+        checkpointScheduler.scheduleWithFixedDelay(() -> {
+            try {
+                checkpoint();
+            } catch (IOException e) {
+                checkpointFailure = e;
+            }
+        }, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return ошибка последней фоновой контрольной точки или null, если она удалась
+     */
+    public IOException getCheckpointFailure() {
+        return checkpointFailure;
+    }
+
+    public LibraryJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * @return время восстановления при открытии (чтение снимка + проигрывание журнала), нс
+     */
+    public long getRecoveryNanos() {
+        return recoveryNanos;
+    }
+
+    /**
+     * @return количество записей журнала, применённых при открытии
+     */
+    public long getReplayedRecords() {
+        return replayedRecords;
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (checkpointScheduler != null) {
+                checkpointScheduler.shutdownNow();
+                checkpointScheduler = null;
+            }
+        }
+        manager.removeChangeListener(journal);
+        journal.close();
+    }
+}
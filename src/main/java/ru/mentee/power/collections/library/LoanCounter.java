@@ -0,0 +1,69 @@
+package ru.mentee.power.collections.library;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * Счётчик выдач по ключу (ISBN или ID читателя).
+ * Увеличение — атомарный инкремент счётчика своего ключа без общих блокировок,
+ * поэтому выдачи разных книг не конкурируют. Рейтинг строится при запросе:
+ * один проход по счётчикам с кучей из K лучших, O(N log K).
+ */
+final class LoanCounter {
+
+    private static final Comparator<Map.Entry<String, Integer>> BY_COUNT_DESC =
+            Map.Entry.<String, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey());
+
+    private final Map<String, AtomicInteger> counters = new ConcurrentHashMap<>();
+
+    void increment(String key) {
+        add(key, 1);
+    }
+
+    void add(String key, int delta) {
+        AtomicInteger counter = counters.get(key);
+        if (counter == null) {
+            counter = counters.computeIfAbsent(key, k -> new AtomicInteger());
+        }
+        counter.addAndGet(delta);
+    }
+
+    int count(String key) {
+        AtomicInteger counter = counters.get(key);
+        return counter == null ? 0 : counter.get();
+    }
+
+    /**
+     * Возвращает первые ключи рейтинга. Параллельные выдачи могут попасть
+     * в результат частично — как если бы рейтинг был снят чуть раньше или позже
+     * @param limit максимальное количество ключей
+     * @param filter пропускает ключи, которые не должны попасть в результат
+     * @return пары "ключ -> количество выдач" по убыванию количества
+     */
+    List<Map.Entry<String, Integer>> top(int limit, Predicate<String> filter) {
+        // В голове кучи — худший из отобранных, его и вытесняет более популярный ключ
+        PriorityQueue<Map.Entry<String, Integer>> best =
+                new PriorityQueue<>(Math.min(limit, counters.size()) + 1, BY_COUNT_DESC.reversed());
+        for (Map.Entry<String, AtomicInteger> entry : counters.entrySet()) {
+            if (!filter.test(entry.getKey())) {
+                continue;
+            }
+            Map.Entry<String, Integer> candidate = Map.entry(entry.getKey(), entry.getValue().get());
+            if (best.size() < limit) {
+                best.add(candidate);
+            } else if (BY_COUNT_DESC.compare(candidate, best.peek()) < 0) {
+                best.poll();
+                best.add(candidate);
+            }
+        }
+        List<Map.Entry<String, Integer>> result = new ArrayList<>(best);
+        result.sort(BY_COUNT_DESC);
+        return result;
+    }
+}
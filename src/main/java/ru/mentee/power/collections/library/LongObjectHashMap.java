@@ -0,0 +1,271 @@
+package ru.mentee.power.collections.library;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.LongFunction;
+
+/**
+ * Хеш-таблица с ключами-примитивами long и открытой адресацией (линейное пробирование).
+ * Ключи и значения лежат в двух параллельных массивах: на запись нет ни узла,
+ * ни упакованного Long, а поиск идёт по соседним ячейкам одного массива.
+ * Не потокобезопасна.
+ *
+ * @param <V> тип значения
+ */
+final class LongObjectHashMap<V> {
+
+    private static final int MIN_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.7f;
+    // Ключ 0 отмечает пустую ячейку, поэтому его значение хранится отдельно
+    private static final long EMPTY = 0L;
+
+    private long[] keys;
+    private Object[] values;
+    private int size;
+    private int resizeThreshold;
+    private boolean hasZeroKey;
+    private Object zeroValue;
+    // Число структурных изменений: по нему итератор значений замечает изменение карты во время обхода
+    private int modCount;
+
+    LongObjectHashMap() {
+        this(MIN_CAPACITY);
+    }
+
+    LongObjectHashMap(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Expected size must not be negative");
+        }
+        allocate(tableSizeFor((int) Math.ceil(expectedSize / LOAD_FACTOR)));
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    boolean containsKey(long key) {
+        return key == EMPTY ? hasZeroKey : keys[indexOf(key)] == key;
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(long key) {
+        if (key == EMPTY) {
+            return (V) zeroValue;
+        }
+        int index = indexOf(key);
+        return keys[index] == key ? (V) values[index] : null;
+    }
+
+    /**
+     * @return предыдущее значение или null
+     */
+    @SuppressWarnings("unchecked")
+    V put(long key, V value) {
+        if (key == EMPTY) {
+            V previous = (V) zeroValue;
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+                modCount++;
+            }
+            zeroValue = value;
+            return previous;
+        }
+        int index = indexOf(key);
+        if (keys[index] == key) {
+            V previous = (V) values[index];
+            values[index] = value;
+            return previous;
+        }
+        keys[index] = key;
+        values[index] = value;
+        modCount++;
+        if (++size > resizeThreshold) {
+            rehash(keys.length << 1);
+        }
+        return null;
+    }
+
+    V computeIfAbsent(long key, LongFunction<? extends V> mappingFunction) {
+        V value = get(key);
+        if (value == null) {
+            value = mappingFunction.apply(key);
+            if (value != null) {
+                put(key, value);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * @return удалённое значение или null
+     */
+    @SuppressWarnings("unchecked")
+    V remove(long key) {
+        if (key == EMPTY) {
+            if (!hasZeroKey) {
+                return null;
+            }
+            V previous = (V) zeroValue;
+            hasZeroKey = false;
+            zeroValue = null;
+            size--;
+            modCount++;
+            return previous;
+        }
+        int index = indexOf(key);
+        if (keys[index] != key) {
+            return null;
+        }
+        V previous = (V) values[index];
+        size--;
+        modCount++;
+        shiftBack(index);
+        return previous;
+    }
+
+    void clear() {
+        Arrays.fill(keys, EMPTY);
+        Arrays.fill(values, null);
+        hasZeroKey = false;
+        zeroValue = null;
+        size = 0;
+        modCount++;
+    }
+
+    /**
+     * @return копия всех ключей; по ней можно безопасно удалять записи во время обхода
+     */
+    long[] keys() {
+        long[] result = new long[size];
+        int n = 0;
+        if (hasZeroKey) {
+            result[n++] = EMPTY;
+        }
+        for (long key : keys) {
+            if (key != EMPTY) {
+                result[n++] = key;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Обходит значения прямо по массиву таблицы, без копии ключей.
+     * Удалять записи во время обхода нельзя: удаление сдвигает соседние записи.
+     * Если карта структурно изменилась после создания итератора, next() бросает
+     * ConcurrentModificationException
+     */
+    Iterator<V> valueIterator() {
+        return new Iterator<>() {
+            private final int expectedModCount = modCount;
+            private boolean zeroPending = hasZeroKey;
+            private int index = advance(0);
+
+            private int advance(int from) {
+                while (from < keys.length && keys[from] == EMPTY) {
+                    from++;
+                }
+                return from;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return zeroPending || index < keys.length;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public V next() {
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (zeroPending) {
+                    zeroPending = false;
+                    return (V) zeroValue;
+                }
+                if (index >= keys.length) {
+                    throw new NoSuchElementException("Нет больше значений");
+                }
+                V value = (V) values[index];
+                index = advance(index + 1);
+                return value;
+            }
+        };
+    }
+
+    /**
+     * Удаление без "надгробий": следующие за освободившейся ячейкой записи
+     * сдвигаются назад, если их исходная позиция не дальше освободившейся.
+     */
+    private void shiftBack(int index) {
+        int mask = keys.length - 1;
+        int gap = index;
+        int next = (gap + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int home = mix(keys[next]) & mask;
+            // Запись можно перенести в gap, если gap лежит на пути от home до next
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[gap] = EMPTY;
+        values[gap] = null;
+    }
+
+    private int indexOf(long key) {
+        int mask = keys.length - 1;
+        int index = mix(key) & mask;
+        while (keys[index] != EMPTY && keys[index] != key) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key != EMPTY) {
+                int index = mix(key) & mask;
+                while (keys[index] != EMPTY) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = key;
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int tableSizeFor(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity, MIN_CAPACITY) - 1) << 1;
+        return size < 0 ? 1 << 30 : size;
+    }
+
+    // Соседние ISBN отличаются младшими цифрами — перемешиваем биты (финализатор MurmurHash3)
+    private static int mix(long key) {
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+}
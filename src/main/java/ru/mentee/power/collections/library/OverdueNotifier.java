@@ -0,0 +1,227 @@
+package ru.mentee.power.collections.library;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Поток событий о просрочке выдач (Flow.Publisher).
+ * Подписывается на изменения LibraryManager и для каждой открытой выдачи держит
+ * таймер в хешированном колесе: выдача становится просроченной в начале дня,
+ * следующего за сроком возврата. Возврат отменяет таймер, продление переставляет его,
+ * поэтому обход всех выдач не нужен ни при одном тике.
+ * <p>
+ * События доставляются подписчикам через SubmissionPublisher: каждый получает их
+ * не быстрее, чем запрашивает (request(n)). Если буфер медленного подписчика
+ * переполнен, событие для него отбрасывается и учитывается в getDroppedCount(),
+ * чтобы не задерживать таймеры остальных; актуальный список просрочек всегда
+ * можно получить через LibraryManager.getOverdueBorrowings().
+ * <p>
+ * Выдачи, которые уже были просрочены в момент подключения, событий не порождают.
+ */
+public class OverdueNotifier implements LibraryChangeListener, Flow.Publisher<Borrowing>, AutoCloseable {
+
+    private static final Duration DEFAULT_TICK = Duration.ofMinutes(1);
+    // 1024 тика по минуте — около 17 часов на оборот колеса
+    private static final int WHEEL_SIZE = 1024;
+
+    private final LibraryManager manager;
+    private final Clock clock;
+    private final Instant origin;
+    private final long tickNanos;
+    private final HashedTimingWheel<Borrowing> wheel;
+    private final SubmissionPublisher<Borrowing> publisher;
+    private final LongAdder fired = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private ScheduledExecutorService ticker;
+
+    private OverdueNotifier(LibraryManager manager, Clock clock, Duration tick, int bufferCapacity) {
+        this.manager = manager;
+        this.clock = clock;
+        this.origin = clock.instant();
+        this.tickNanos = tick.toNanos();
+        this.wheel = new HashedTimingWheel<>(WHEEL_SIZE, 0);
+        this.publisher = new SubmissionPublisher<>(ForkJoinPool.commonPool(), bufferCapacity);
+    }
+
+    /**
+     * Подключает источник событий к менеджеру с системными часами и тиком в одну минуту
+     */
+    public static OverdueNotifier attach(LibraryManager manager) {
+        return attach(manager, Clock.systemDefaultZone(), DEFAULT_TICK, Flow.defaultBufferSize());
+    }
+
+    /**
+     * Ставит таймеры для открытых выдач менеджера и подписывается на его изменения.
+     * Вызывать, пока в менеджер никто не пишет
+     * @param manager менеджер библиотеки
+     * @param clock часы (в тестах — управляемые)
+     * @param tick точность срабатывания
+     * @param bufferCapacity сколько недоставленных событий держится для каждого подписчика
+     * @return источник событий; таймеры срабатывают после start() или при вызове advance()
+     */
+    public static OverdueNotifier attach(LibraryManager manager, Clock clock, Duration tick, int bufferCapacity) {
+        if (manager == null || clock == null) {
+            throw new IllegalArgumentException("Manager and clock must not be null");
+        }
+        if (tick == null || tick.isNegative() || tick.isZero()) {
+            throw new IllegalArgumentException("Tick must be positive");
+        }
+        if (bufferCapacity <= 0) {
+            throw new IllegalArgumentException("Buffer capacity must be greater than zero");
+        }
+        OverdueNotifier notifier = new OverdueNotifier(manager, clock, tick, bufferCapacity);
+        for (Borrowing borrowing : manager.getHotBorrowings()) {
+            if (!borrowing.isReturned()) {
+                notifier.schedule(borrowing, false);
+            }
+        }
+        manager.addChangeListener(notifier);
+        return notifier;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super Borrowing> subscriber) {
+        publisher.subscribe(subscriber);
+    }
+
+    /**
+     * Запускает фоновый поток, который раз в тик продвигает колесо по часам
+     */
+    public synchronized void start() {
+        if (ticker != null) {
+            throw new IllegalStateException("Notifier is already started");
+        }
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "library-overdue");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::advance, tickNanos, tickNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Продвигает колесо до текущего момента по часам и публикует наступившие просрочки
+     * @return количество опубликованных событий
+     */
+    public int advance() {
+        List<Borrowing> expired;
+        synchronized (wheel) {
+            expired = wheel.advanceTo(tickOf(clock.instant()));
+        }
+        int published = 0;
+        for (Borrowing borrowing : expired) {
+            // Книгу могли вернуть, пока таймер уже снят с колеса: отмена его не нашла
+            if (!borrowing.isReturned()) {
+                publish(borrowing);
+                published++;
+            }
+        }
+        return published;
+    }
+
+    // ============ События LibraryManager ============
+
+    @Override
+    public void bookBorrowed(Borrowing borrowing) {
+        schedule(borrowing, true);
+    }
+
+    @Override
+    public void bookReturned(Borrowing borrowing) {
+        synchronized (wheel) {
+            wheel.cancel(borrowing);
+        }
+    }
+
+    @Override
+    public void borrowingExtended(Borrowing borrowing) {
+        schedule(borrowing, false);
+    }
+
+    /**
+     * @param publishIfDue публиковать ли событие сразу, если срок уже прошёл
+     *                     (выдача задним числом); о продлённой в прошлое выдаче уже сообщалось
+     */
+    private void schedule(Borrowing borrowing, boolean publishIfDue) {
+        LocalDate dueDate = borrowing.getDueDate();
+        // Просрочка наступает, когда текущая дата становится позже срока возврата
+        Instant overdueAt = dueDate.plusDays(1).atStartOfDay(clock.getZone()).toInstant();
+        boolean scheduled;
+        synchronized (wheel) {
+            scheduled = wheel.schedule(borrowing, deadlineTickOf(overdueAt));
+        }
+        if (!scheduled && publishIfDue) {
+            publish(borrowing);
+        }
+    }
+
+    private void publish(Borrowing borrowing) {
+        fired.increment();
+        publisher.offer(borrowing, (subscriber, item) -> {
+            dropped.increment();
+            return false;
+        });
+    }
+
+    private long tickOf(Instant instant) {
+        return Math.floorDiv(Duration.between(origin, instant).toNanos(), tickNanos);
+    }
+
+    /**
+     * Тик, в котором момент уже наступил: округление вверх
+     */
+    private long deadlineTickOf(Instant instant) {
+        long nanos = Duration.between(origin, instant).toNanos();
+        return Math.floorDiv(nanos + tickNanos - 1, tickNanos);
+    }
+
+    // ============ Статистика ============
+
+    /**
+     * @return количество выдач, ожидающих наступления просрочки
+     */
+    public int getScheduledCount() {
+        synchronized (wheel) {
+            return wheel.size();
+        }
+    }
+
+    /**
+     * @return количество опубликованных событий о просрочке
+     */
+    public long getFiredCount() {
+        return fired.sum();
+    }
+
+    /**
+     * @return количество событий, не доставленных из-за переполненного буфера подписчика
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Отписывается от менеджера, останавливает таймеры и завершает поток событий (onComplete)
+     */
+    @Override
+    public void close() {
+        manager.removeChangeListener(this);
+        synchronized (this) {
+            if (ticker != null) {
+                ticker.shutdownNow();
+                ticker = null;
+            }
+        }
+        publisher.close();
+    }
+}
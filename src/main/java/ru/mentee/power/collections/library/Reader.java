@@ -8,6 +8,8 @@ public class Reader {
     private String name;
     private String email;
     private ReaderCategory category;
+    // Копия в снимке LibrarySnapshot: сеттеры запрещены
+    private boolean frozen;
 
     public enum ReaderCategory {
         STUDENT, TEACHER, REGULAR, VIP
@@ -38,17 +40,33 @@ public class Reader {
     }
 
     public void setName(String name) {
+        checkNotFrozen();
         this.name = name;
     }
 
     public void setEmail(String email) {
+        checkNotFrozen();
         this.email = email;
     }
 
     public void setCategory(ReaderCategory category) {
+        checkNotFrozen();
         this.category = category;
     }
 
+    /**
+     * Делает читателя доступным только для чтения (копии в неизменяемых снимках)
+     */
+    void freeze() {
+        frozen = true;
+    }
+
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new UnsupportedOperationException("Reader is a read-only snapshot copy");
+        }
+    }
+
 
     @Override
     public boolean equals(Object o) {
@@ -0,0 +1,364 @@
+package ru.mentee.power.collections.library;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Библиотека, разделённая на N независимых шардов по хешу ISBN.
+ * Каждый шард — обычный (непотокобезопасный) LibraryManager, которым владеет
+ * один поток: все операции над шардом выполняются в его очереди, поэтому
+ * блокировки не нужны, а операции над книгами разных шардов идут параллельно.
+ * <p>
+ * Книга и все её выдачи живут в одном шарде. Читатели копируются во все шарды,
+ * чтобы выдача проверяла читателя без обращения к другим шардам. Запросы по всей
+ * библиотеке (поиск, статистика, рейтинги, просрочки) рассылаются всем шардам,
+ * а результаты сливаются. Книги отдаются копиями только для чтения: оригиналы
+ * меняет поток шарда. Пакетные выдачи не поддерживаются: книги пачки могут
+ * оказаться в разных шардах, и "всё или ничего" потребовало бы координации между ними.
+ */
+public class ShardedLibraryManager implements AutoCloseable {
+
+    private final LibraryManager[] shards;
+    private final ExecutorService[] eventLoops;
+    // Рассылки изменений читателей идут по одной, чтобы все шарды применяли их в одном порядке
+    private final Object readersLock = new Object();
+
+    /**
+     * @param shardCount количество шардов (обычно по числу ядер)
+     */
+    public ShardedLibraryManager(int shardCount) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Shard count must be greater than zero");
+        }
+        this.shards = new LibraryManager[shardCount];
+        this.eventLoops = new ExecutorService[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new LibraryManager(new HashMap<>(), new HashMap<>(), new ArrayList<>(), new HashMap<>());
+            String threadName = "library-shard-" + i;
+            eventLoops[i] = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, threadName);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    int shardOf(String isbn) {
+        int h = isbn.hashCode();
+        h ^= (h >>> 16);
+        return Math.floorMod(h, shards.length);
+    }
+
+    // ============ Доставка операций в шарды ============
+
+    /**
+     * Выполняет операцию в потоке шарда книги и ждёт результата
+     */
+    private <T> T onShardOf(String isbn, Function<LibraryManager, T> operation) {
+        if (isbn == null || isbn.isBlank()) {
+            throw new IllegalArgumentException("ISBN must not be null or blank");
+        }
+        int shard = shardOf(isbn);
+        return await(CompletableFuture.supplyAsync(() -> operation.apply(shards[shard]), eventLoops[shard]));
+    }
+
+    /**
+     * Рассылает операцию всем шардам и собирает результаты в порядке номеров шардов
+     */
+    private <T> List<T> onAllShards(Function<LibraryManager, T> operation) {
+        List<CompletableFuture<T>> futures = new ArrayList<>(shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            LibraryManager shard = shards[i];
+            futures.add(CompletableFuture.supplyAsync(() -> operation.apply(shard), eventLoops[i]));
+        }
+        List<T> results = new ArrayList<>(shards.length);
+        for (CompletableFuture<T> future : futures) {
+            results.add(await(future));
+        }
+        return results;
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // ============ Книги ============
+
+    public boolean addBook(Book book) {
+        if (book == null) {
+            throw new IllegalArgumentException("Book must not be null");
+        }
+        return onShardOf(book.getIsbn(), shard -> shard.addBook(book));
+    }
+
+    /**
+     * Массово добавляет книги: пачка делится по шардам, и шарды загружают свои части параллельно
+     * @return количество добавленных книг
+     */
+    public int addBooks(Collection<Book> books) {
+        if (books == null) {
+            throw new IllegalArgumentException("Books must not be null");
+        }
+        List<List<Book>> partitions = new ArrayList<>(shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            partitions.add(new ArrayList<>());
+        }
+        for (Book book : books) {
+            if (book == null) {
+                throw new IllegalArgumentException("Book must not be null");
+            }
+            partitions.get(shardOf(book.getIsbn())).add(book);
+        }
+        List<CompletableFuture<Integer>> futures = new ArrayList<>(shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            LibraryManager shard = shards[i];
+            List<Book> partition = partitions.get(i);
+            futures.add(CompletableFuture.supplyAsync(() -> shard.addBooks(partition), eventLoops[i]));
+        }
+        int added = 0;
+        for (CompletableFuture<Integer> future : futures) {
+            added += await(future);
+        }
+        return added;
+    }
+
+    /**
+     * @return копия книги только для чтения или null, если книги нет
+     */
+    public Book getBookByIsbn(String isbn) {
+        return onShardOf(isbn, shard -> copyOf(shard.getBookByIsbn(isbn)));
+    }
+
+    /**
+     * Копия снимается в потоке шарда, пока книгу никто не меняет
+     */
+    private static Book copyOf(Book book) {
+        return book == null ? null : book.readOnlyCopy(book.isAvailable());
+    }
+
+    /**
+     * Копии выдач снимаются в потоке шарда: сроки живых выдач меняют продления
+     */
+    private static List<Borrowing> copyOf(List<Borrowing> borrowings) {
+        List<Borrowing> copies = new ArrayList<>(borrowings.size());
+        for (Borrowing borrowing : borrowings) {
+            copies.add(borrowing.readOnlyCopy());
+        }
+        return copies;
+    }
+
+    public boolean removeBook(String isbn) {
+        return onShardOf(isbn, shard -> shard.removeBook(isbn));
+    }
+
+    /**
+     * @return количество книг во всех шардах
+     */
+    public int getBookCount() {
+        int count = 0;
+        for (int shardBooks : onAllShards(LibraryManager::getBookCount)) {
+            count += shardBooks;
+        }
+        return count;
+    }
+
+    /**
+     * Поиск по названию во всех шардах; порядок книг внутри шарда сохраняется
+     */
+    public List<Book> searchBooksByTitle(String titlePart) {
+        if (titlePart == null) {
+            throw new IllegalArgumentException("Title must not be null");
+        }
+        List<Book> result = new ArrayList<>();
+        for (List<Book> found : onAllShards(shard -> shard.searchBooksByTitle(titlePart).stream()
+                .map(ShardedLibraryManager::copyOf)
+                .toList())) {
+            result.addAll(found);
+        }
+        return result;
+    }
+
+    // ============ Читатели ============
+
+    /**
+     * Добавляет читателя во все шарды
+     * @return true если читатель добавлен, false если читатель с таким ID уже есть
+     */
+    public boolean addReader(Reader reader) {
+        if (reader == null) {
+            throw new IllegalArgumentException("reader cannot be null");
+        }
+        synchronized (readersLock) {
+            return agreed(onAllShards(shard -> shard.addReader(reader)), reader.getId());
+        }
+    }
+
+    public Reader getReaderById(String readerId) {
+        if (readerId == null || readerId.isBlank()) {
+            throw new IllegalArgumentException("Reader's id cannot be null or blank");
+        }
+        return await(CompletableFuture.supplyAsync(() -> shards[0].getReaderById(readerId), eventLoops[0]));
+    }
+
+    /**
+     * Удаляет читателя из всех шардов
+     */
+    public boolean removeReader(String readerId) {
+        if (readerId == null || readerId.isBlank()) {
+            throw new IllegalArgumentException("Reader's id cannot be null or blank");
+        }
+        synchronized (readersLock) {
+            return agreed(onAllShards(shard -> shard.removeReader(readerId)), readerId);
+        }
+    }
+
+    /**
+     * Читатели меняются только рассылкой во все шарды, поэтому ответы шардов должны совпадать;
+     * расхождение означает, что копии читателей в шардах уже разошлись
+     */
+    private static boolean agreed(List<Boolean> results, String readerId) {
+        boolean first = results.get(0);
+        for (boolean result : results) {
+            if (result != first) {
+                throw new IllegalStateException("Shards disagree on reader " + readerId);
+            }
+        }
+        return first;
+    }
+
+    // ============ Выдача и возврат ============
+
+    public boolean borrowBook(String isbn, String readerId, int borrowDays) {
+        return onShardOf(isbn, shard -> shard.borrowBook(isbn, readerId, borrowDays));
+    }
+
+    public boolean returnBook(String isbn, String readerId) {
+        return onShardOf(isbn, shard -> shard.returnBook(isbn, readerId));
+    }
+
+    public boolean extendBorrowingPeriod(String isbn, String readerId, int additionalDays) {
+        return onShardOf(isbn, shard -> shard.extendBorrowingPeriod(isbn, readerId, additionalDays));
+    }
+
+    /**
+     * Выдача с явными датами (для тестов и бенчмарков)
+     */
+    boolean borrowBook(String isbn, String readerId, LocalDate borrowDate, LocalDate dueDate) {
+        return onShardOf(isbn, shard -> shard.borrowBook(isbn, readerId, borrowDate, dueDate));
+    }
+
+    public List<Borrowing> getActiveBorrowingsByReader(String readerId) {
+        if (readerId == null || readerId.isBlank()) {
+            throw new IllegalArgumentException("Reader's id cannot be null or blank");
+        }
+        List<Borrowing> result = new ArrayList<>();
+        for (List<Borrowing> active : onAllShards(shard -> copyOf(shard.getActiveBorrowingsByReader(readerId)))) {
+            result.addAll(active);
+        }
+        return result;
+    }
+
+    /**
+     * @return просроченные выдачи всех шардов в порядке срока возврата
+     */
+    public List<Borrowing> getOverdueBorrowings() {
+        List<Borrowing> result = new ArrayList<>();
+        for (List<Borrowing> overdue : onAllShards(shard -> copyOf(shard.getOverdueBorrowings()))) {
+            result.addAll(overdue);
+        }
+        result.sort(Comparator.comparing(Borrowing::getDueDate));
+        return result;
+    }
+
+    // ============ Статистика ============
+
+    public Map<Book.Genre, Integer> getGenreStatistics() {
+        Map<Book.Genre, Integer> result = new EnumMap<>(Book.Genre.class);
+        for (Map<Book.Genre, Integer> statistics : onAllShards(LibraryManager::getGenreStatistics)) {
+            statistics.forEach((genre, count) -> result.merge(genre, count, Integer::sum));
+        }
+        return result;
+    }
+
+    /**
+     * Все выдачи книги хранятся в её шарде, поэтому общий топ — это лучшие
+     * из топов шардов: каждый шард присылает не больше limit книг
+     */
+    public Map<Book, Integer> getMostPopularBooks(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be greater than zero");
+        }
+        List<Map.Entry<Book, Integer>> candidates = new ArrayList<>();
+        for (List<Map.Entry<Book, Integer>> top : onAllShards(shard -> shard.getMostPopularBooks(limit).entrySet().stream()
+                .map(entry -> Map.entry(copyOf(entry.getKey()), entry.getValue()))
+                .toList())) {
+            candidates.addAll(top);
+        }
+        return topEntries(candidates, limit);
+    }
+
+    /**
+     * Выдачи одного читателя разбросаны по шардам, поэтому топ шарда ничего не
+     * говорит об общем — шарды присылают счётчики всех своих читателей
+     */
+    public Map<Reader, Integer> getMostActiveReaders(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be greater than zero");
+        }
+        Map<Reader, Integer> totals = new HashMap<>();
+        for (Map<Reader, Integer> counts : onAllShards(shard -> shard.getMostActiveReaders(Integer.MAX_VALUE))) {
+            counts.forEach((reader, count) -> totals.merge(reader, count, Integer::sum));
+        }
+        return topEntries(new ArrayList<>(totals.entrySet()), limit);
+    }
+
+    private static <K> Map<K, Integer> topEntries(List<Map.Entry<K, Integer>> entries, int limit) {
+        entries.sort(Map.Entry.<K, Integer>comparingByValue().reversed());
+        Map<K, Integer> result = new LinkedHashMap<>();
+        for (Map.Entry<K, Integer> entry : entries.subList(0, Math.min(limit, entries.size()))) {
+            result.put(entry.getKey(), entry.getValue());
+        }
+        return result;
+    }
+
+    /**
+     * Останавливает потоки шардов, дождавшись уже принятых операций
+     */
+    @Override
+    public void close() {
+        for (ExecutorService eventLoop : eventLoops) {
+            eventLoop.shutdown();
+        }
+        try {
+            for (ExecutorService eventLoop : eventLoops) {
+                eventLoop.awaitTermination(10, TimeUnit.SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
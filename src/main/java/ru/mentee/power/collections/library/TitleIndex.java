@@ -0,0 +1,183 @@
+package ru.mentee.power.collections.library;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Инвертированный индекс триграмм по названиям книг.
+ * Название приводится к нижнему регистру один раз при добавлении книги;
+ * поиск подстроки пересекает списки книг по триграммам запроса и
+ * проверяет только оставшихся кандидатов.
+ */
+final class TitleIndex {
+
+    private static final int GRAM_LENGTH = 3;
+
+    private final boolean concurrent;
+    private final Map<Book, String> lowerCaseTitles;
+    private final Map<String, Set<Book>> postings;
+
+    TitleIndex(boolean concurrent) {
+        this.concurrent = concurrent;
+        this.lowerCaseTitles = concurrent ? new ConcurrentHashMap<>() : new HashMap<>();
+        this.postings = concurrent ? new ConcurrentHashMap<>() : new HashMap<>();
+    }
+
+    void add(Book book) {
+        if (book.getTitle() == null) {
+            return;
+        }
+        String title = book.getTitle().toLowerCase();
+        lowerCaseTitles.put(book, title);
+        for (String gram : grams(title)) {
+            postings.compute(gram, (g, books) -> {
+                Set<Book> result = books == null ? newPostingSet() : books;
+                result.add(book);
+                return result;
+            });
+        }
+    }
+
+    /**
+     * Добавляет пачку книг: названия разбиваются на триграммы параллельно,
+     * а в общие списки каждая триграмма попадает одним addAll
+     */
+    void addAll(Collection<Book> books) {
+        Map<Book, String> titles = books.parallelStream()
+                .filter(book -> book.getTitle() != null)
+                .collect(Collectors.toMap(Function.identity(), book -> book.getTitle().toLowerCase(),
+                        (first, second) -> first));
+        lowerCaseTitles.putAll(titles);
+
+        Map<String, List<Book>> grouped = titles.entrySet().parallelStream()
+                .flatMap(entry -> grams(entry.getValue()).stream().map(gram -> Map.entry(gram, entry.getKey())))
+                .collect(Collectors.groupingByConcurrent(Map.Entry::getKey,
+                        Collectors.mapping(Map.Entry::getValue, Collectors.toList())));
+        grouped.forEach((gram, booksOfGram) -> postings.compute(gram, (g, existing) -> {
+            Set<Book> result = existing == null ? newPostingSet() : existing;
+            result.addAll(booksOfGram);
+            return result;
+        }));
+    }
+
+    void remove(Book book) {
+        String title = lowerCaseTitles.remove(book);
+        if (title == null) {
+            return;
+        }
+        for (String gram : grams(title)) {
+            postings.computeIfPresent(gram, (g, books) -> {
+                books.remove(book);
+                return books.isEmpty() ? null : books;
+            });
+        }
+    }
+
+    /**
+     * Ищет книги, название которых содержит строку (без учета регистра)
+     * @param titlePart часть названия
+     * @return список найденных книг
+     */
+    List<Book> search(String titlePart) {
+        String query = titlePart.toLowerCase();
+        if (query.length() < GRAM_LENGTH) {
+            return scan(query); // у короткого запроса нет ни одной триграммы
+        }
+
+        List<Set<Book>> lists = new ArrayList<>();
+        for (String gram : grams(query)) {
+            Set<Book> books = postings.get(gram);
+            if (books == null) {
+                return Collections.emptyList();
+            }
+            lists.add(books);
+        }
+        lists.sort((a, b) -> Integer.compare(a.size(), b.size()));
+
+        List<Book> result = new ArrayList<>();
+        Set<Book> smallest = lists.get(0);
+        for (Book candidate : smallest) {
+            if (containsInAll(lists, candidate)) {
+                String title = lowerCaseTitles.get(candidate);
+                // Триграммы могут встретиться в разных местах названия — проверяем подстроку целиком
+                if (title != null && title.contains(query)) {
+                    result.add(candidate);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Проверяет название проиндексированной книги по уже нормализованному
+     * названию, не приводя его к нижнему регистру заново
+     * @param lowerCaseQuery часть названия в нижнем регистре
+     * @return false, если названия нет или книга не в индексе
+     */
+    boolean titleContains(Book book, String lowerCaseQuery) {
+        String title = lowerCaseTitles.get(book);
+        return title != null && title.contains(lowerCaseQuery);
+    }
+
+    /**
+     * Оценка числа кандидатов для поиска без самого поиска: размер самого короткого
+     * списка триграмм запроса (короткий запрос проверяет все названия)
+     * @param titlePart часть названия
+     * @return верхняя граница количества найденных книг
+     */
+    int estimate(String titlePart) {
+        String query = titlePart.toLowerCase();
+        if (query.length() < GRAM_LENGTH) {
+            return lowerCaseTitles.size();
+        }
+        int smallest = Integer.MAX_VALUE;
+        for (String gram : grams(query)) {
+            Set<Book> books = postings.get(gram);
+            if (books == null) {
+                return 0;
+            }
+            smallest = Math.min(smallest, books.size());
+        }
+        return smallest;
+    }
+
+    private List<Book> scan(String query) {
+        List<Book> result = new ArrayList<>();
+        for (Map.Entry<Book, String> entry : lowerCaseTitles.entrySet()) {
+            if (entry.getValue().contains(query)) {
+                result.add(entry.getKey());
+            }
+        }
+        return result;
+    }
+
+    private static boolean containsInAll(List<Set<Book>> lists, Book candidate) {
+        for (int i = 1; i < lists.size(); i++) {
+            if (!lists.get(i).contains(candidate)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM_LENGTH));
+        }
+        return grams;
+    }
+
+    private Set<Book> newPostingSet() {
+        return concurrent ? ConcurrentHashMap.newKeySet() : new HashSet<>();
+    }
+}
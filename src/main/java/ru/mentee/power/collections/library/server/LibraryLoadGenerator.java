@@ -0,0 +1,225 @@
+package ru.mentee.power.collections.library.server;
+
+import ru.mentee.power.collections.library.Book;
+import ru.mentee.power.collections.library.ConcurrentLibraryManager;
+import ru.mentee.power.collections.library.Reader;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Локальная нагрузка на LibraryServer: много одновременных клиентов, каждый в своём
+ * виртуальном потоке и со своим соединением. Сначала все клиенты подключаются,
+ * затем одновременно отправляют запросы; по задержкам всех запросов считаются
+ * p50/p99/max и пропускная способность. Если хотя бы один клиент не смог подключиться
+ * или завершился с ошибкой, прогон завершается IOException с числом неудачных клиентов.
+ * Запуск: java ... LibraryLoadGenerator [клиентов] [запросов на клиента] [книг]
+ * <p>
+ * Для 10 000 клиентов нужен лимит открытых файлов не меньше ~20 000 (ulimit -n).
+ */
+public class LibraryLoadGenerator {
+
+    private static final int DEFAULT_CLIENTS = 10_000;
+    private static final int DEFAULT_REQUESTS = 20;
+    private static final int DEFAULT_BOOKS = 100_000;
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_CLIENTS;
+        int requestsPerClient = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_REQUESTS;
+        int bookCount = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_BOOKS;
+
+        ConcurrentLibraryManager manager = new ConcurrentLibraryManager(256, bookCount);
+        manager.addBooks(generateBooks(bookCount));
+        for (int i = 0; i < clients; i++) {
+            manager.addReader(new Reader("R" + i, "Reader " + i, "r" + i + "@mail", Reader.ReaderCategory.REGULAR));
+        }
+
+        try (LibraryServer server = LibraryServer.start(manager, 0)) {
+            System.out.printf("Клиентов: %d, запросов на клиента: %d, книг: %d%n",
+                    clients, requestsPerClient, bookCount);
+            Result result = run(server.getPort(), clients, requestsPerClient, bookCount);
+            result.print();
+        }
+    }
+
+    private static List<Book> generateBooks(int count) {
+        Random random = new Random(42);
+        Book.Genre[] genres = Book.Genre.values();
+        List<Book> books = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Book book = new Book("ISBN" + i, "Book " + i, 1950 + random.nextInt(75),
+                    genres[random.nextInt(genres.length)]);
+            book.addAuthor("Author " + random.nextInt(count / 10 + 1));
+            books.add(book);
+        }
+        return books;
+    }
+
+    static Result run(int port, int clients, int requestsPerClient, int bookCount) throws Exception {
+        CountDownLatch connected = new CountDownLatch(clients);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<long[]>> futures = new ArrayList<>(clients);
+        long elapsed;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clients; c++) {
+                String readerId = "R" + c;
+                futures.add(executor.submit(() -> client(port, readerId, requestsPerClient, bookCount,
+                        connected, start)));
+            }
+            // Клиент отсчитывает latch и при неудачном подключении, поэтому ожидание не зависает
+            connected.await();
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Future<long[]> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    // Ошибки собираются ниже, после завершения всех клиентов
+                }
+            }
+            elapsed = System.nanoTime() - begin;
+        }
+
+        long[] latencies = new long[clients * requestsPerClient];
+        int offset = 0;
+        int failed = 0;
+        Throwable firstFailure = null;
+        for (Future<long[]> future : futures) {
+            long[] clientLatencies;
+            try {
+                clientLatencies = future.get();
+            } catch (ExecutionException e) {
+                failed++;
+                if (firstFailure == null) {
+                    firstFailure = e.getCause();
+                }
+                continue;
+            }
+            System.arraycopy(clientLatencies, 0, latencies, offset, clientLatencies.length);
+            offset += clientLatencies.length;
+        }
+        if (failed > 0) {
+            throw new IOException("Клиентов завершилось с ошибкой: " + failed + " из " + clients, firstFailure);
+        }
+        Arrays.sort(latencies);
+        return new Result(latencies, elapsed);
+    }
+
+    /**
+     * Один клиент: подключается, ждёт общего старта и выполняет смесь запросов
+     * (60% GET, 20% SEARCH, 15% BORROW/RETURN, 5% STATS)
+     * @return задержки запросов, нс
+     */
+    private static long[] client(int port, String readerId, int requests, int bookCount,
+                                 CountDownLatch connected, CountDownLatch start) throws Exception {
+        long[] latencies = new long[requests];
+        Socket connection;
+        try {
+            connection = new Socket(InetAddress.getLoopbackAddress(), port);
+        } finally {
+            connected.countDown();
+        }
+        try (Socket socket = connection;
+             BufferedReader in = new BufferedReader(
+                     new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             BufferedWriter out = new BufferedWriter(
+                     new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            socket.setTcpNoDelay(true);
+            start.await();
+
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            String borrowed = null;
+            for (int i = 0; i < requests; i++) {
+                int kind = random.nextInt(100);
+                String isbn = "ISBN" + random.nextInt(bookCount);
+                String request;
+                if (kind < 60) {
+                    request = "GET " + isbn;
+                } else if (kind < 75) {
+                    request = borrowed == null
+                            ? "BORROW " + isbn + " " + readerId + " 14"
+                            : "RETURN " + borrowed + " " + readerId;
+                } else if (kind < 95) {
+                    // Номер из старшего десятка: запросу соответствует не больше десятка книг
+                    request = "SEARCH Book " + random.nextInt(bookCount / 10, bookCount);
+                } else {
+                    request = "STATS";
+                }
+
+                long begin = System.nanoTime();
+                out.write(request);
+                out.write('\n');
+                out.flush();
+                String status = read(in, request.startsWith("SEARCH"));
+                latencies[i] = System.nanoTime() - begin;
+                if (request.startsWith("BORROW") && status.equals("OK")) {
+                    borrowed = isbn;
+                } else if (request.startsWith("RETURN")) {
+                    borrowed = null;
+                }
+            }
+            out.write(LibraryProtocol.QUIT);
+            out.write('\n');
+            out.flush();
+            in.readLine();
+        }
+        return latencies;
+    }
+
+    private static String read(BufferedReader in, boolean search) throws IOException {
+        String status = in.readLine();
+        if (status == null) {
+            throw new IOException("Сервер закрыл соединение");
+        }
+        if (search && status.startsWith("OK ")) {
+            // За строкой "OK n" идут n строк с книгами
+            for (int i = Integer.parseInt(status.substring(3)); i > 0; i--) {
+                in.readLine();
+            }
+        }
+        return status;
+    }
+
+    static final class Result {
+        private final long[] sortedLatencies;
+        private final long elapsedNanos;
+
+        private Result(long[] sortedLatencies, long elapsedNanos) {
+            this.sortedLatencies = sortedLatencies;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        long percentile(double p) {
+            int index = (int) Math.ceil(p / 100 * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(0, Math.min(index, sortedLatencies.length - 1))];
+        }
+
+        double throughput() {
+            return sortedLatencies.length / (elapsedNanos / 1_000_000_000.0);
+        }
+
+        void print() {
+            System.out.printf("Запросов: %d за %.2f с%n", sortedLatencies.length, elapsedNanos / 1e9);
+            System.out.printf("Пропускная способность: %.0f запросов/с%n", throughput());
+            System.out.printf("p50: %.3f мс, p99: %.3f мс, max: %.3f мс%n",
+                    percentile(50) / 1e6, percentile(99) / 1e6,
+                    sortedLatencies[sortedLatencies.length - 1] / 1e6);
+        }
+    }
+}
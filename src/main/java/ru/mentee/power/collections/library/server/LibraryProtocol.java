@@ -0,0 +1,111 @@
+package ru.mentee.power.collections.library.server;
+
+import ru.mentee.power.collections.library.Book;
+import ru.mentee.power.collections.library.LibraryManager;
+
+import java.util.List;
+
+/**
+ * Текстовый протокол сервера: одна команда на строку, ответ начинается с OK, FAIL,
+ * NOT_FOUND или ERROR.
+ * <pre>
+ * GET &lt;isbn&gt;                      OK &lt;книга&gt; | NOT_FOUND
+ * SEARCH &lt;часть названия&gt;         OK &lt;n&gt; и n строк с книгами
+ * BORROW &lt;isbn&gt; &lt;reader&gt; &lt;days&gt;   OK | FAIL
+ * RETURN &lt;isbn&gt; &lt;reader&gt;          OK | FAIL
+ * STATS                           OK books=... readers=... overdue=...
+ * QUIT                            BYE, соединение закрывается
+ * </pre>
+ * Строка запроса длиннее {@value #MAX_LINE_LENGTH} символов получает ответ ERROR.
+ * Книга передаётся полями через табуляцию: isbn, название, год, жанр, доступность.
+ */
+final class LibraryProtocol {
+
+    static final String QUIT = "QUIT";
+    static final String BYE = "BYE";
+    static final int MAX_LINE_LENGTH = 1024;
+
+    private final LibraryManager manager;
+
+    LibraryProtocol(LibraryManager manager) {
+        this.manager = manager;
+    }
+
+    /**
+     * Выполняет одну команду
+     * @param line строка запроса без перевода строки
+     * @return ответ; для SEARCH — несколько строк, разделённых '\n'
+     */
+    String handle(String line) {
+        String[] parts = line.strip().split("\\s+", 2);
+        String command = parts[0].toUpperCase();
+        String arguments = parts.length > 1 ? parts[1] : "";
+        try {
+            return switch (command) {
+                case "GET" -> get(arguments);
+                case "SEARCH" -> search(arguments);
+                case "BORROW" -> borrow(arguments);
+                case "RETURN" -> returnBook(arguments);
+                case "STATS" -> stats();
+                case QUIT -> BYE;
+                default -> "ERROR unknown command " + command;
+            };
+        } catch (IllegalArgumentException e) {
+            return "ERROR " + e.getMessage();
+        }
+    }
+
+    private String get(String isbn) {
+        Book book = manager.getBookByIsbn(isbn);
+        return book == null ? "NOT_FOUND" : "OK " + format(book);
+    }
+
+    private String search(String titlePart) {
+        if (titlePart.isEmpty()) {
+            throw new IllegalArgumentException("Title part must not be empty");
+        }
+        List<Book> books = manager.searchBooksByTitle(titlePart);
+        StringBuilder response = new StringBuilder("OK ").append(books.size());
+        for (Book book : books) {
+            response.append('\n').append(format(book));
+        }
+        return response.toString();
+    }
+
+    private String borrow(String arguments) {
+        String[] args = split(arguments, 3, "BORROW <isbn> <reader> <days>");
+        int days;
+        try {
+            days = Integer.parseInt(args[2]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Days must be a number: " + args[2]);
+        }
+        return manager.borrowBook(args[0], args[1], days) ? "OK" : "FAIL";
+    }
+
+    private String returnBook(String arguments) {
+        String[] args = split(arguments, 2, "RETURN <isbn> <reader>");
+        return manager.returnBook(args[0], args[1]) ? "OK" : "FAIL";
+    }
+
+    private String stats() {
+        return "OK books=" + manager.getBookCount()
+                + " readers=" + manager.getReaderCount()
+                + " overdue=" + manager.getOverdueCount();
+    }
+
+    private static String[] split(String arguments, int count, String usage) {
+        String[] args = arguments.isEmpty() ? new String[0] : arguments.split("\\s+");
+        if (args.length != count) {
+            throw new IllegalArgumentException("Usage: " + usage);
+        }
+        return args;
+    }
+
+    static String format(Book book) {
+        // Табуляция и переводы строк в названии сломали бы разбор ответа
+        String title = book.getTitle() == null ? "" : book.getTitle().replaceAll("[\\t\\r\\n]", " ");
+        return book.getIsbn() + '\t' + title + '\t' + book.getPublicationYear()
+                + '\t' + book.getGenre() + '\t' + book.isAvailable();
+    }
+}
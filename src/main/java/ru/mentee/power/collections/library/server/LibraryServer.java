@@ -0,0 +1,228 @@
+package ru.mentee.power.collections.library.server;
+
+import ru.mentee.power.collections.library.ConcurrentLibraryManager;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Сервер текстового протокола (см. {@link LibraryProtocol}) поверх ConcurrentLibraryManager.
+ * Каждое соединение обслуживает отдельный виртуальный поток: код остаётся простым
+ * блокирующим, а ожидание сети не занимает потоки ОС, поэтому десятки тысяч
+ * одновременных клиентов не требуют пула потоков и асинхронного ввода-вывода.
+ * Сервер слушает только локальный адрес.
+ */
+public class LibraryServer implements Closeable {
+
+    // Очередь ещё не принятых соединений: при "залпе" подключений её должно хватить
+    private static final int BACKLOG = 16_384;
+    // Пауза после ошибки приёма растёт вдвое до предела и сбрасывается удачным приёмом
+    private static final long MIN_ACCEPT_BACKOFF_MILLIS = 5;
+    private static final long MAX_ACCEPT_BACKOFF_MILLIS = 1_000;
+    private static final long CLOSE_TIMEOUT_SECONDS = 10;
+
+    private final LibraryProtocol protocol;
+    private final ServerSocket serverSocket;
+    private final ExecutorService connections = Executors.newVirtualThreadPerTaskExecutor();
+    private final Set<Socket> openSockets = ConcurrentHashMap.newKeySet();
+    private final LongAdder acceptedConnections = new LongAdder();
+    private final LongAdder handledRequests = new LongAdder();
+    private final LongAdder failedAccepts = new LongAdder();
+    private final LongAdder failedConnections = new LongAdder();
+    // Последняя ошибка приёма или обслуживания соединения
+    private volatile IOException lastFailure;
+    private final Thread acceptor;
+    private volatile boolean closed;
+
+    private LibraryServer(ConcurrentLibraryManager manager, ServerSocket serverSocket) {
+        this.protocol = new LibraryProtocol(manager);
+        this.serverSocket = serverSocket;
+        this.acceptor = Thread.ofVirtual().name("library-acceptor").unstarted(this::acceptLoop);
+    }
+
+    /**
+     * Запускает сервер
+     * @param manager потокобезопасный менеджер библиотеки
+     * @param port порт (0 — любой свободный)
+     * @return запущенный сервер
+     */
+    public static LibraryServer start(ConcurrentLibraryManager manager, int port) throws IOException {
+        if (manager == null) {
+            throw new IllegalArgumentException("Manager must not be null");
+        }
+        if (port < 0 || port > 65_535) {
+            throw new IllegalArgumentException("Port must be between 0 and 65535");
+        }
+        ServerSocket serverSocket = new ServerSocket();
+        serverSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), BACKLOG);
+        LibraryServer server = new LibraryServer(manager, serverSocket);
+        server.acceptor.start();
+        return server;
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public long getAcceptedConnections() {
+        return acceptedConnections.sum();
+    }
+
+    public long getHandledRequests() {
+        return handledRequests.sum();
+    }
+
+    /**
+     * @return количество открытых сейчас соединений
+     */
+    public int getOpenConnections() {
+        return openSockets.size();
+    }
+
+    /**
+     * @return количество неудачных попыток принять соединение (например, кончились дескрипторы)
+     */
+    public long getFailedAccepts() {
+        return failedAccepts.sum();
+    }
+
+    /**
+     * @return количество соединений, оборванных ошибкой ввода-вывода
+     */
+    public long getFailedConnections() {
+        return failedConnections.sum();
+    }
+
+    /**
+     * @return последняя ошибка приёма или обслуживания соединения, null если ошибок не было
+     */
+    public IOException getLastFailure() {
+        return lastFailure;
+    }
+
+    /**
+     * Устойчивая ошибка accept (например, исчерпаны дескрипторы) повторялась бы
+     * без паузы и занимала ядро, поэтому после ошибки цикл выжидает
+     */
+    private void acceptLoop() {
+        long backoffMillis = MIN_ACCEPT_BACKOFF_MILLIS;
+        while (!closed) {
+            try {
+                Socket socket = serverSocket.accept();
+                backoffMillis = MIN_ACCEPT_BACKOFF_MILLIS;
+                acceptedConnections.increment();
+                openSockets.add(socket);
+                connections.submit(() -> serve(socket));
+            } catch (IOException e) {
+                if (closed) {
+                    return;
+                }
+                failedAccepts.increment();
+                lastFailure = e;
+                try {
+                    Thread.sleep(backoffMillis);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+                backoffMillis = Math.min(backoffMillis * 2, MAX_ACCEPT_BACKOFF_MILLIS);
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(
+                     new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             BufferedWriter out = new BufferedWriter(
+                     new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            socket.setTcpNoDelay(true);
+            StringBuilder line = new StringBuilder();
+            while (readLine(in, line)) {
+                if (line.toString().isBlank()) {
+                    continue;
+                }
+                String response = line.length() > LibraryProtocol.MAX_LINE_LENGTH
+                        ? "ERROR request line is longer than " + LibraryProtocol.MAX_LINE_LENGTH + " characters"
+                        : protocol.handle(line.toString());
+                handledRequests.increment();
+                out.write(response);
+                out.write('\n');
+                out.flush();
+                if (LibraryProtocol.BYE.equals(response)) {
+                    break;
+                }
+            }
+        } catch (SocketException e) {
+            // Клиент оборвал соединение или сервер закрывается
+        } catch (IOException e) {
+            failedConnections.increment();
+            lastFailure = e;
+        } finally {
+            openSockets.remove(socket);
+        }
+    }
+
+    /**
+     * Читает строку запроса, как BufferedReader.readLine, но не накапливает больше
+     * MAX_LINE_LENGTH + 1 символов: остаток слишком длинной строки пропускается,
+     * и длина line показывает только, что предел превышен
+     * @return false в конце потока
+     */
+    private static boolean readLine(BufferedReader in, StringBuilder line) throws IOException {
+        line.setLength(0);
+        int c = in.read();
+        if (c == -1) {
+            return false;
+        }
+        boolean carriageReturn = false;
+        while (c != -1 && c != '\n') {
+            if (line.length() <= LibraryProtocol.MAX_LINE_LENGTH) {
+                line.append((char) c);
+            }
+            carriageReturn = c == '\r';
+            c = in.read();
+        }
+        if (carriageReturn && line.length() <= LibraryProtocol.MAX_LINE_LENGTH) {
+            line.setLength(line.length() - 1);
+        }
+        return true;
+    }
+
+    /**
+     * Перестаёт принимать соединения, закрывает открытые и ждёт,
+     * пока их потоки завершатся (не дольше 10 секунд)
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        serverSocket.close();
+        acceptor.interrupt();
+        try {
+            // После остановки приёма новых сокетов в openSockets не появится
+            acceptor.join();
+            for (Socket socket : openSockets) {
+                socket.close();
+            }
+            connections.shutdown();
+            connections.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
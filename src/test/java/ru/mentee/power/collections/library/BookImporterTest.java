@@ -0,0 +1,71 @@
+package ru.mentee.power.collections.library;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BookImporterTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Должен загружать CSV, пропуская заголовок, дубликаты и ошибочные строки")
+    void shouldImportCsvFile() throws Exception {
+        Path file = directory.resolve("catalog.csv");
+        Files.write(file, List.of(
+                "isbn,title,publicationYear,genre,pageCount,authors",
+                "ISBN1,Java Basics,2020,FANTASY,320,Михаил Луконин",
+                "ISBN2,\"Rome, \"\"Eternal\"\" City\",2018,history,,Эрнест Самонов;Михаил Лук",
+                "ISBN1,Java Basics again,2021,FANTASY,100,Кто-то",
+                "ISBN3,Broken,not-a-year,FICTION,10,Автор",
+                ""));
+        LibraryManager manager = LibraryManager.withExpectedSize(10, 10);
+
+        BookImporter.Report report = BookImporter.importCsv(file, manager);
+
+        assertThat(report.getRead()).isEqualTo(3);
+        assertThat(report.getAdded()).isEqualTo(2);
+        assertThat(report.getDuplicates()).isEqualTo(1);
+        assertThat(report.getMalformed()).isEqualTo(1);
+        assertThat(manager.getBookByIsbn("ISBN1").getTitle()).isEqualTo("Java Basics");
+        Book rome = manager.getBookByIsbn("ISBN2");
+        assertThat(rome.getTitle()).isEqualTo("Rome, \"Eternal\" City");
+        assertThat(rome.getGenre()).isEqualTo(Book.Genre.HISTORY);
+        assertThat(rome.getAuthors()).containsExactlyInAnyOrder("Эрнест Самонов", "Михаил Лук");
+        assertThat(manager.searchBooksByTitle("eternal")).containsExactly(rome);
+    }
+
+    @Test
+    @DisplayName("Должен загружать большой поток книг в потокобезопасный менеджер")
+    void shouldImportStreamIntoConcurrentManager() {
+        ConcurrentLibraryManager manager = new ConcurrentLibraryManager(16, 10_000);
+
+        BookImporter.Report report = BookImporter.importBooks(IntStream.range(0, 10_000).mapToObj(i -> {
+            Book book = new Book("ISBN" + i, "Book " + i, 1990 + i % 30, Book.Genre.values()[i % 9]);
+            book.addAuthor("Author " + i % 100);
+            return book;
+        }), manager);
+
+        assertThat(report.getAdded()).isEqualTo(10_000);
+        assertThat(report.getBooksPerSecond()).isPositive();
+        assertThat(manager.getBooksByAuthor("Author 7")).hasSize(100);
+        assertThat(manager.getBookCountByGenre(Book.Genre.FICTION)).isEqualTo(1112);
+        assertThat(manager.searchBooksByTitle("book 9999")).extracting(Book::getIsbn).containsExactly("ISBN9999");
+    }
+
+    @Test
+    @DisplayName("Должен отклонять строку с неверным количеством полей")
+    void shouldRejectLineWithWrongFieldCount() {
+        assertThatThrownBy(() -> BookImporter.parseLine("ISBN1,Title,2020"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,186 @@
+package ru.mentee.power.collections.library;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+class BorrowingArchiveTest {
+
+    private static final LocalDate JANUARY = LocalDate.of(2024, 1, 10);
+    private static final LocalDate MARCH = LocalDate.of(2024, 3, 5);
+
+    @TempDir
+    Path directory;
+
+    private LibraryManager manager;
+
+    private static LibraryManager newManager() {
+        LibraryManager manager = new LibraryManager(new HashMap<>(), new HashMap<>(), new ArrayList<>(), new HashMap<>());
+        for (int i = 1; i <= 3; i++) {
+            Book book = new Book("ISBN" + i, "Книга " + i, 2000 + i, Book.Genre.FICTION);
+            book.addAuthor("Author " + i);
+            manager.addBook(book);
+        }
+        manager.addReader(new Reader("R1", "Иван", "ivan@mail.ru", Reader.ReaderCategory.STUDENT));
+        manager.addReader(new Reader("R2", "Анна", "anna@mail.ru", Reader.ReaderCategory.REGULAR));
+        return manager;
+    }
+
+    /**
+     * Три закрытые выдачи (январь, январь, март) и одна открытая
+     */
+    private static void fillHistory(LibraryManager manager) {
+        manager.borrowBook("ISBN1", "R1", JANUARY.minusDays(7), JANUARY.plusDays(7));
+        manager.returnBook("ISBN1", "R1", JANUARY);
+        manager.borrowBook("ISBN2", "R2", JANUARY.minusDays(7), JANUARY.plusDays(7));
+        manager.returnBook("ISBN2", "R2", JANUARY.plusDays(1));
+        manager.borrowBook("ISBN1", "R2", MARCH.minusDays(7), MARCH.plusDays(7));
+        manager.returnBook("ISBN1", "R2", MARCH);
+        manager.borrowBook("ISBN3", "R1", 14);
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        manager = newManager();
+        manager.attachArchive(BorrowingArchive.open(directory));
+        fillHistory(manager);
+    }
+
+    @Test
+    @DisplayName("Перенос убирает старые выдачи из памяти, но история их по-прежнему видит")
+    void shouldKeepHistoryTransparentAfterArchiving() throws Exception {
+        int archived = manager.archiveReturnedBorrowings(MARCH.plusDays(1));
+
+        assertThat(archived).isEqualTo(3);
+        assertThat(manager.getHotBorrowings()).hasSize(1);
+        assertThat(manager.getArchive().size()).isEqualTo(3);
+        assertThat(manager.getBorrowingsByBook("ISBN1")).extracting(Borrowing::getReaderId)
+                .containsExactly("R1", "R2");
+        assertThat(manager.getBorrowingsByReader("R1")).extracting(Borrowing::getIsbn)
+                .containsExactly("ISBN1", "ISBN3");
+        assertThat(manager.getAllBorrowings()).hasSize(4);
+        assertThat(manager.streamBorrowings().filter(Borrowing::isReturned)).hasSize(3);
+        assertThat(manager.getActiveBorrowingsByReader("R1")).extracting(Borrowing::getIsbn).containsExactly("ISBN3");
+    }
+
+    @Test
+    @DisplayName("История с архивом идёт по номерам выдач, даже если выдачи попали в память не по порядку")
+    void shouldMergeOutOfOrderHotHistory() throws Exception {
+        manager.archiveReturnedBorrowings(MARCH.plusDays(1));
+        // Параллельные выдачи могут дописаться в историю в обратном порядке номеров
+        for (long sequence : new long[]{9, 7}) {
+            Borrowing borrowing = new Borrowing("ISBN2", "R2", MARCH.plusDays(sequence), MARCH.plusDays(sequence + 7));
+            borrowing.setSequence(sequence);
+            borrowing.returnBook(MARCH.plusDays(sequence + 1));
+            manager.restoreBorrowing(borrowing);
+        }
+
+        assertThat(manager.getBorrowingsByReader("R2")).extracting(Borrowing::getSequence)
+                .containsExactly(2L, 3L, 7L, 9L);
+        assertThat(manager.getBorrowingsByBook("ISBN2")).extracting(Borrowing::getSequence)
+                .containsExactly(2L, 7L, 9L);
+    }
+
+    @Test
+    @DisplayName("Переносятся только выдачи, возвращённые раньше водяного знака, по сегменту на месяц")
+    void shouldPartitionSegmentsByReturnMonth() throws Exception {
+        assertThat(manager.archiveReturnedBorrowings(JANUARY.plusDays(5))).isEqualTo(2);
+        assertThat(manager.archiveReturnedBorrowings(MARCH.plusDays(1))).isEqualTo(1);
+        assertThat(manager.archiveReturnedBorrowings(MARCH.plusDays(1))).isZero();
+
+        BorrowingArchive archive = manager.getArchive();
+        assertThat(archive.getSegmentCount()).isEqualTo(2);
+        assertThat(archive.getWatermark()).isEqualTo(MARCH.plusDays(1));
+        assertThat(archive.findByReader("R2")).extracting(Borrowing::getIsbn).containsExactly("ISBN2", "ISBN1");
+        assertThat(archive.findByBook("ISBN3")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Архив переживает перезапуск, номера выдач не повторяются")
+    void shouldReopenArchiveFromDisk() throws Exception {
+        manager.archiveReturnedBorrowings(MARCH.plusDays(1));
+        long lastSequence = manager.getArchive().getMaxSequence();
+
+        LibraryManager reopened = newManager();
+        reopened.attachArchive(BorrowingArchive.open(directory));
+        reopened.borrowBook("ISBN2", "R1", 7);
+
+        assertThat(reopened.getBorrowingsByReader("R2")).hasSize(2);
+        assertThat(reopened.getBorrowingsByBook("ISBN2")).extracting(Borrowing::getSequence)
+                .doesNotHaveDuplicates()
+                .last().isEqualTo(lastSequence + 1);
+    }
+
+    @Test
+    @DisplayName("Рейтинги после перезапуска учитывают архивные выдачи ровно один раз")
+    void shouldRestoreRankingsFromArchive() throws Exception {
+        Path storeDirectory = directory.resolve("store");
+        LibraryManager stored = newManager();
+        try (LibraryStore store = LibraryStore.open(storeDirectory, stored)) {
+            fillHistory(stored);
+            assertThat(store.archiveReturnedBorrowings(Period.ZERO)).isEqualTo(3);
+        }
+
+        LibraryManager restored = newManager();
+        LibraryStore.open(storeDirectory, restored).close();
+        assertThat(restored.getMostPopularBooks(3).entrySet())
+                .extracting(entry -> entry.getKey().getIsbn(), Map.Entry::getValue)
+                .containsExactly(tuple("ISBN1", 2), tuple("ISBN2", 1), tuple("ISBN3", 1));
+        assertThat(restored.getMostActiveReaders(2).entrySet())
+                .extracting(entry -> entry.getKey().getId(), Map.Entry::getValue)
+                .containsExactly(tuple("R1", 2), tuple("R2", 2));
+    }
+
+    @Test
+    @DisplayName("Выдачи, перенесённые после контрольной точки, не дублируются при восстановлении")
+    void shouldNotDuplicateArchivedBorrowingsAfterRecovery() throws Exception {
+        Path storeDirectory = directory.resolve("store");
+        LibraryManager stored = newManager();
+        try (LibraryStore store = LibraryStore.open(storeDirectory, stored)) {
+            fillHistory(stored);
+            store.checkpoint();
+            stored.returnBook("ISBN3", "R1");
+            // Перенос без новой контрольной точки: старая точка ещё содержит эти выдачи
+            assertThat(stored.archiveReturnedBorrowings(Period.ZERO)).isEqualTo(3);
+        }
+
+        LibraryManager restored = newManager();
+        try (LibraryStore store = LibraryStore.open(storeDirectory, restored)) {
+            assertThat(restored.getHotBorrowings()).hasSize(1);
+            assertThat(restored.getAllBorrowings()).hasSize(4);
+            assertThat(restored.getBorrowingsByBook("ISBN1")).hasSize(2);
+            assertThat(restored.getBookByIsbn("ISBN3").isAvailable()).isTrue();
+
+            assertThat(restored.archiveReturnedBorrowings(LocalDate.now().plusDays(1))).isEqualTo(1);
+            store.checkpoint();
+        }
+
+        LibraryManager reopened = newManager();
+        LibraryStore.open(storeDirectory, reopened).close();
+        assertThat(reopened.getHotBorrowings()).isEmpty();
+        assertThat(reopened.getAllBorrowings()).hasSize(4);
+    }
+
+    @Test
+    @DisplayName("Без подключенного архива перенос невозможен")
+    void shouldRequireAttachedArchive() {
+        LibraryManager plain = newManager();
+
+        assertThatThrownBy(() -> plain.archiveReturnedBorrowings(Period.ofDays(30)))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> plain.attachArchive(null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
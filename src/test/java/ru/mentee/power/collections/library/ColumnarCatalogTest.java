@@ -0,0 +1,82 @@
+package ru.mentee.power.collections.library;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ColumnarCatalogTest {
+
+    private LibraryManager libraryManager;
+    private ColumnarCatalog columns;
+
+    @BeforeEach
+    void setUp() {
+        libraryManager = new LibraryManager(new HashMap<>(), new HashMap<>(), new ArrayList<>(), new HashMap<>());
+        libraryManager.addBook(book("ISBN1", 2001, Book.Genre.SCIENCE, 300, "Иванов", "Петров"));
+        libraryManager.addBook(book("ISBN2", 2005, Book.Genre.SCIENCE, 100, "Иванов"));
+        libraryManager.addReader(new Reader("R1", "Иван", "ivan@mail.ru", Reader.ReaderCategory.STUDENT));
+
+        columns = ColumnarCatalog.attach(libraryManager);
+    }
+
+    private static Book book(String isbn, int year, Book.Genre genre, int pages, String... authors) {
+        Book book = new Book(isbn, "Book " + isbn, year, genre);
+        book.setPageCount(pages);
+        for (String author : authors) {
+            book.addAuthor(author);
+        }
+        return book;
+    }
+
+    @Test
+    @DisplayName("Должен копировать существующий каталог и следить за добавлением книг")
+    void shouldMirrorExistingAndNewBooks() {
+        libraryManager.addBook(book("ISBN3", 2005, Book.Genre.HISTORY, 200, "Сидоров"));
+
+        assertThat(columns.size()).isEqualTo(3);
+        assertThat(columns.countByGenre()).isEqualTo(Map.of(Book.Genre.SCIENCE, 2, Book.Genre.HISTORY, 1));
+        assertThat(columns.countByYear()).isEqualTo(libraryManager.getYearStatistics());
+        assertThat(columns.averagePageCount(null)).isEqualTo(200.0);
+        assertThat(columns.averagePageCount(Book.Genre.SCIENCE)).isEqualTo(200.0);
+        assertThat(columns.countByAuthor("Иванов")).isEqualTo(2);
+        assertThat(columns.authorDictionarySize()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Должен учитывать выдачу и возврат книги в фильтрах")
+    void shouldTrackAvailability() {
+        libraryManager.borrowBook("ISBN1", "R1", 14);
+
+        assertThat(columns.count(Book.Genre.SCIENCE, true, 0, 2000, 2010)).isEqualTo(1);
+        assertThat(columns.findIsbns(null, true, 0, Integer.MIN_VALUE, Integer.MAX_VALUE))
+                .containsExactly("ISBN2");
+
+        libraryManager.returnBook("ISBN1", "R1");
+
+        assertThat(columns.findIsbns(Book.Genre.SCIENCE, true, 2, 2000, 2010)).containsExactly("ISBN1");
+    }
+
+    @Test
+    @DisplayName("Удаление книги должно переносить последнюю строку на её место")
+    void shouldCompactRowsOnRemove() {
+        libraryManager.addBook(book("ISBN3", 2010, Book.Genre.HISTORY, 200, "Сидоров"));
+
+        libraryManager.removeBook("ISBN1");
+
+        assertThat(columns.size()).isEqualTo(2);
+        assertThat(columns.findIsbns(null, false, 0, Integer.MIN_VALUE, Integer.MAX_VALUE))
+                .containsExactlyInAnyOrder("ISBN2", "ISBN3");
+        assertThat(columns.countByAuthor("Петров")).isZero();
+
+        libraryManager.removeBook("ISBN2");
+        libraryManager.addBook(book("ISBN4", 1999, Book.Genre.FANTASY, 50));
+        assertThat(columns.findIsbns(null, false, 0, Integer.MIN_VALUE, Integer.MAX_VALUE))
+                .containsExactly("ISBN3", "ISBN4");
+    }
+}
@@ -0,0 +1,154 @@
+package ru.mentee.power.collections.library;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConcurrentLibraryManagerTest {
+
+    private static final int THREADS = 16;
+    private static final int BOOKS = 20;
+    private static final int ITERATIONS = 2_000;
+
+    private ConcurrentLibraryManager libraryManager;
+
+    @BeforeEach
+    void setUp() {
+        libraryManager = new ConcurrentLibraryManager(8);
+        for (int i = 0; i < BOOKS; i++) {
+            Book book = new Book("ISBN" + i, "Book " + i, 2000 + i, Book.Genre.values()[i % Book.Genre.values().length]);
+            book.addAuthor("Author " + (i % 3));
+            libraryManager.addBook(book);
+        }
+        for (int t = 0; t < THREADS; t++) {
+            libraryManager.addReader(new Reader("R" + t, "Reader " + t, "r" + t + "@mail", Reader.ReaderCategory.REGULAR));
+        }
+    }
+
+    @Test
+    @DisplayName("Одна и та же книга должна выдаваться только одному читателю")
+    void shouldBorrowSameBookOnlyOnce() throws Exception {
+        AtomicInteger successes = new AtomicInteger();
+
+        runConcurrently(readerId -> {
+            if (libraryManager.borrowBook("ISBN0", readerId, 7)) {
+                successes.incrementAndGet();
+            }
+        });
+
+        assertThat(successes.get()).isEqualTo(1);
+        assertThat(libraryManager.getBorrowingsByBook("ISBN0")).hasSize(1);
+        assertThat(libraryManager.getBookByIsbn("ISBN0").isAvailable()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Индексы должны оставаться согласованными при параллельных выдачах и возвратах")
+    void shouldKeepIndexesConsistentUnderContention() throws Exception {
+        AtomicInteger successes = new AtomicInteger();
+
+        runConcurrently(readerId -> {
+            for (int i = 0; i < ITERATIONS; i++) {
+                String isbn = "ISBN" + (i % BOOKS);
+                if (libraryManager.borrowBook(isbn, readerId, 7)) {
+                    successes.incrementAndGet();
+                    assertThat(libraryManager.returnBook(isbn, readerId)).isTrue();
+                }
+            }
+        });
+
+        assertThat(successes.get()).isPositive();
+        assertThat(libraryManager.getAllBorrowings()).hasSize(successes.get());
+        assertThat(libraryManager.getAllBorrowings()).allMatch(Borrowing::isReturned);
+        assertThat(libraryManager.getAvailableBooks()).hasSize(BOOKS);
+
+        int historyByReaders = 0;
+        for (int t = 0; t < THREADS; t++) {
+            historyByReaders += libraryManager.getBorrowingsByReader("R" + t).size();
+            assertThat(libraryManager.getActiveBorrowingsByReader("R" + t)).isEmpty();
+        }
+        assertThat(historyByReaders).isEqualTo(successes.get());
+
+        // Счётчики рейтингов не теряют параллельных инкрементов
+        int loansByBooks = libraryManager.getMostPopularBooks(BOOKS).values().stream().mapToInt(Integer::intValue).sum();
+        int loansByReaders = libraryManager.getMostActiveReaders(THREADS).values().stream().mapToInt(Integer::intValue).sum();
+        assertThat(loansByBooks).isEqualTo(successes.get());
+        assertThat(loansByReaders).isEqualTo(successes.get());
+    }
+
+    @Test
+    @DisplayName("Параллельное добавление книг должно обновлять жанровые и авторские индексы")
+    void shouldAddBooksConcurrently() throws Exception {
+        runConcurrently(readerId -> {
+            for (int i = 0; i < 200; i++) {
+                Book book = new Book(readerId + "-" + i, "Concurrent " + i, 2024, Book.Genre.SCIENCE);
+                book.addAuthor("Shared Author");
+                assertThat(libraryManager.addBook(book)).isTrue();
+            }
+        });
+
+        assertThat(libraryManager.getAllBooks()).hasSize(BOOKS + THREADS * 200);
+        assertThat(libraryManager.getBooksByAuthor("Shared Author")).hasSize(THREADS * 200);
+    }
+
+    @Test
+    @DisplayName("Пересекающиеся пачки не должны взаимно блокироваться и выдавать книгу дважды")
+    void shouldBorrowOverlappingBatchesAtomically() throws Exception {
+        AtomicInteger successes = new AtomicInteger();
+
+        runConcurrently(readerId -> {
+            int t = Integer.parseInt(readerId.substring(1));
+            // Соседние потоки берут пачки в разном порядке и делят одну книгу
+            List<String> batch = t % 2 == 0
+                    ? List.of("ISBN" + (t % BOOKS), "ISBN" + ((t + 1) % BOOKS))
+                    : List.of("ISBN" + ((t + 1) % BOOKS), "ISBN" + (t % BOOKS));
+            for (int i = 0; i < 200; i++) {
+                if (libraryManager.borrowBooks(readerId, batch, 7)) {
+                    successes.incrementAndGet();
+                    assertThat(libraryManager.returnBooks(readerId, batch)).isTrue();
+                }
+            }
+        });
+
+        assertThat(successes.get()).isPositive();
+        assertThat(libraryManager.getAllBorrowings()).hasSize(successes.get() * 2);
+        assertThat(libraryManager.getAllBorrowings()).allMatch(Borrowing::isReturned);
+        assertThat(libraryManager.getAvailableBooks()).hasSize(BOOKS);
+    }
+
+    private void runConcurrently(ReaderTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                String readerId = "R" + t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.run(readerId);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private interface ReaderTask {
+        void run(String readerId);
+    }
+}
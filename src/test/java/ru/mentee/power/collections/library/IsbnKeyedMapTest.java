@@ -0,0 +1,111 @@
+package ru.mentee.power.collections.library;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IsbnKeyedMapTest {
+
+    @Test
+    @DisplayName("Должен разбирать ISBN-13 с дефисами и проверять контрольную цифру")
+    void shouldParseIsbn13() {
+        Isbn13 isbn = Isbn13.parse("978-0-306-40615-7");
+
+        assertThat(isbn.longValue()).isEqualTo(9780306406157L);
+        assertThat(isbn).hasToString("9780306406157").isEqualTo(Isbn13.of(9780306406157L));
+        assertThatThrownBy(() -> Isbn13.parse("978-0-306-40615-8")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Isbn13.parse("ISBN1")).isInstanceOf(IllegalArgumentException.class);
+        assertThat(Isbn13.encode("978-0-306-40615-7")).isEqualTo(Isbn13.NOT_ENCODABLE);
+        assertThat(Isbn13.decode(Isbn13.encode("0000000000000"))).isEqualTo("0000000000000");
+        // Ключ карты кодируется без проверки контрольной цифры
+        assertThat(Isbn13.encode("9780306406158")).isEqualTo(9780306406158L);
+    }
+
+    @Test
+    @DisplayName("Должен обходить значения упакованных и строковых ключей")
+    void shouldIterateValuesOfAllKeys() {
+        Map<String, String> map = new IsbnKeyedMap<>();
+        map.put("0000000000000", "zero");
+        map.put("9780306406157", "packed");
+        map.put("9780306406158", "unchecked");
+        map.put("ISBN1", "plain");
+
+        assertThat(map.values()).hasSize(4).containsExactlyInAnyOrder("zero", "packed", "unchecked", "plain");
+        assertThat(new IsbnKeyedMap<String>().values()).isEmpty();
+        assertThatThrownBy(() -> map.values().remove("zero")).isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    @DisplayName("Итератор значений должен падать, если карту изменили во время обхода")
+    void shouldFailFastWhenModifiedDuringIteration() {
+        Map<String, String> map = new IsbnKeyedMap<>();
+        map.put("9780306406157", "packed");
+        map.put("9780306406164", "other");
+
+        Iterator<String> values = map.values().iterator();
+        values.next();
+        map.remove("9780306406157");
+
+        assertThatThrownBy(values::next).isInstanceOf(ConcurrentModificationException.class);
+
+        Iterator<String> afterReplace = map.values().iterator();
+        map.put("9780306406164", "replaced");
+        assertThat(afterReplace.next()).isEqualTo("replaced");
+    }
+
+    @Test
+    @DisplayName("Должен хранить ISBN-13 и произвольные строки как обычная Map")
+    void shouldBehaveLikeMapForMixedKeys() {
+        Map<String, String> map = new IsbnKeyedMap<>();
+        map.put("9780306406157", "packed");
+        map.put("ISBN1", "plain");
+        map.put("978-0-306-40615-7", "hyphenated");
+
+        assertThat(map).hasSize(3)
+                .containsEntry("9780306406157", "packed")
+                .containsEntry("ISBN1", "plain")
+                .containsEntry("978-0-306-40615-7", "hyphenated");
+        assertThat(map.computeIfAbsent("9780306406157", k -> "other")).isEqualTo("packed");
+        assertThat(map).isEqualTo(Map.of("9780306406157", "packed", "ISBN1", "plain",
+                "978-0-306-40615-7", "hyphenated"));
+
+        Iterator<Map.Entry<String, String>> iterator = map.entrySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().getValue().startsWith("p")) {
+                iterator.remove();
+            }
+        }
+        assertThat(map).containsOnlyKeys("978-0-306-40615-7");
+    }
+
+    @Test
+    @DisplayName("Должен совпадать с HashMap на случайной последовательности операций")
+    void shouldMatchHashMapUnderRandomOperations() {
+        LongObjectHashMap<Long> map = new LongObjectHashMap<>();
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 200_000; i++) {
+            long key = random.nextInt(5_000); // небольшой диапазон: много коллизий и удалений, есть ключ 0
+            if (random.nextInt(3) == 0) {
+                assertThat(map.remove(key)).isEqualTo(expected.remove(key));
+            } else {
+                assertThat(map.put(key, (long) i)).isEqualTo(expected.put(key, (long) i));
+            }
+        }
+
+        assertThat(map.size()).isEqualTo(expected.size());
+        for (long key = 0; key < 5_000; key++) {
+            assertThat(map.get(key)).isEqualTo(expected.get(key));
+        }
+        assertThat(map.keys()).hasSize(expected.size());
+    }
+}
@@ -0,0 +1,90 @@
+package ru.mentee.power.collections.library;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LibraryEventsTest {
+
+    @TempDir
+    Path tempDir;
+
+    private LibraryManager manager;
+
+    @BeforeEach
+    void setUp() {
+        manager = new LibraryManager(new HashMap<>(), new HashMap<>(), new ArrayList<>(), new HashMap<>());
+        manager.addBook(new Book("ISBN1", "Война и мир", 1869, Book.Genre.FICTION));
+        manager.addBook(new Book("ISBN2", "Мир океана", 2001, Book.Genre.SCIENCE));
+        manager.addReader(new Reader("R1", "Иван", "ivan@mail.ru", Reader.ReaderCategory.STUDENT));
+    }
+
+    private List<RecordedEvent> record(Runnable operations) throws Exception {
+        Path file = tempDir.resolve("library.jfr");
+        try (Recording recording = new Recording()) {
+            for (String name : List.of("BookBorrowed", "BookReturned", "TitleSearch", "Statistics")) {
+                recording.enable("ru.mentee.library." + name).withoutThreshold();
+            }
+            recording.start();
+            operations.run();
+            recording.stop();
+            recording.dump(file);
+        }
+        return RecordingFile.readAllEvents(file);
+    }
+
+    private static List<RecordedEvent> ofType(List<RecordedEvent> events, String name) {
+        return events.stream()
+                .filter(event -> event.getEventType().getName().equals("ru.mentee.library." + name))
+                .toList();
+    }
+
+    @Test
+    @DisplayName("Выдача и возврат записываются с ISBN, читателем и результатом")
+    void shouldRecordBorrowAndReturn() throws Exception {
+        List<RecordedEvent> events = record(() -> {
+            manager.borrowBook("ISBN1", "R1", 14);
+            manager.borrowBook("ISBN1", "R1", 14);
+            manager.returnBook("ISBN1", "R1");
+        });
+
+        List<RecordedEvent> borrows = ofType(events, "BookBorrowed");
+        assertThat(borrows).hasSize(2);
+        assertThat(borrows.get(0).getString("isbn")).isEqualTo("ISBN1");
+        assertThat(borrows.get(0).getString("readerId")).isEqualTo("R1");
+        assertThat(borrows).extracting(event -> event.getBoolean("succeeded")).containsExactly(true, false);
+        assertThat(borrows.get(0).getDuration()).isPositive();
+
+        List<RecordedEvent> returns = ofType(events, "BookReturned");
+        assertThat(returns).singleElement().satisfies(event -> assertThat(event.getBoolean("succeeded")).isTrue());
+    }
+
+    @Test
+    @DisplayName("Поиск и статистика записываются с количеством результатов")
+    void shouldRecordSearchAndStatistics() throws Exception {
+        List<RecordedEvent> events = record(() -> {
+            manager.searchBooksByTitle("мир");
+            manager.getGenreStatistics();
+            manager.getMostPopularBooks(5);
+        });
+
+        assertThat(ofType(events, "TitleSearch")).singleElement().satisfies(event -> {
+            assertThat(event.getString("query")).isEqualTo("мир");
+            assertThat(event.getInt("resultCount")).isEqualTo(2);
+        });
+        assertThat(ofType(events, "Statistics"))
+                .extracting(event -> event.getString("method") + "=" + event.getInt("resultCount"))
+                .containsExactly("getGenreStatistics=2", "getMostPopularBooks=0");
+    }
+}
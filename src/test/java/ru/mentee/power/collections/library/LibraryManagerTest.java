@@ -105,6 +105,40 @@ class LibraryManagerTest {
             boolean isRemoved = libraryManager.removeBook("ISBN69");
             assertThat(isRemoved).isFalse();
         }
+
+        @Test
+        @DisplayName("Массовое добавление должно пропускать дубликаты и обновлять все индексы")
+        void shouldAddBooksInBulkAndIndexThem() {
+            Book dragons = new Book("ISBN4", "Dragons of Java", 2020, Book.Genre.FANTASY);
+            dragons.addAuthor("Михаил Луконин");
+            Book rome = new Book("ISBN5", "Rome and Carthage", 2018, Book.Genre.HISTORY);
+            rome.addAuthor("Эрнест Самонов");
+            rome.addAuthor("Михаил Лук");
+
+            int added = libraryManager.addBooks(List.of(dragons, book1, rome));
+
+            assertThat(added).isEqualTo(2);
+            assertThat(libraryManager.getAllBooks()).hasSize(5);
+            assertThat(libraryManager.getBooksByGenre(Book.Genre.FANTASY)).containsExactlyInAnyOrder(book1, dragons);
+            assertThat(libraryManager.getBooksByAuthor("Михаил Луконин")).containsExactlyInAnyOrder(book1, dragons);
+            assertThat(libraryManager.searchBooksByTitle("java")).containsExactlyInAnyOrder(book1, dragons);
+            assertThat(libraryManager.getYearStatistics()).containsEntry(2020, 2).containsEntry(2018, 2);
+            assertThat(libraryManager.findBooks(Book.Genre.HISTORY, true, 2, 2000, 2030)).containsExactly(rome);
+        }
+
+        @Test
+        @DisplayName("Массовое добавление с ошибочной книгой не должно добавлять ни одной книги")
+        void shouldRejectWholeBulkWhenBookIsInvalid() {
+            Book dragons = new Book("ISBN4", "Dragons of Java", 2020, Book.Genre.FANTASY);
+            List<Book> books = Arrays.asList(dragons, null);
+
+            assertThatThrownBy(() -> libraryManager.addBooks(books)).isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> libraryManager.addBooks(List.of(dragons, new Book(" ", "Без ISBN", 2020, Book.Genre.FANTASY))))
+                    .isInstanceOf(IllegalArgumentException.class);
+            assertThat(libraryManager.getBookByIsbn("ISBN4")).isNull();
+            assertThat(libraryManager.addBook(dragons)).isTrue();
+            assertThat(libraryManager.searchBooksByTitle("dragons")).containsExactly(dragons);
+        }
     }
 
     @Nested
@@ -145,6 +179,48 @@ class LibraryManagerTest {
             assertThat(booksByTitlePart).allMatch(book -> book.getTitle().toLowerCase().contains(predicate.toLowerCase()));
         }
 
+        @Test
+        @DisplayName("Должен находить книги по подстроке названия в любом регистре и любой длины")
+        void shouldFindBooksByAnyTitleSubstring() {
+            assertThat(libraryManager.searchBooksByTitle("BOOT gui")).containsExactly(book2);
+            assertThat(libraryManager.searchBooksByTitle("o")).containsExactlyInAnyOrder(book2, book3);
+            assertThat(libraryManager.searchBooksByTitle("")).hasSize(3);
+            assertThat(libraryManager.searchBooksByTitle("basics java")).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Не должен находить удаленную книгу по названию")
+        void shouldNotFindRemovedBookByTitle() {
+            libraryManager.removeBook(book1.getIsbn());
+
+            assertThat(libraryManager.searchBooksByTitle("Java")).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Должен находить книги по сочетанию жанра, доступности, авторов и лет")
+        void shouldFindBooksByCombinedCriteria() {
+            Book coAuthored1995 = new Book("ISBN4", "Fantasy 1995", 1995, Book.Genre.FANTASY);
+            coAuthored1995.addAuthor("A");
+            coAuthored1995.addAuthor("B");
+            Book coAuthored2021 = new Book("ISBN5", "Fantasy 2021", 2021, Book.Genre.FANTASY);
+            coAuthored2021.addAuthor("A");
+            coAuthored2021.addAuthor("B");
+            libraryManager.addBook(coAuthored1995);
+            libraryManager.addBook(coAuthored2021);
+            libraryManager.borrowBook(coAuthored2021.getIsbn(), reader1.getId(), 5);
+
+            assertThat(libraryManager.findBooks(Book.Genre.FANTASY, false, 2, 1990, 2025))
+                    .containsExactly(coAuthored1995, coAuthored2021);
+            assertThat(libraryManager.findBooks(Book.Genre.FANTASY, true, 2, 1990, 2025))
+                    .containsExactly(coAuthored1995);
+            assertThat(libraryManager.findBooks(Book.Genre.FANTASY, false, 0, 1996, 2020))
+                    .containsExactly(book1);
+            assertThat(libraryManager.findBooks(null, false, 1, 2018, 2018)).containsExactly(book3);
+
+            libraryManager.removeBook(coAuthored1995.getIsbn());
+            assertThat(libraryManager.findBooks(null, true, 2, Integer.MIN_VALUE, Integer.MAX_VALUE)).isEmpty();
+        }
+
         @Test
         @DisplayName("Должен возвращать только доступные книги")
         void shouldReturnOnlyAvailableBooks() {
@@ -153,6 +229,32 @@ class LibraryManagerTest {
             assertThat(availableBooks).allMatch(book -> book.isAvailable() == true);
             assertThat(availableBooks).noneMatch(book -> !book.isAvailable() == true);
         }
+
+        @Test
+        @DisplayName("Книга, снятая через Book.setAvailable в обход менеджера, не должна считаться доступной")
+        void shouldRecheckAvailabilityOfIndexedBooks() {
+            book2.setAvailable(false);
+
+            assertThat(libraryManager.getAvailableBooks()).doesNotContain(book2).contains(book1, book3);
+            assertThat(libraryManager.findBooks(null, true, 0, Integer.MIN_VALUE, Integer.MAX_VALUE))
+                    .doesNotContain(book2);
+        }
+
+        @Test
+        @DisplayName("Доступность должна учитываться и для книг далеко за первыми тысячами")
+        void shouldTrackAvailabilityInLargeCatalog() {
+            List<Book> books = new ArrayList<>();
+            for (int i = 0; i < 10_000; i++) {
+                books.add(new Book("BULK" + i, "Bulk " + i, 2000, Book.Genre.SCIENCE));
+            }
+            libraryManager.addBooks(books);
+            libraryManager.borrowBook("BULK9999", "R1", 7);
+            libraryManager.borrowBook("BULK4096", "R1", 7);
+            libraryManager.returnBook("BULK4096", "R1");
+
+            List<Book> available = libraryManager.findBooks(Book.Genre.SCIENCE, true, 0, 2000, 2000);
+            assertThat(available).hasSize(9_999).doesNotContain(books.get(9_999)).contains(books.get(4_096));
+        }
     }
 
     @Nested
@@ -293,6 +395,27 @@ class LibraryManagerTest {
             assertThat(overdue).noneMatch(b -> !b.isOverdue());
         }
 
+        @Test
+        @DisplayName("Продление и возврат должны убирать выдачу из просроченных")
+        void shouldRemoveBorrowingFromOverdueAfterExtensionAndReturn() {
+            LocalDate today = LocalDate.now();
+            libraryManager.borrowBook(book1.getIsbn(), reader1.getId(), 5);
+            libraryManager.borrowBook(book2.getIsbn(), reader2.getId(), 5);
+            Borrowing first = libraryManager.getBorrowingsByBook(book1.getIsbn()).getFirst();
+            Borrowing second = libraryManager.getBorrowingsByBook(book2.getIsbn()).getFirst();
+            first.setDueDate(today.minusDays(3));
+            second.setDueDate(today.minusDays(1));
+
+            assertThat(libraryManager.getOverdueBorrowings()).containsExactly(first, second);
+
+            libraryManager.extendBorrowingPeriod(book1.getIsbn(), reader1.getId(), 10);
+            assertThat(libraryManager.getOverdueBorrowings()).containsExactly(second);
+
+            libraryManager.returnBook(book2.getIsbn(), reader2.getId());
+            assertThat(libraryManager.getOverdueBorrowings()).isEmpty();
+            assertThat(libraryManager.getReadersWithOverdueBooks()).isEmpty();
+        }
+
         @Test
         @DisplayName("Должен корректно продлевать срок выдачи")
         void shouldExtendBorrowingPeriodCorrectly() {
@@ -307,6 +430,154 @@ class LibraryManagerTest {
             assertThat(res).isTrue();
             assertThat(borrowing.getDueDate()).isEqualTo(oldDueDate.plusDays(3));
         }
+
+        @Test
+        @DisplayName("Не должен принимать возврат от читателя, которому книга не выдавалась")
+        void shouldNotReturnBookBorrowedByAnotherReader() {
+            libraryManager.borrowBook(book1.getIsbn(), reader1.getId(), 5);
+
+            assertThat(libraryManager.returnBook(book1.getIsbn(), reader2.getId())).isFalse();
+            assertThat(libraryManager.extendBorrowingPeriod(book1.getIsbn(), reader2.getId(), 3)).isFalse();
+            assertThat(book1.isAvailable()).isFalse();
+        }
+
+        @Test
+        @DisplayName("Должен снова выдавать книгу после возврата")
+        void shouldBorrowBookAgainAfterReturn() {
+            libraryManager.borrowBook(book1.getIsbn(), reader1.getId(), 5);
+            libraryManager.returnBook(book1.getIsbn(), reader1.getId());
+
+            boolean borrowedAgain = libraryManager.borrowBook(book1.getIsbn(), reader2.getId(), 5);
+
+            assertThat(borrowedAgain).isTrue();
+            assertThat(libraryManager.returnBook(book1.getIsbn(), reader1.getId())).isFalse();
+            assertThat(libraryManager.getBorrowingsByBook(book1.getIsbn())).hasSize(2);
+        }
+
+        @Test
+        @DisplayName("Должен выдавать и принимать пачку книг одной операцией")
+        void shouldBorrowAndReturnBooksInBatch() {
+            int[] commits = new int[1];
+            libraryManager.addChangeListener(new LibraryChangeListener() {
+                @Override
+                public void committed() {
+                    commits[0]++;
+                }
+            });
+
+            boolean borrowed = libraryManager.borrowBooks(reader1.getId(), List.of(book1.getIsbn(), book2.getIsbn()), 5);
+
+            assertThat(borrowed).isTrue();
+            assertThat(commits[0]).isEqualTo(1);
+            assertThat(book1.isAvailable()).isFalse();
+            assertThat(book2.isAvailable()).isFalse();
+            assertThat(libraryManager.getActiveBorrowingsByReader(reader1.getId())).hasSize(2);
+            assertThat(libraryManager.getMostActiveReaders(1)).containsEntry(reader1, 2);
+
+            boolean returned = libraryManager.returnBooks(reader1.getId(), List.of(book1.getIsbn(), book2.getIsbn()));
+
+            assertThat(returned).isTrue();
+            assertThat(commits[0]).isEqualTo(2);
+            assertThat(book1.isAvailable()).isTrue();
+            assertThat(book2.isAvailable()).isTrue();
+            assertThat(libraryManager.getActiveBorrowingsByReader(reader1.getId())).isEmpty();
+            assertThat(libraryManager.getBorrowingsByReader(reader1.getId())).allMatch(Borrowing::isReturned);
+        }
+
+        @Test
+        @DisplayName("Пачка с уже выданной книгой не должна выдавать ни одной книги")
+        void shouldNotBorrowAnyBookWhenOneIsUnavailable() {
+            libraryManager.borrowBook(book2.getIsbn(), reader2.getId(), 5);
+
+            boolean borrowed = libraryManager.borrowBooks(reader1.getId(), List.of(book1.getIsbn(), book2.getIsbn()), 5);
+
+            assertThat(borrowed).isFalse();
+            assertThat(book1.isAvailable()).isTrue();
+            assertThat(libraryManager.getBorrowingsByReader(reader1.getId())).isEmpty();
+            assertThat(libraryManager.borrowBooks(reader1.getId(), List.of(book1.getIsbn(), "UNKNOWN"), 5)).isFalse();
+            assertThat(libraryManager.getBorrowingsByBook(book1.getIsbn())).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Пачка возврата с чужой книгой не должна принимать ни одной книги")
+        void shouldNotReturnAnyBookWhenOneIsNotBorrowedByReader() {
+            libraryManager.borrowBook(book1.getIsbn(), reader1.getId(), 5);
+            libraryManager.borrowBook(book2.getIsbn(), reader2.getId(), 5);
+
+            boolean returned = libraryManager.returnBooks(reader1.getId(), List.of(book1.getIsbn(), book2.getIsbn()));
+
+            assertThat(returned).isFalse();
+            assertThat(book1.isAvailable()).isFalse();
+            assertThat(libraryManager.getActiveBorrowingsByReader(reader1.getId())).hasSize(1);
+        }
+
+        @Test
+        @DisplayName("Пачка возврата, как и одиночный возврат, отклоняется для удалённых читателя или книги")
+        void shouldNotReturnBatchForRemovedReaderOrBook() {
+            libraryManager.borrowBooks(reader1.getId(), List.of(book1.getIsbn(), book2.getIsbn()), 5);
+
+            libraryManager.removeBook(book2.getIsbn());
+            assertThat(libraryManager.returnBooks(reader1.getId(), List.of(book1.getIsbn(), book2.getIsbn()))).isFalse();
+            assertThat(book1.isAvailable()).isFalse();
+            assertThat(libraryManager.getActiveBorrowingsByReader(reader1.getId())).hasSize(2);
+
+            libraryManager.removeReader(reader1.getId());
+            assertThat(libraryManager.returnBooks(reader1.getId(), List.of(book1.getIsbn()))).isFalse();
+            assertThat(libraryManager.returnBook(book1.getIsbn(), reader1.getId())).isFalse();
+            assertThat(book1.isAvailable()).isFalse();
+        }
+
+        @Test
+        @DisplayName("Должен отклонять некорректную пачку")
+        void shouldRejectInvalidBatch() {
+            assertThatThrownBy(() -> libraryManager.borrowBooks(reader1.getId(), List.of(), 5))
+                    .isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> libraryManager.borrowBooks(" ", List.of(book1.getIsbn()), 5))
+                    .isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> libraryManager.returnBooks(reader1.getId(), List.of(book1.getIsbn(), book1.getIsbn())))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+
+        @Test
+        @DisplayName("Должен возвращать только открытые выдачи читателя")
+        void shouldReturnActiveBorrowingsByReader() {
+            libraryManager.borrowBook(book1.getIsbn(), reader1.getId(), 5);
+            libraryManager.borrowBook(book2.getIsbn(), reader1.getId(), 5);
+            libraryManager.returnBook(book1.getIsbn(), reader1.getId());
+
+            assertThat(libraryManager.getActiveBorrowingsByReader(reader1.getId()))
+                    .extracting(Borrowing::getIsbn)
+                    .containsExactly(book2.getIsbn());
+            assertThat(libraryManager.getActiveBorrowingsByReader(reader2.getId())).isEmpty();
+        }
+
+        @Test
+        @DisplayName("История выдач должна быть доступна только для чтения")
+        void shouldReturnReadOnlyBorrowingHistory() {
+            libraryManager.borrowBook(book1.getIsbn(), reader1.getId(), 5);
+
+            List<Borrowing> history = libraryManager.getBorrowingsByReader(reader1.getId());
+
+            assertThat(history).hasSize(1);
+            assertThatThrownBy(history::clear).isInstanceOf(UnsupportedOperationException.class);
+            assertThat(libraryManager.getBorrowingsByReader(reader2.getId())).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Должен постранично возвращать историю выдач")
+        void shouldPageBorrowingHistory() {
+            libraryManager.borrowBook(book1.getIsbn(), reader1.getId(), 5);
+            libraryManager.borrowBook(book2.getIsbn(), reader1.getId(), 5);
+            libraryManager.borrowBook(book3.getIsbn(), reader1.getId(), 5);
+
+            assertThat(libraryManager.getBorrowingsByReader(reader1.getId(), 1, 5))
+                    .extracting(Borrowing::getIsbn)
+                    .containsExactly(book2.getIsbn(), book3.getIsbn());
+            assertThat(libraryManager.getBorrowingsByReader(reader1.getId(), 3, 5)).isEmpty();
+            assertThat(libraryManager.getBorrowingsByBook(book1.getIsbn(), 0, 1)).hasSize(1);
+            assertThatThrownBy(() -> libraryManager.getBorrowingsByBook(book1.getIsbn(), -1, 1))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
     }
 
     @Nested
@@ -328,6 +599,29 @@ class LibraryManagerTest {
             assertThat(statistics).isEqualTo(expected);
         }
 
+        @Test
+        @DisplayName("Статистика и индексы должны обновляться при удалении книги")
+        void shouldUpdateStatisticsAndIndexesOnRemove() {
+            Book secondFantasy = new Book("ISBN4", "Dragons", 2020, Book.Genre.FANTASY);
+            secondFantasy.addAuthor("Михаил Луконин");
+            libraryManager.addBook(secondFantasy);
+
+            assertThat(libraryManager.getBookCountByGenre(Book.Genre.FANTASY)).isEqualTo(2);
+            assertThat(libraryManager.getYearStatistics()).containsEntry(2020, 2);
+            assertThat(libraryManager.getBookCountByAuthor("Михаил Луконин")).isEqualTo(2);
+
+            libraryManager.removeBook(book1.getIsbn());
+            libraryManager.removeBook(book3.getIsbn());
+
+            assertThat(libraryManager.getGenreStatistics())
+                    .isEqualTo(Map.of(Book.Genre.FANTASY, 1, Book.Genre.FICTION, 1));
+            assertThat(libraryManager.getYearStatistics())
+                    .containsExactly(Map.entry(2020, 1), Map.entry(2022, 1));
+            assertThat(libraryManager.getBooksByAuthor("Михаил Луконин")).containsExactly(secondFantasy);
+            assertThat(libraryManager.getBooksByAuthor("Михаил Лук")).isEmpty();
+            assertThat(libraryManager.getBooksByGenre(Book.Genre.HISTORY)).isEmpty();
+        }
+
         @Test
         @DisplayName("Должен возвращать список самых популярных книг")
         void shouldReturnMostPopularBooks() {
@@ -348,6 +642,28 @@ class LibraryManagerTest {
                     .isSortedAccordingTo(Comparator.reverseOrder());
         }
 
+        @Test
+        @DisplayName("Должен учитывать все выдачи книги и пропускать удаленные книги в рейтинге")
+        void shouldCountEveryLoanInPopularityRanking() {
+            for (int i = 0; i < 3; i++) {
+                libraryManager.borrowBook(book2.getIsbn(), reader1.getId(), 5);
+                libraryManager.returnBook(book2.getIsbn(), reader1.getId());
+            }
+            libraryManager.borrowBook(book1.getIsbn(), reader2.getId(), 5);
+            libraryManager.returnBook(book1.getIsbn(), reader2.getId());
+            libraryManager.borrowBook(book1.getIsbn(), reader2.getId(), 5);
+            libraryManager.borrowBook(book3.getIsbn(), reader2.getId(), 5);
+
+            assertThat(libraryManager.getMostPopularBooks(2))
+                    .containsExactly(Map.entry(book2, 3), Map.entry(book1, 2));
+            assertThat(libraryManager.getMostActiveReaders(1))
+                    .containsExactly(Map.entry(reader1, 3));
+
+            libraryManager.removeBook(book2.getIsbn());
+            assertThat(libraryManager.getMostPopularBooks(2))
+                    .containsExactly(Map.entry(book1, 2), Map.entry(book3, 1));
+        }
+
         @Test
         @DisplayName("Должен возвращать список самых активных читателей")
         void shouldReturnMostActiveReaders() {
@@ -434,6 +750,30 @@ class LibraryManagerTest {
             assertThat(result).containsExactly(book1,bookFantasy2020);
         }
 
+        @Test
+        @DisplayName("Должен итерироваться по книгам жанра в диапазоне лет по возрастанию года")
+        void shouldIterateOverBooksByGenreAndYearRange() {
+            Book science1985 = new Book("S-1985", "Old Science", 1985, Book.Genre.SCIENCE);
+            Book science1990 = new Book("S-1990", "Science 1990", 1990, Book.Genre.SCIENCE);
+            Book science2005 = new Book("S-2005", "Science 2005", 2005, Book.Genre.SCIENCE);
+            Book science1998 = new Book("S-1998", "Science 1998", 1998, Book.Genre.SCIENCE);
+            libraryManager.addBook(science1985);
+            libraryManager.addBook(science1990);
+            libraryManager.addBook(science2005);
+            libraryManager.addBook(science1998);
+            libraryManager.removeBook(science1998.getIsbn());
+
+            Iterator<Book> iterator = libraryManager.getBooksByGenreAndYearRangeIterator(Book.Genre.SCIENCE, 1990, 2005);
+            List<Book> result = new ArrayList<>();
+            while (iterator.hasNext()) {
+                result.add(iterator.next());
+            }
+
+            assertThat(result).containsExactly(science1990, science2005);
+            assertThat(libraryManager.getBooksByGenreAndYearRangeIterator(Book.Genre.SCIENCE, 2005, 1990).hasNext())
+                    .isFalse();
+        }
+
 
         @Test
         @DisplayName("Должен корректно итерироваться по книгам с несколькими авторами")
@@ -503,4 +843,102 @@ class LibraryManagerTest {
                     .hasMessageContaining("Нет книг указанного жанра и года");
         }
     }
-}
\ No newline at end of file
+
+    @Nested
+    @DisplayName("Тесты потоков для отчетов")
+    class StreamTests {
+        @Test
+        @DisplayName("Потоки должны знать точный размер и делиться для параллельной обработки")
+        void shouldProvideSizedSplittableStreams() {
+            for (int i = 0; i < 1_000; i++) {
+                Book book = new Book("P-" + i, "Parallel " + i, 1990 + i % 20, Book.Genre.SCIENCE);
+                book.addAuthor("A" + i);
+                book.addAuthor("B" + i);
+                libraryManager.addBook(book);
+            }
+
+            Spliterator<Book> spliterator = libraryManager.streamBooks().spliterator();
+            assertThat(spliterator.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED)).isTrue();
+            assertThat(spliterator.estimateSize()).isEqualTo(1_003);
+            Spliterator<Book> prefix = spliterator.trySplit();
+            assertThat(prefix.estimateSize() + spliterator.estimateSize()).isEqualTo(1_003);
+
+            assertThat(libraryManager.streamBooks().parallel().count()).isEqualTo(1_003);
+            assertThat(libraryManager.streamBooksWithMultipleAuthors(2).parallel().count()).isEqualTo(1_000);
+            assertThat(libraryManager.streamBooksByGenreAndYear(Book.Genre.SCIENCE, 1995, 1999).parallel()
+                    .mapToInt(Book::getPublicationYear).distinct().sorted().toArray())
+                    .containsExactly(1995, 1996, 1997, 1998, 1999);
+        }
+
+        @Test
+        @DisplayName("Потоки выдач должны совпадать со списками выдач")
+        void shouldStreamBorrowings() {
+            libraryManager.borrowBook(book1.getIsbn(), reader1.getId(), 3);
+            libraryManager.borrowBook(book2.getIsbn(), reader2.getId(), 3);
+            Borrowing overdue = libraryManager.getBorrowingsByReader(reader1.getId()).getFirst();
+            overdue.setDueDate(LocalDate.now().minusDays(1));
+
+            assertThat(libraryManager.streamBorrowings().parallel().toList())
+                    .containsExactlyInAnyOrderElementsOf(libraryManager.getAllBorrowings());
+            assertThat(libraryManager.streamOverdueBorrowings()).containsExactly(overdue);
+            assertThat(libraryManager.streamBooksByGenreAndYear(Book.Genre.SCIENCE, 2005, 1990)).isEmpty();
+        }
+    }
+
+    @Nested
+    @DisplayName("Тесты составных запросов")
+    class QueryTests {
+        @BeforeEach
+        void addScienceBooks() {
+            for (int i = 0; i < 50; i++) {
+                Book book = new Book("Q-" + i, "Physics vol. " + i, 1980 + i, Book.Genre.SCIENCE);
+                book.addAuthor(i % 10 == 0 ? "Ландау" : "Автор " + i);
+                libraryManager.addBook(book);
+            }
+        }
+
+        @Test
+        @DisplayName("Должен сочетать условия и выбирать самый избирательный индекс")
+        void shouldCombineCriteriaUsingMostSelectiveIndex() {
+            libraryManager.borrowBook("Q-20", reader1.getId(), 7);
+
+            BookQuery query = libraryManager.query()
+                    .genre(Book.Genre.SCIENCE)
+                    .author("Ландау")
+                    .publishedBetween(1990, 2020)
+                    .onlyAvailable();
+
+            assertThat(query.explain()).startsWith("author index");
+            assertThat(query.list()).extracting(Book::getIsbn).containsExactlyInAnyOrder("Q-10", "Q-30", "Q-40");
+            assertThat(libraryManager.query().genre(Book.Genre.SCIENCE).publishedBetween(2000, 2001).explain())
+                    .isEqualTo("genre/year index (~2 books)");
+            assertThat(libraryManager.query().titleContains("VOL. 4").count()).isEqualTo(11);
+            // Название проверяется дополнительным фильтром по кандидатам индекса авторов
+            BookQuery byAuthorAndTitle = libraryManager.query().author("Ландау").titleContains("VOL. 1");
+            assertThat(byAuthorAndTitle.explain()).startsWith("author index");
+            assertThat(byAuthorAndTitle.list()).extracting(Book::getIsbn).containsExactly("Q-10");
+        }
+
+        @Test
+        @DisplayName("Сортировка с лимитом должна совпадать с полной сортировкой")
+        void shouldReturnTopKSortedBooks() {
+            List<Book> expected = libraryManager.sortBooksByTitle(libraryManager.getAllBooks()).subList(0, 5);
+
+            assertThat(libraryManager.query().sortByTitle().limit(5).list()).containsExactlyElementsOf(expected);
+            assertThat(libraryManager.query().genre(Book.Genre.SCIENCE).sortByPublicationYear().limit(2).stream())
+                    .extracting(Book::getIsbn).containsExactly("Q-49", "Q-48");
+            assertThat(libraryManager.query().limit(0).list()).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Запрос должен выполняться в момент чтения результата")
+        void shouldEvaluateLazily() {
+            BookQuery query = libraryManager.query().author("Новый автор");
+            Book book = new Book("NEW", "Late arrival", 2024, Book.Genre.FICTION);
+            book.addAuthor("Новый автор");
+            libraryManager.addBook(book);
+
+            assertThat(query.list()).containsExactly(book);
+        }
+    }
+}
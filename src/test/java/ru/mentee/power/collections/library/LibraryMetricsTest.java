@@ -0,0 +1,141 @@
+package ru.mentee.power.collections.library;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LibraryMetricsTest {
+
+    private LibraryManager manager;
+
+    @BeforeEach
+    void setUp() {
+        manager = new LibraryManager(new HashMap<>(), new HashMap<>(), new ArrayList<>(), new HashMap<>());
+        for (int i = 1; i <= 3; i++) {
+            manager.addBook(new Book("ISBN" + i, "Книга " + i, 2000 + i, Book.Genre.FICTION));
+        }
+        manager.addReader(new Reader("R1", "Иван", "ivan@mail.ru", Reader.ReaderCategory.STUDENT));
+    }
+
+    @Test
+    @DisplayName("Перцентили гистограммы отличаются от точных не больше чем на 12,5%")
+    void shouldApproximatePercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value * 1000);
+        }
+
+        assertThat(histogram.getCount()).isEqualTo(100_000);
+        assertThat(histogram.getMax()).isEqualTo(100_000_000);
+        assertThat(histogram.getPercentile(50)).isBetween(50_000_000L, 56_250_000L);
+        assertThat(histogram.getPercentile(99)).isBetween(99_000_000L, 100_000_000L);
+        assertThat(histogram.getPercentile(100)).isEqualTo(100_000_000);
+        assertThat(histogram.getMean()).isEqualTo(50_000_500.0);
+        assertThatThrownBy(() -> histogram.getPercentile(101)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("Корзины покрывают весь диапазон long без разрывов")
+    void shouldCoverWholeRangeWithBuckets() {
+        for (int shift = 0; shift < 63; shift++) {
+            long value = 1L << shift;
+            int bucket = LatencyHistogram.bucketOf(value);
+            assertThat(LatencyHistogram.upperBoundOf(bucket)).isGreaterThanOrEqualTo(value);
+            assertThat(LatencyHistogram.bucketOf(value - 1)).isLessThanOrEqualTo(bucket);
+        }
+        assertThat(LatencyHistogram.upperBoundOf(LatencyHistogram.bucketOf(Long.MAX_VALUE))).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    @DisplayName("Пока метрики выключены, ничего не записывается")
+    void shouldRecordNothingWhenDisabled() {
+        manager.borrowBook("ISBN1", "R1", 14);
+        assertThat(manager.getMetrics()).isNull();
+
+        LibraryMetrics metrics = manager.enableMetrics();
+        assertThat(manager.enableMetrics()).isSameAs(metrics);
+        manager.disableMetrics();
+        manager.returnBook("ISBN1", "R1");
+
+        assertThat(metrics.getLatency(LibraryMetrics.Operation.RETURN_BOOK).getCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Задержки и отказы записываются по операциям, датчики показывают размеры индексов")
+    void shouldRecordOperationsAndGauges() {
+        LibraryMetrics metrics = manager.enableMetrics();
+
+        manager.borrowBook("ISBN1", "R1", 14);
+        manager.borrowBook("ISBN1", "R1", 14); // книга уже выдана
+        manager.borrowBooks("R1", List.of("ISBN2", "ISBN3"), 7);
+        manager.searchBooksByTitle("Книга");
+        manager.getMostPopularBooks(2);
+
+        assertThat(metrics.getLatency(LibraryMetrics.Operation.BORROW_BOOK).getCount()).isEqualTo(2);
+        assertThat(metrics.getFailureCount(LibraryMetrics.Operation.BORROW_BOOK)).isEqualTo(1);
+        assertThat(metrics.getLatency(LibraryMetrics.Operation.BORROW_BOOKS).getCount()).isEqualTo(1);
+        assertThat(metrics.getLatency(LibraryMetrics.Operation.SEARCH_BY_TITLE).getCount()).isEqualTo(1);
+        assertThat(metrics.getLatency(LibraryMetrics.Operation.MOST_POPULAR_BOOKS).getCount()).isEqualTo(1);
+        assertThat(metrics.getGauge("library_books")).isEqualTo(3);
+        assertThat(metrics.getGauge("library_active_borrowings")).isEqualTo(3);
+        assertThat(metrics.getGauge("library_due_date_index_size")).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("В ConcurrentLibraryManager задержка включает ожидание блокировки полосы")
+    void shouldMeasureLockWaitInConcurrentManager() throws Exception {
+        ConcurrentLibraryManager concurrent = new ConcurrentLibraryManager(4);
+        concurrent.addBook(new Book("ISBN1", "Книга 1", 2001, Book.Genre.FICTION));
+        concurrent.addReader(new Reader("R1", "Иван", "ivan@mail.ru", Reader.ReaderCategory.STUDENT));
+        LibraryMetrics metrics = concurrent.enableMetrics();
+
+        ReentrantLock stripe = concurrent.lockFor("ISBN1");
+        stripe.lock();
+        Thread borrower;
+        try {
+            borrower = Thread.ofPlatform().start(() -> concurrent.borrowBook("ISBN1", "R1", 14));
+            // Замер начинается до захвата полосы: поток в очереди уже запустил таймер
+            while (!stripe.hasQueuedThread(borrower)) {
+                Thread.onSpinWait();
+            }
+            Thread.sleep(50);
+        } finally {
+            stripe.unlock();
+        }
+        borrower.join();
+
+        assertThat(metrics.getLatency(LibraryMetrics.Operation.BORROW_BOOK).getMax())
+                .isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    @Test
+    @DisplayName("Текстовый снимок содержит датчики, счётчики и сводку задержек")
+    void shouldExportTextSnapshot() {
+        LibraryMetrics metrics = manager.enableMetrics();
+        metrics.counter("library_imports_total").add(5);
+        manager.borrowBook("ISBN1", "R1", 14);
+
+        String snapshot = metrics.export();
+
+        assertThat(snapshot)
+                .contains("library_books 3\n")
+                .contains("library_imports_total 5\n")
+                .contains("library_operation_latency_nanos_count{operation=\"borrowBook\"} 1\n")
+                .contains("library_operation_latency_nanos{operation=\"borrowBook\",quantile=\"0.99\"}")
+                .contains("library_operation_failures_total{operation=\"borrowBook\"} 0\n")
+                .doesNotContain("operation=\"returnBook\"");
+        // У каждого семейства своя строка # TYPE, и его строки идут сразу после неё
+        assertThat(snapshot)
+                .contains("# TYPE library_operation_latency_nanos_max gauge\nlibrary_operation_latency_nanos_max{")
+                .contains("# TYPE library_operation_failures_total counter\nlibrary_operation_failures_total{");
+    }
+}
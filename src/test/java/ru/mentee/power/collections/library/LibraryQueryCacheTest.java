@@ -0,0 +1,95 @@
+package ru.mentee.power.collections.library;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LibraryQueryCacheTest {
+
+    private LibraryManager libraryManager;
+    private LibraryQueryCache cache;
+    private Book java;
+    private Book rome;
+
+    @BeforeEach
+    void setUp() {
+        libraryManager = new LibraryManager(new HashMap<>(), new HashMap<>(), new ArrayList<>(), new HashMap<>());
+        java = new Book("ISBN1", "Java Basics", 2020, Book.Genre.SCIENCE);
+        rome = new Book("ISBN2", "History of Rome", 2018, Book.Genre.HISTORY);
+        libraryManager.addBook(java);
+        libraryManager.addBook(rome);
+        libraryManager.addReader(new Reader("R1", "Alice", "alice@example.com", Reader.ReaderCategory.STUDENT));
+
+        cache = LibraryQueryCache.attach(libraryManager, 3);
+    }
+
+    @Test
+    @DisplayName("Повторный запрос должен возвращать тот же неизменяемый список")
+    void shouldReturnCachedResultOnRepeatedQuery() {
+        List<Book> first = cache.getBooksByGenre(Book.Genre.SCIENCE);
+        List<Book> second = cache.getBooksByGenre(Book.Genre.SCIENCE);
+
+        assertThat(second).isSameAs(first).containsExactly(java);
+        assertThat(cache.getHitCount()).isEqualTo(1);
+        assertThat(cache.getMissCount()).isEqualTo(1);
+        assertThatThrownBy(() -> second.add(rome)).isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    @DisplayName("Добавление книги должно сбрасывать только затронутые записи")
+    void shouldInvalidateOnlyAffectedEntriesOnAdd() {
+        cache.getBooksByGenre(Book.Genre.SCIENCE);
+        cache.getBooksByGenre(Book.Genre.HISTORY);
+        cache.searchBooksByTitle("java");
+
+        Book advanced = new Book("ISBN3", "Advanced JAVA", 2022, Book.Genre.SCIENCE);
+        libraryManager.addBook(advanced);
+
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.getInvalidationCount()).isEqualTo(2);
+        assertThat(cache.getBooksByGenre(Book.Genre.SCIENCE)).containsExactlyInAnyOrder(java, advanced);
+        assertThat(cache.searchBooksByTitle("Java")).containsExactlyInAnyOrder(java, advanced);
+        assertThat(cache.getBooksByGenre(Book.Genre.HISTORY)).containsExactly(rome);
+        assertThat(cache.getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Выдача и возврат должны сбрасывать только список доступных книг")
+    void shouldInvalidateAvailableBooksOnBorrowAndReturn() {
+        assertThat(cache.getAvailableBooks()).containsExactlyInAnyOrder(java, rome);
+        cache.getBooksByGenre(Book.Genre.SCIENCE);
+
+        libraryManager.borrowBook("ISBN1", "R1", 7);
+        assertThat(cache.getAvailableBooks()).containsExactly(rome);
+        assertThat(cache.getBooksByGenre(Book.Genre.SCIENCE)).containsExactly(java);
+        assertThat(cache.getHitCount()).isEqualTo(1);
+
+        libraryManager.returnBook("ISBN1", "R1");
+        assertThat(cache.getAvailableBooks()).containsExactlyInAnyOrder(java, rome);
+    }
+
+    @Test
+    @DisplayName("При переполнении должна вытесняться давно не запрашиваемая запись")
+    void shouldEvictLeastRecentlyUsedEntry() {
+        cache.getBooksByGenre(Book.Genre.SCIENCE);
+        cache.getBooksByGenre(Book.Genre.HISTORY);
+        cache.getAvailableBooks();
+        cache.getBooksByGenre(Book.Genre.SCIENCE); // SCIENCE снова свежая, самой давней стала HISTORY
+
+        cache.searchBooksByTitle("rome");
+
+        assertThat(cache.getEvictionCount()).isEqualTo(1);
+        long misses = cache.getMissCount();
+        cache.getBooksByGenre(Book.Genre.SCIENCE);
+        assertThat(cache.getMissCount()).isEqualTo(misses);
+        cache.getBooksByGenre(Book.Genre.HISTORY);
+        assertThat(cache.getMissCount()).isEqualTo(misses + 1);
+    }
+}
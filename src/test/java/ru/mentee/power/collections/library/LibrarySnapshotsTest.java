@@ -0,0 +1,182 @@
+package ru.mentee.power.collections.library;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LibrarySnapshotsTest {
+
+    private ConcurrentLibraryManager libraryManager;
+    private LibrarySnapshots snapshots;
+
+    @BeforeEach
+    void setUp() {
+        libraryManager = new ConcurrentLibraryManager();
+        for (int i = 0; i < 100; i++) {
+            libraryManager.addBook(new Book("ISBN" + i, "Book " + i, 2000 + i % 20, Book.Genre.FICTION));
+        }
+        libraryManager.addReader(new Reader("R1", "Alice", "alice@example.com", Reader.ReaderCategory.STUDENT));
+        libraryManager.borrowBook("ISBN0", "R1", 14);
+
+        snapshots = LibrarySnapshots.attach(libraryManager);
+    }
+
+    @Test
+    @DisplayName("Снимок не должен меняться после изменений в менеджере")
+    void shouldKeepSnapshotUnchanged() {
+        LibrarySnapshot before = snapshots.snapshot();
+
+        libraryManager.returnBook("ISBN0", "R1");
+        libraryManager.borrowBook("ISBN1", "R1", 7);
+        libraryManager.extendBorrowingPeriod("ISBN1", "R1", 3);
+        libraryManager.removeBook("ISBN99");
+        libraryManager.addReader(new Reader("R2", "Bob", "bob@example.com", Reader.ReaderCategory.TEACHER));
+        LibrarySnapshot after = snapshots.snapshot();
+
+        assertThat(before.getBookCount()).isEqualTo(100);
+        assertThat(before.getBook("ISBN0").isAvailable()).isFalse();
+        assertThat(before.getActiveBorrowings()).extracting(Borrowing::getIsbn).containsExactly("ISBN0");
+        assertThat(before.getReader("R2")).isNull();
+
+        assertThat(after.getVersion()).isEqualTo(before.getVersion() + 5);
+        assertThat(after.getBookCount()).isEqualTo(99);
+        assertThat(after.getBook("ISBN0").isAvailable()).isTrue();
+        assertThat(after.getActiveBorrowingsByReader("R1")).extracting(Borrowing::getIsbn).containsExactly("ISBN1");
+        assertThat(after.getActiveBorrowing("ISBN1").getDueDate())
+                .isEqualTo(libraryManager.findActiveBorrowing("ISBN1", "R1").getDueDate());
+        assertThat(after.getReaderCount()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Отчет по снимку должен видеть согласованное состояние во время записи")
+    void shouldReadConsistentSnapshotWhileWriting() throws Exception {
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread desk = new Thread(() -> {
+            int i = 1;
+            while (running.get()) {
+                String isbn = "ISBN" + (i % 100);
+                if (!libraryManager.borrowBook(isbn, "R1", 7)) {
+                    libraryManager.returnBook(isbn, "R1");
+                }
+                i++;
+            }
+        });
+        desk.start();
+        try {
+            for (int round = 0; round < 200; round++) {
+                LibrarySnapshot snapshot = snapshots.snapshot();
+                long unavailable = snapshot.streamBooks().filter(book -> !book.isAvailable()).count();
+                assertThat(unavailable).isEqualTo(snapshot.getActiveBorrowingCount());
+                for (Borrowing borrowing : snapshot.getActiveBorrowings()) {
+                    assertThat(snapshot.getBook(borrowing.getIsbn()).isAvailable()).isFalse();
+                }
+            }
+        } finally {
+            running.set(false);
+            desk.join();
+        }
+    }
+
+    @Test
+    @DisplayName("Снимок не должен показывать половину пачки, даже если другой поток завершил свою операцию")
+    void shouldNotPublishOtherThreadsHalfAppliedBatch() throws Exception {
+        libraryManager.addReader(new Reader("R2", "Bob", "bob@example.com", Reader.ReaderCategory.TEACHER));
+        List<String> batch = List.of("ISBN50", "ISBN51", "ISBN52", "ISBN53");
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread batchDesk = new Thread(() -> {
+            while (running.get()) {
+                libraryManager.borrowBooks("R2", batch, 7);
+                libraryManager.returnBooks("R2", batch);
+            }
+        });
+        Thread singleDesk = new Thread(() -> {
+            int i = 1;
+            while (running.get()) {
+                String isbn = "ISBN" + (i % 40);
+                if (!libraryManager.borrowBook(isbn, "R1", 7)) {
+                    libraryManager.returnBook(isbn, "R1");
+                }
+                i++;
+            }
+        });
+        batchDesk.start();
+        singleDesk.start();
+        try {
+            for (int round = 0; round < 2_000; round++) {
+                assertThat(snapshots.snapshot().getActiveBorrowingsByReader("R2").size()).isIn(0, batch.size());
+            }
+        } finally {
+            running.set(false);
+            batchDesk.join();
+            singleDesk.join();
+        }
+    }
+
+    @Test
+    @DisplayName("Книги, читатели и выдачи в снимке нельзя изменить")
+    void shouldExposeReadOnlyCopies() {
+        LibrarySnapshot snapshot = snapshots.snapshot();
+
+        assertThatThrownBy(() -> snapshot.getBook("ISBN1").setAvailable(false))
+                .isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> snapshot.getBook("ISBN1").addAuthor("Кто-то"))
+                .isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> snapshot.getReader("R1").setName("Mallory"))
+                .isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> snapshot.getActiveBorrowing("ISBN0").returnBook(LocalDate.now()))
+                .isInstanceOf(UnsupportedOperationException.class);
+        assertThat(snapshot.getBook("ISBN1")).isEqualTo(libraryManager.getBookByIsbn("ISBN1"));
+    }
+
+    @Test
+    @DisplayName("Постоянная хеш-карта должна совпадать с HashMap, в том числе при коллизиях")
+    void shouldMatchHashMapIncludingCollisions() {
+        PersistentHashMap<Object, Integer> map = PersistentHashMap.empty();
+        Map<Object, Integer> expected = new HashMap<>();
+        Random random = new Random(7);
+        PersistentHashMap<Object, Integer> firstVersion = null;
+        Map<Object, Integer> firstExpected = null;
+
+        for (int i = 0; i < 50_000; i++) {
+            int n = random.nextInt(2_000);
+            // Половина ключей — строки с одинаковым hashCode ("Aa" и "BB"), чтобы проверить узлы коллизий
+            Object key = n % 2 == 0 ? n : ("Aa".repeat(n % 7) + "BB".repeat(3 - n % 4) + n / 28);
+            if (random.nextInt(3) == 0) {
+                map = map.minus(key);
+                expected.remove(key);
+            } else {
+                map = map.plus(key, i);
+                expected.put(key, i);
+            }
+            if (i == 1_000) {
+                firstVersion = map;
+                firstExpected = new HashMap<>(expected);
+            }
+        }
+
+        assertThat(contentsOf(map)).isEqualTo(expected);
+        assertThat(map.size()).isEqualTo(expected.size());
+        for (Map.Entry<Object, Integer> entry : expected.entrySet()) {
+            assertThat(map.get(entry.getKey())).isEqualTo(entry.getValue());
+        }
+        // Старая версия не изменилась от последующих операций
+        assertThat(contentsOf(firstVersion)).isEqualTo(firstExpected);
+        assertThat(firstVersion.size()).isEqualTo(firstExpected.size());
+    }
+
+    private static Map<Object, Integer> contentsOf(PersistentHashMap<Object, Integer> map) {
+        Map<Object, Integer> contents = new HashMap<>();
+        map.forEach(contents::put);
+        return contents;
+    }
+}
@@ -0,0 +1,247 @@
+package ru.mentee.power.collections.library;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LibraryStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private static LibraryManager newManager() {
+        return new LibraryManager(new HashMap<>(), new HashMap<>(), new ArrayList<>(), new HashMap<>());
+    }
+
+    private static Book book(String isbn, String title, int year) {
+        Book book = new Book(isbn, title, year, Book.Genre.FICTION);
+        book.addAuthor("Author " + isbn);
+        return book;
+    }
+
+    private static void fill(LibraryManager manager) {
+        manager.addBook(book("ISBN1", "Первая", 2001));
+        manager.addBook(book("ISBN2", "Вторая", 2002));
+        manager.addBook(book("ISBN3", "Третья", 2003));
+        manager.addReader(new Reader("R1", "Иван", "ivan@mail.ru", Reader.ReaderCategory.STUDENT));
+        manager.addReader(new Reader("R2", "Анна", "anna@mail.ru", Reader.ReaderCategory.REGULAR));
+    }
+
+    @Test
+    @DisplayName("После повторного открытия восстанавливаются книги, читатели и выдачи")
+    void shouldRestoreStateFromJournal() throws Exception {
+        LibraryManager manager = newManager();
+        LibraryStore writer = LibraryStore.open(directory, manager);
+        try {
+            fill(manager);
+            manager.borrowBook("ISBN1", "R1", 14);
+            manager.borrowBook("ISBN2", "R2", 14);
+            manager.extendBorrowingPeriod("ISBN2", "R2", 7);
+            manager.returnBook("ISBN1", "R1");
+            manager.removeBook("ISBN3");
+        } finally {
+            writer.close();
+        }
+
+        LibraryManager restored = newManager();
+        try (LibraryStore store = LibraryStore.open(directory, restored)) {
+            assertThat(store.getReplayedRecords()).isEqualTo(10);
+            assertThat(restored.getAllBooks()).extracting(Book::getIsbn).containsExactlyInAnyOrder("ISBN1", "ISBN2");
+            assertThat(restored.getAllReaders()).extracting(Reader::getId).containsExactlyInAnyOrder("R1", "R2");
+            assertThat(restored.getBookByIsbn("ISBN1").isAvailable()).isTrue();
+            assertThat(restored.getBookByIsbn("ISBN2").isAvailable()).isFalse();
+            assertThat(restored.getBorrowingsByBook("ISBN1")).singleElement()
+                    .satisfies(b -> assertThat(b.isReturned()).isTrue());
+            assertThat(restored.findActiveBorrowing("ISBN2", "R2").getDueDate())
+                    .isEqualTo(LocalDate.now().plusDays(21));
+            assertThat(restored.searchBooksByTitle("втор")).extracting(Book::getIsbn).containsExactly("ISBN2");
+        }
+    }
+
+    @Test
+    @DisplayName("Контрольная точка укорачивает журнал, а изменения после неё не теряются")
+    void shouldRecoverFromCheckpointAndJournalTail() throws Exception {
+        LibraryManager manager = newManager();
+        try (LibraryStore store = LibraryStore.open(directory, manager)) {
+            fill(manager);
+            manager.borrowBook("ISBN1", "R1", 14);
+            long journalBefore = store.getJournal().size();
+
+            store.checkpoint();
+            assertThat(store.getJournal().size()).isLessThan(journalBefore);
+
+            manager.returnBook("ISBN1", "R1");
+            manager.borrowBook("ISBN1", "R2", 7);
+        }
+
+        LibraryManager restored = newManager();
+        try (LibraryStore store = LibraryStore.open(directory, restored)) {
+            assertThat(store.getReplayedRecords()).isEqualTo(2);
+            assertThat(restored.getAllBooks()).hasSize(3);
+            assertThat(restored.getBorrowingsByBook("ISBN1")).hasSize(2);
+            assertThat(restored.findActiveBorrowing("ISBN1", "R1")).isNull();
+            assertThat(restored.findActiveBorrowing("ISBN1", "R2")).isNotNull();
+
+            // Новые выдачи продолжают нумерацию, а не начинают её заново
+            restored.returnBook("ISBN1", "R2");
+            restored.borrowBook("ISBN1", "R1", 7);
+            assertThat(restored.findActiveBorrowing("ISBN1", "R1").getSequence())
+                    .isGreaterThan(restored.getBorrowingsByBook("ISBN1").get(1).getSequence());
+        }
+    }
+
+    @Test
+    @DisplayName("Книга, попавшая в контрольную точку позже своей выдачи, после восстановления остаётся выданной")
+    void shouldRestoreAvailabilityWhenCheckpointRacedWithBorrow() throws Exception {
+        LibraryManager manager = newManager();
+        long lsnBeforeBook;
+        Borrowing loan;
+        try (LibraryStore store = LibraryStore.open(directory, manager)) {
+            fill(manager);
+            lsnBeforeBook = store.getJournal().getLastLsn();
+            manager.addBook(book("ISBN9", "Девятая", 2009));
+            manager.borrowBook("ISBN9", "R1", 14);
+            loan = manager.findActiveBorrowing("ISBN9", "R1");
+        }
+
+        // Контрольная точка, снятая во время записи: выдача в неё попала, а книга — нет
+        LibraryManager torn = newManager();
+        fill(torn);
+        Borrowing copy = new Borrowing(loan.getIsbn(), loan.getReaderId(), loan.getBorrowDate(), loan.getDueDate());
+        copy.setSequence(loan.getSequence());
+        torn.restoreBorrowing(copy);
+        LibraryCheckpoint.write(directory.resolve("library.checkpoint"), torn, lsnBeforeBook);
+
+        LibraryManager restored = newManager();
+        LibraryStore.open(directory, restored).close();
+        assertThat(restored.getBookByIsbn("ISBN9").isAvailable()).isFalse();
+        assertThat(restored.getAvailableBooks()).extracting(Book::getIsbn).doesNotContain("ISBN9");
+        assertThat(restored.findActiveBorrowing("ISBN9", "R1")).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Ошибка фоновой контрольной точки сохраняется, а не печатается")
+    void shouldKeepBackgroundCheckpointFailure() throws Exception {
+        LibraryManager manager = new ConcurrentLibraryManager();
+        try (LibraryStore store = LibraryStore.open(directory, manager)) {
+            fill(manager);
+            // Временный файл контрольной точки занят непустым каталогом — запись не удастся
+            Files.createDirectories(directory.resolve("library.checkpoint.tmp").resolve("busy"));
+            store.startPeriodicCheckpoints(Duration.ofMillis(10));
+            for (int i = 0; i < 200 && store.getCheckpointFailure() == null; i++) {
+                Thread.sleep(10);
+            }
+            assertThat(store.getCheckpointFailure()).isNotNull();
+        }
+    }
+
+    @Test
+    @DisplayName("Фоновые контрольные точки для непотокобезопасного менеджера не запускаются")
+    void shouldRejectPeriodicCheckpointsForPlainManager() throws Exception {
+        LibraryManager manager = newManager();
+        try (LibraryStore store = LibraryStore.open(directory, manager)) {
+            assertThatThrownBy(() -> store.startPeriodicCheckpoints(Duration.ofMillis(10)))
+                    .isInstanceOf(IllegalStateException.class);
+        }
+    }
+
+    @Test
+    @DisplayName("Оборванная запись в конце журнала отбрасывается")
+    void shouldIgnoreTornJournalTail() throws Exception {
+        LibraryManager manager = newManager();
+        LibraryStore writer = LibraryStore.open(directory, manager);
+        try {
+            fill(manager);
+        } finally {
+            writer.close();
+        }
+        Files.write(directory.resolve("library.journal"), new byte[] {0, 0, 0, 42, 1, 2, 3},
+                StandardOpenOption.APPEND);
+
+        LibraryManager restored = newManager();
+        try (LibraryStore store = LibraryStore.open(directory, restored)) {
+            assertThat(store.getReplayedRecords()).isEqualTo(5);
+            restored.borrowBook("ISBN3", "R1", 7);
+        }
+
+        LibraryManager again = newManager();
+        try (LibraryStore store = LibraryStore.open(directory, again)) {
+            assertThat(store.getReplayedRecords()).isEqualTo(6);
+            assertThat(again.getBookByIsbn("ISBN3").isAvailable()).isFalse();
+        }
+    }
+
+    @Test
+    @DisplayName("Групповой коммит выполняет не больше fsync, чем записей в журнале")
+    void shouldBatchSyncsUnderConcurrentLoad() throws Exception {
+        ConcurrentLibraryManager manager = new ConcurrentLibraryManager();
+        try (LibraryStore store = LibraryStore.open(directory, manager)) {
+            ExecutorService executor = Executors.newFixedThreadPool(8);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 50; i++) {
+                        manager.addBook(book("T" + thread + "-" + i, "Книга " + i, 2000 + i));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            executor.shutdown();
+
+            LibraryJournal journal = store.getJournal();
+            assertThat(journal.getAppendedRecords()).isEqualTo(400);
+            assertThat(journal.getSyncCount()).isLessThanOrEqualTo(journal.getAppendedRecords());
+        }
+
+        LibraryManager restored = newManager();
+        LibraryStore.open(directory, restored).close();
+        assertThat(restored.getAllBooks()).hasSize(400);
+    }
+
+    @Test
+    @DisplayName("Один fsync подтверждает записи всех потоков, дописавших их до него")
+    void shouldConfirmOverlappingAppendsWithOneSync() throws Exception {
+        int writers = 8;
+        try (LibraryJournal journal = new LibraryJournal(directory.resolve("group.journal"))) {
+            // Все потоки дописывают запись и только потом ждут fsync — их окна ожидания перекрываются
+            CyclicBarrier appended = new CyclicBarrier(writers);
+            ExecutorService executor = Executors.newFixedThreadPool(writers);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < writers; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    journal.bookAdded(book("G" + thread, "Книга " + thread, 2000));
+                    appended.await();
+                    journal.committed();
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            executor.shutdown();
+
+            assertThat(journal.getAppendedRecords()).isEqualTo(writers);
+            assertThat(journal.getSyncCount()).isEqualTo(1).isLessThan(journal.getAppendedRecords());
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package ru.mentee.power.collections.library;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OverdueNotifierTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 1, 1);
+
+    private MutableClock clock;
+    private LibraryManager manager;
+    private OverdueNotifier notifier;
+
+    /**
+     * Часы, которые тест переводит вручную
+     */
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+
+    /**
+     * Подписчик, который сам решает, сколько событий запросить
+     */
+    private static final class QueueSubscriber implements Flow.Subscriber<Borrowing> {
+        private final BlockingQueue<Borrowing> received = new LinkedBlockingQueue<>();
+        private final long initialRequest;
+        private Flow.Subscription subscription;
+        private volatile boolean completed;
+
+        private QueueSubscriber(long initialRequest) {
+            this.initialRequest = initialRequest;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(initialRequest);
+        }
+
+        @Override
+        public void onNext(Borrowing item) {
+            received.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+
+        Borrowing next() throws InterruptedException {
+            return received.poll(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(TODAY.atTime(10, 0).toInstant(ZoneOffset.UTC));
+        manager = new LibraryManager(new HashMap<>(), new HashMap<>(), new ArrayList<>(), new HashMap<>());
+        for (int i = 1; i <= 3; i++) {
+            manager.addBook(new Book("ISBN" + i, "Книга " + i, 2000 + i, Book.Genre.FICTION));
+        }
+        manager.addReader(new Reader("R1", "Иван", "ivan@mail.ru", Reader.ReaderCategory.STUDENT));
+        notifier = OverdueNotifier.attach(manager, clock, Duration.ofMinutes(1), 16);
+    }
+
+    @AfterEach
+    void tearDown() {
+        notifier.close();
+    }
+
+    @Test
+    @DisplayName("Событие публикуется, как только наступает день после срока возврата")
+    void shouldPublishWhenDueDatePasses() throws Exception {
+        QueueSubscriber subscriber = new QueueSubscriber(Long.MAX_VALUE);
+        notifier.subscribe(subscriber);
+        manager.borrowBook("ISBN1", "R1", TODAY, TODAY.plusDays(2));
+        manager.borrowBook("ISBN2", "R1", TODAY, TODAY.plusDays(5));
+
+        clock.advance(Duration.ofHours(61)); // 3 января, 23:00 — срок ещё не прошёл
+        assertThat(notifier.advance()).isZero();
+
+        clock.advance(Duration.ofHours(1)); // 4 января, 00:00
+        assertThat(notifier.advance()).isEqualTo(1);
+        assertThat(subscriber.next().getIsbn()).isEqualTo("ISBN1");
+        assertThat(notifier.getScheduledCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Возврат отменяет таймер, продление переставляет его")
+    void shouldCancelOnReturnAndRescheduleOnExtension() throws Exception {
+        QueueSubscriber subscriber = new QueueSubscriber(Long.MAX_VALUE);
+        notifier.subscribe(subscriber);
+        manager.borrowBook("ISBN1", "R1", TODAY, TODAY.plusDays(1));
+        manager.borrowBook("ISBN2", "R1", TODAY, TODAY.plusDays(1));
+        manager.returnBook("ISBN1", "R1", TODAY);
+        manager.extendBorrowingPeriod("ISBN2", "R1", 3);
+
+        clock.advance(Duration.ofDays(2));
+        assertThat(notifier.advance()).isZero();
+
+        // Колесо в 1024 минуты успевает провернуться несколько раз — таймер не теряется
+        clock.advance(Duration.ofDays(3));
+        assertThat(notifier.advance()).isEqualTo(1);
+        assertThat(subscriber.next().getIsbn()).isEqualTo("ISBN2");
+        assertThat(notifier.getFiredCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Выдача, возвращённая после снятия таймера с колеса, не публикуется")
+    void shouldNotPublishBorrowingReturnedAfterExpiry() {
+        manager.borrowBook("ISBN1", "R1", TODAY, TODAY.plusDays(1));
+        // Возврат, который разминулся с отменой таймера: колесо о нём не узнало
+        manager.findActiveBorrowing("ISBN1", "R1").returnBook(TODAY.plusDays(1));
+
+        clock.advance(Duration.ofDays(2));
+        assertThat(notifier.advance()).isZero();
+        assertThat(notifier.getFiredCount()).isZero();
+        assertThat(notifier.getScheduledCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Подписчик получает не больше событий, чем запросил")
+    void shouldRespectSubscriberDemand() throws Exception {
+        QueueSubscriber subscriber = new QueueSubscriber(1);
+        notifier.subscribe(subscriber);
+        for (int i = 1; i <= 3; i++) {
+            manager.borrowBook("ISBN" + i, "R1", TODAY, TODAY.plusDays(i));
+        }
+
+        clock.advance(Duration.ofDays(10));
+        assertThat(notifier.advance()).isEqualTo(3);
+
+        assertThat(subscriber.next().getIsbn()).isEqualTo("ISBN1");
+        assertThat(subscriber.received.poll(200, TimeUnit.MILLISECONDS)).isNull();
+
+        subscriber.subscription.request(2);
+        assertThat(subscriber.next().getIsbn()).isEqualTo("ISBN2");
+        assertThat(subscriber.next().getIsbn()).isEqualTo("ISBN3");
+        assertThat(notifier.getDroppedCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Выдача задним числом публикуется сразу, закрытие завершает поток")
+    void shouldPublishPastDueBorrowingImmediatelyAndComplete() throws Exception {
+        QueueSubscriber subscriber = new QueueSubscriber(Long.MAX_VALUE);
+        notifier.subscribe(subscriber);
+
+        manager.borrowBook("ISBN3", "R1", TODAY.minusDays(20), TODAY.minusDays(6));
+
+        assertThat(subscriber.next().getIsbn()).isEqualTo("ISBN3");
+        assertThat(notifier.getScheduledCount()).isZero();
+
+        notifier.close();
+        for (int i = 0; i < 50 && !subscriber.completed; i++) {
+            Thread.sleep(20);
+        }
+        assertThat(subscriber.completed).isTrue();
+        assertThat(manager.borrowBook("ISBN1", "R1", TODAY.minusDays(20), TODAY.minusDays(6))).isTrue();
+        assertThat(notifier.getFiredCount()).isEqualTo(1);
+    }
+}
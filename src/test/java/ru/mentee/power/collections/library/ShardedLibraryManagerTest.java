@@ -0,0 +1,194 @@
+package ru.mentee.power.collections.library;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ShardedLibraryManagerTest {
+
+    private static final int BOOKS = 40;
+
+    private ShardedLibraryManager manager;
+
+    @BeforeEach
+    void setUp() {
+        manager = new ShardedLibraryManager(4);
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < BOOKS; i++) {
+            Book.Genre genre = i % 2 == 0 ? Book.Genre.FICTION : Book.Genre.SCIENCE;
+            books.add(new Book("ISBN" + i, (i % 4 == 0 ? "Java " : "История ") + i, 2000 + i % 10, genre));
+        }
+        assertThat(manager.addBooks(books)).isEqualTo(BOOKS);
+        manager.addReader(new Reader("R1", "Иван", "ivan@mail.ru", Reader.ReaderCategory.STUDENT));
+        manager.addReader(new Reader("R2", "Мария", "maria@mail.ru", Reader.ReaderCategory.REGULAR));
+    }
+
+    @AfterEach
+    void tearDown() {
+        manager.close();
+    }
+
+    @Test
+    @DisplayName("Книги распределяются по всем шардам, операции над книгой идут в её шард")
+    void shouldRouteBooksToShards() {
+        assertThat(manager.getBookCount()).isEqualTo(BOOKS);
+        assertThat(manager.getBookByIsbn("ISBN7").getTitle()).isEqualTo("История 7");
+        assertThat(manager.addBook(new Book("ISBN7", "Дубликат", 2020, Book.Genre.FICTION))).isFalse();
+
+        assertThat(manager.borrowBook("ISBN7", "R1", 14)).isTrue();
+        assertThat(manager.borrowBook("ISBN7", "R2", 14)).isFalse();
+        assertThat(manager.extendBorrowingPeriod("ISBN7", "R1", 7)).isTrue();
+        assertThat(manager.returnBook("ISBN7", "R1")).isTrue();
+        assertThat(manager.removeBook("ISBN7")).isTrue();
+        assertThat(manager.getBookCount()).isEqualTo(BOOKS - 1);
+
+        assertThat(manager.shardOf("ISBN1")).isBetween(0, 3);
+        assertThatThrownBy(() -> manager.borrowBook(null, "R1", 14)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("Читатели есть во всех шардах: выдача возможна из любого шарда")
+    void shouldReplicateReaders() {
+        for (int i = 0; i < BOOKS; i++) {
+            assertThat(manager.borrowBook("ISBN" + i, "R1", 14)).isTrue();
+        }
+        assertThat(manager.getActiveBorrowingsByReader("R1")).hasSize(BOOKS);
+        assertThat(manager.addReader(new Reader("R1", "Иван", "ivan@mail.ru", Reader.ReaderCategory.STUDENT))).isFalse();
+
+        assertThat(manager.removeReader("R2")).isTrue();
+        assertThat(manager.getReaderById("R2")).isNull();
+        assertThat(manager.borrowBook("ISBN0", "R2", 14)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Книга отдаётся копией только для чтения, а не объектом шарда")
+    void shouldReturnBookCopies() {
+        Book before = manager.getBookByIsbn("ISBN7");
+        manager.borrowBook("ISBN7", "R1", 14);
+
+        assertThat(before.isAvailable()).isTrue();
+        assertThat(manager.getBookByIsbn("ISBN7").isAvailable()).isFalse();
+        assertThatThrownBy(() -> before.setTitle("Другое")).isInstanceOf(UnsupportedOperationException.class);
+        assertThat(manager.searchBooksByTitle("История 7").get(0)).isNotSameAs(manager.getBookByIsbn("ISBN7"));
+    }
+
+    @Test
+    @DisplayName("Выдачи отдаются копиями только для чтения, а не объектами шарда")
+    void shouldReturnBorrowingCopies() {
+        LocalDate today = LocalDate.now();
+        manager.borrowBook("ISBN7", "R1", today.minusDays(30), today.minusDays(10));
+        Borrowing active = manager.getActiveBorrowingsByReader("R1").get(0);
+        Borrowing overdue = manager.getOverdueBorrowings().get(0);
+
+        manager.extendBorrowingPeriod("ISBN7", "R1", 30);
+
+        assertThat(active.getDueDate()).isEqualTo(today.minusDays(10));
+        assertThat(overdue.getDueDate()).isEqualTo(today.minusDays(10));
+        assertThat(manager.getActiveBorrowingsByReader("R1").get(0).getDueDate()).isEqualTo(today.plusDays(20));
+        assertThatThrownBy(() -> active.setDueDate(today)).isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> overdue.returnBook(today)).isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    @DisplayName("Параллельные добавления и удаления читателя применяются во всех шардах одинаково")
+    void shouldKeepReaderReplicasConsistent() throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int c = 0; c < 4; c++) {
+            boolean adding = c % 2 == 0;
+            futures.add(clients.submit(() -> {
+                for (int i = 0; i < 200; i++) {
+                    if (adding) {
+                        manager.addReader(new Reader("R9", "Олег", "oleg@mail.ru", Reader.ReaderCategory.REGULAR));
+                    } else {
+                        manager.removeReader("R9");
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        clients.shutdown();
+
+        // Читатель либо есть во всех шардах, либо ни в одном
+        boolean present = manager.getReaderById("R9") != null;
+        for (int i = 0; i < BOOKS; i++) {
+            assertThat(manager.borrowBook("ISBN" + i, "R9", 14)).isEqualTo(present);
+        }
+    }
+
+    @Test
+    @DisplayName("Поиск и статистика собираются со всех шардов")
+    void shouldScatterGatherQueries() {
+        assertThat(manager.searchBooksByTitle("java")).hasSize(BOOKS / 4);
+        assertThat(manager.getGenreStatistics())
+                .containsEntry(Book.Genre.FICTION, BOOKS / 2)
+                .containsEntry(Book.Genre.SCIENCE, BOOKS / 2);
+
+        LocalDate today = LocalDate.now();
+        manager.borrowBook("ISBN3", "R1", today.minusDays(30), today.minusDays(10));
+        manager.borrowBook("ISBN5", "R2", today.minusDays(30), today.minusDays(20));
+        assertThat(manager.getOverdueBorrowings()).extracting(Borrowing::getIsbn).containsExactly("ISBN5", "ISBN3");
+    }
+
+    @Test
+    @DisplayName("Рейтинги сливаются точно, хотя выдачи читателя разбросаны по шардам")
+    void shouldMergeRankings() {
+        for (int round = 0; round < 3; round++) {
+            manager.borrowBook("ISBN1", "R2", 14);
+            manager.returnBook("ISBN1", "R2");
+        }
+        manager.borrowBook("ISBN2", "R2", 14);
+        manager.returnBook("ISBN2", "R2");
+        // У R1 больше выдач в сумме, но в каждом шарде меньше, чем у R2 в шарде ISBN1
+        for (int i = 10; i < 20; i++) {
+            manager.borrowBook("ISBN" + i, "R1", 14);
+        }
+
+        assertThat(manager.getMostPopularBooks(1)).containsOnlyKeys(manager.getBookByIsbn("ISBN1"));
+        assertThat(manager.getMostPopularBooks(1)).containsValue(3);
+        assertThat(manager.getMostActiveReaders(2).keySet())
+                .extracting(Reader::getId)
+                .containsExactly("R1", "R2");
+        assertThat(manager.getMostActiveReaders(2)).containsValues(10, 4);
+    }
+
+    @Test
+    @DisplayName("Параллельные клиенты не выдают одну книгу дважды")
+    void shouldSerializeOperationsWithinShard() throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(8);
+        AtomicInteger borrowed = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int c = 0; c < 8; c++) {
+            String readerId = c % 2 == 0 ? "R1" : "R2";
+            futures.add(clients.submit(() -> {
+                for (int i = 0; i < BOOKS; i++) {
+                    if (manager.borrowBook("ISBN" + i, readerId, 14)) {
+                        borrowed.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        clients.shutdown();
+
+        assertThat(borrowed.get()).isEqualTo(BOOKS);
+        assertThat(manager.getActiveBorrowingsByReader("R1").size()
+                + manager.getActiveBorrowingsByReader("R2").size()).isEqualTo(BOOKS);
+    }
+}
@@ -0,0 +1,163 @@
+package ru.mentee.power.collections.library.server;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import ru.mentee.power.collections.library.Book;
+import ru.mentee.power.collections.library.ConcurrentLibraryManager;
+import ru.mentee.power.collections.library.LibraryManager;
+import ru.mentee.power.collections.library.Reader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LibraryServerTest {
+
+    private ConcurrentLibraryManager manager;
+    private LibraryServer server;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        manager = new ConcurrentLibraryManager();
+        for (int i = 0; i < 20; i++) {
+            Book book = new Book("ISBN" + i, "Book " + i, 2000 + i, Book.Genre.SCIENCE);
+            book.addAuthor("Author " + i);
+            manager.addBook(book);
+        }
+        for (int i = 0; i < 50; i++) {
+            manager.addReader(new Reader("R" + i, "Reader " + i, "r" + i + "@mail", Reader.ReaderCategory.REGULAR));
+        }
+        server = LibraryServer.start(manager, 0);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        server.close();
+    }
+
+    @Test
+    @DisplayName("Протокол должен выполнять команды и сообщать об ошибках")
+    void shouldHandleProtocolCommands() {
+        LibraryProtocol protocol = new LibraryProtocol(manager);
+
+        assertThat(protocol.handle("GET ISBN1")).isEqualTo("OK ISBN1\tBook 1\t2001\tSCIENCE\ttrue");
+        assertThat(protocol.handle("GET ISBN404")).isEqualTo("NOT_FOUND");
+        assertThat(protocol.handle("search book 1")).startsWith("OK 11\n");
+        assertThat(protocol.handle("BORROW ISBN1 R1 14")).isEqualTo("OK");
+        assertThat(protocol.handle("BORROW ISBN1 R2 14")).isEqualTo("FAIL");
+        assertThat(protocol.handle("RETURN ISBN1 R1")).isEqualTo("OK");
+        assertThat(protocol.handle("STATS")).isEqualTo("OK books=20 readers=50 overdue=0");
+        assertThat(protocol.handle("BORROW ISBN1 R1 many")).startsWith("ERROR");
+        assertThat(protocol.handle("RETURN ISBN1")).startsWith("ERROR Usage");
+        assertThat(protocol.handle("DELETE ISBN1")).isEqualTo("ERROR unknown command DELETE");
+    }
+
+    @Test
+    @DisplayName("Сервер должен отвечать по сокету и закрывать соединение по QUIT")
+    void shouldServeRequestsOverSocket() throws Exception {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+             BufferedReader in = new BufferedReader(
+                     new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8)) {
+            out.println("BORROW ISBN3 R1 7");
+            assertThat(in.readLine()).isEqualTo("OK");
+            out.println("SEARCH Book 3");
+            assertThat(in.readLine()).isEqualTo("OK 1");
+            assertThat(in.readLine()).isEqualTo("ISBN3\tBook 3\t2003\tSCIENCE\tfalse");
+            out.println("QUIT");
+            assertThat(in.readLine()).isEqualTo("BYE");
+            assertThat(in.readLine()).isNull();
+        }
+        assertThat(manager.getBookByIsbn("ISBN3").isAvailable()).isFalse();
+        assertThat(server.getHandledRequests()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Слишком длинная строка запроса получает ERROR, а соединение продолжает работать")
+    void shouldRejectTooLongRequestLine() throws Exception {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+             BufferedReader in = new BufferedReader(
+                     new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8)) {
+            out.println("SEARCH " + "x".repeat(LibraryProtocol.MAX_LINE_LENGTH * 100));
+            assertThat(in.readLine()).startsWith("ERROR request line is longer than");
+            out.print("GET ISBN1\r\n");
+            out.flush();
+            assertThat(in.readLine()).startsWith("OK ISBN1\t");
+        }
+    }
+
+    @Test
+    @DisplayName("STATS считает и книги без жанра")
+    void shouldCountBooksWithoutGenreInStats() {
+        LibraryManager plain = new LibraryManager(new HashMap<>(), new HashMap<>(), new ArrayList<>(), new HashMap<>());
+        plain.addBook(new Book("ISBN1", "С жанром", 2020, Book.Genre.SCIENCE));
+        plain.addBook(new Book("NOGENRE", "Без жанра", 2020, null));
+        plain.addReader(new Reader("R1", "Reader 1", "r1@mail", Reader.ReaderCategory.REGULAR));
+        LibraryProtocol protocol = new LibraryProtocol(plain);
+
+        assertThat(protocol.handle("STATS")).isEqualTo("OK books=2 readers=1 overdue=0");
+    }
+
+    @Test
+    @DisplayName("Закрытие сервера дожидается завершения открытых соединений")
+    void shouldWaitForConnectionsOnClose() throws Exception {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+             BufferedReader in = new BufferedReader(
+                     new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8)) {
+            out.println("GET ISBN1");
+            assertThat(in.readLine()).startsWith("OK");
+            assertThat(server.getOpenConnections()).isEqualTo(1);
+
+            server.close();
+
+            assertThat(server.getOpenConnections()).isZero();
+            assertThat(in.readLine()).isNull();
+        }
+        assertThat(server.getFailedAccepts()).isZero();
+        assertThat(server.getLastFailure()).isNull();
+    }
+
+    @Test
+    @DisplayName("Нагрузочный клиент должен измерить задержки всех запросов")
+    void shouldMeasureLatenciesUnderConcurrentClients() throws Exception {
+        LibraryLoadGenerator.Result result = LibraryLoadGenerator.run(server.getPort(), 50, 20, 20);
+
+        assertThat(result.percentile(50)).isPositive();
+        assertThat(result.percentile(99)).isGreaterThanOrEqualTo(result.percentile(50));
+        assertThat(result.throughput()).isPositive();
+        assertThat(server.getAcceptedConnections()).isEqualTo(50);
+        // Каждый клиент завершает работу командой QUIT
+        assertThat(server.getHandledRequests()).isEqualTo(50 * 21);
+    }
+
+    @Test
+    @Timeout(10)
+    @DisplayName("Нагрузочный клиент не должен зависать, если клиенты не смогли подключиться")
+    void shouldReportFailedConnectionsInsteadOfHanging() throws Exception {
+        int closedPort;
+        try (ServerSocket probe = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            closedPort = probe.getLocalPort();
+        }
+
+        assertThatThrownBy(() -> LibraryLoadGenerator.run(closedPort, 3, 5, 20))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("3 из 3")
+                .hasCauseInstanceOf(ConnectException.class);
+    }
+}